@@ -0,0 +1,53 @@
+package com.realshield.platform.config;
+
+import com.realshield.platform.service.detect.AudioDetector;
+import com.realshield.platform.service.detect.engine.DetectorEngineProvider;
+import com.realshield.platform.service.detect.engine.ElaImageEngine;
+import com.realshield.platform.service.detect.engine.KeyframeVideoEngine;
+import com.realshield.platform.service.detect.engine.MelAudioEngine;
+import com.realshield.platform.service.detect.engine.StubImageEngine;
+import com.realshield.platform.service.media.image.ImageTensorDecoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+//the detector engines that ship with the backend, one per media type
+//another provider (bean or ServiceLoader) for the same type is selected with realshield.detect.engines.<type>.name
+
+@Configuration
+public class DetectorEngineConfig {
+
+    //image models get a input-size x input-size RGB tensor, the decoder pool keeps one buffer per image worker
+    @Bean
+    public DetectorEngineProvider stubImageEngine(@Value("${realshield.detect.image.input-size:224}") int inputSize,
+                                                  @Value("${realshield.detect.engines.image.workers:4}") int workers) {
+        ImageTensorDecoder decoder = new ImageTensorDecoder(inputSize, inputSize, workers);
+        return DetectorEngineProvider.of("stub-image", "IMAGE", "1", true, () -> new StubImageEngine(decoder));
+    }
+
+    //Error Level Analysis, one thread safe instance whose ForkJoin pool is shared by every image worker
+    //parallelism 0 uses one ForkJoin thread per core
+    @Bean
+    public DetectorEngineProvider elaImageEngine(@Value("${realshield.detect.ela.parallelism:0}") int parallelism,
+                                                 @Value("${realshield.detect.ela.quality:90}") int quality,
+                                                 @Value("${realshield.detect.ela.tile-size:128}") int tileSize,
+                                                 @Value("${realshield.detect.ela.max-pixels:16000000}") long maxPixels,
+                                                 @Value("${realshield.detect.ela.fake-threshold:2.0}") double fakeThreshold) {
+        return DetectorEngineProvider.of("ela-image", "IMAGE", "1", true,
+                () -> new ElaImageEngine(parallelism, quality, tileSize, maxPixels, fakeThreshold));
+    }
+
+    //video detection looks at this many keyframes spread over the whole clip instead of decoding every frame
+    @Bean
+    public DetectorEngineProvider keyframeVideoEngine(@Value("${realshield.detect.video.max-keyframes:16}") int maxKeyframes) {
+        return DetectorEngineProvider.of("keyframe-video", "VIDEO", "1", true, () -> new KeyframeVideoEngine(maxKeyframes));
+    }
+
+    @Bean
+    public DetectorEngineProvider melAudioEngine(AudioDetector audioDetector,
+                                                 @Value("${realshield.detect.audio.window-ms:25}") int windowMs,
+                                                 @Value("${realshield.detect.audio.hop-ms:10}") int hopMs,
+                                                 @Value("${realshield.detect.audio.mel-bands:40}") int melBands) {
+        return DetectorEngineProvider.of("mel-audio", "AUDIO", "1", true, () -> new MelAudioEngine(audioDetector, windowMs, hopMs, melBands));
+    }
+}
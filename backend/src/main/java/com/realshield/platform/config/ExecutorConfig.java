@@ -0,0 +1,100 @@
+package com.realshield.platform.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+//bounded executors for work that must not run on the Tomcat request threads
+//a full queue rejects new work instead of growing without limit
+//
+//spring.threads.virtual.enabled switches Tomcat (done by Spring Boot) and the I/O bound executors below to virtual threads
+//it needs a Java 21+ runtime, on older runtimes platform threads are used whatever the setting says
+//CPU bound detection (detectJobExecutor) always stays on a fixed platform pool, virtual threads would not make it faster
+
+@Configuration
+public class ExecutorConfig {
+
+    private final boolean virtualThreads;
+
+    public ExecutorConfig(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreadsEnabled) {
+        this.virtualThreads = virtualThreadsEnabled && virtualThreadsSupported();
+    }
+
+    public static boolean virtualThreadsSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    //runs asynchronous video / audio detection jobs
+    @Bean(name = "detectJobExecutor")
+    public ThreadPoolTaskExecutor detectJobExecutor(
+            @Value("${realshield.detect.jobs.workers:2}") int workers,
+            @Value("${realshield.detect.jobs.queue-capacity:50}") int queueCapacity
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("detect-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    //fans out the files of batch analyze requests
+    //when the queue is full the streaming thread runs the file itself, which slows down reading the next upload part
+    //in virtual mode every file gets its own virtual thread and the concurrency limit blocks the streaming thread instead
+    @Bean(name = "analyzeBatchExecutor")
+    public AsyncTaskExecutor analyzeBatchExecutor(
+            @Value("${realshield.analyze.batch.workers:4}") int workers,
+            @Value("${realshield.analyze.batch.queue-capacity:100}") int queueCapacity
+    ) {
+        if (virtualThreads) {
+            return virtualExecutor("analyze-batch-", workers);
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("analyze-batch-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    //runs the verify stages of one analyze request (source, metadata, signature) next to detection
+    //a stage that finds the queue full runs on the request thread, so a busy server degrades to the sequential pipeline
+    @Bean(name = "analyzeStageExecutor")
+    public AsyncTaskExecutor analyzeStageExecutor(
+            @Value("${realshield.analyze.stages.workers:4}") int workers,
+            @Value("${realshield.analyze.stages.queue-capacity:100}") int queueCapacity
+    ) {
+        if (virtualThreads) {
+            return virtualExecutor("analyze-stage-", workers);
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("analyze-stage-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    private SimpleAsyncTaskExecutor virtualExecutor(String threadNamePrefix, int concurrencyLimit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        executor.setTaskTerminationTimeout(30_000);
+        return executor;
+    }
+}
@@ -0,0 +1,11 @@
+package com.realshield.platform.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+//enables @Scheduled housekeeping (expired chunked upload sessions)
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
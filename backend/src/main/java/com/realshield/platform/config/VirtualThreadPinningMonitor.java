@@ -0,0 +1,106 @@
+package com.realshield.platform.config;
+
+import com.realshield.platform.dto.admin.ThreadDiagnosticsDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+//listens to the JFR jdk.VirtualThreadPinned event and counts where virtual threads get pinned to their carrier
+//(a synchronized block or native frame around blocking I/O), grouped by the first application frame of the stack
+//only runs when realshield.threads.pinning-diagnostics=true and the runtime has virtual threads
+
+@Component
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_HOTSPOTS = 100;
+
+    private final boolean virtualThreadsEnabled;
+    private final boolean diagnosticsEnabled;
+    private final long thresholdMillis;
+
+    private final LongAdder pinnedEvents = new LongAdder();
+    private final LongAdder pinnedNanos = new LongAdder();
+    private final Map<String, LongAdder> hotspots = new ConcurrentHashMap<>();
+
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreadsEnabled,
+                                       @Value("${realshield.threads.pinning-diagnostics:false}") boolean diagnosticsEnabled,
+                                       @Value("${realshield.threads.pinning-threshold-ms:20}") long thresholdMillis) {
+        this.virtualThreadsEnabled = virtualThreadsEnabled && ExecutorConfig.virtualThreadsSupported();
+        this.diagnosticsEnabled = diagnosticsEnabled;
+        this.thresholdMillis = thresholdMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!diagnosticsEnabled || !ExecutorConfig.virtualThreadsSupported()) {
+            return;
+        }
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT)
+                .withThreshold(Duration.ofMillis(thresholdMillis))
+                .withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::record);
+        recordingStream.startAsync();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    public ThreadDiagnosticsDTO report() {
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        hotspots.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue().sum()));
+
+        return new ThreadDiagnosticsDTO(
+                ExecutorConfig.virtualThreadsSupported(),
+                virtualThreadsEnabled,
+                recordingStream != null,
+                thresholdMillis,
+                pinnedEvents.sum(),
+                Duration.ofNanos(pinnedNanos.sum()).toMillis(),
+                sorted
+        );
+    }
+
+    private void record(RecordedEvent event) {
+        pinnedEvents.increment();
+        pinnedNanos.add(event.getDuration().toNanos());
+
+        String frame = firstApplicationFrame(event);
+        if (hotspots.size() < MAX_HOTSPOTS || hotspots.containsKey(frame)) {
+            hotspots.computeIfAbsent(frame, key -> new LongAdder()).increment();
+        }
+    }
+
+    //skips JDK frames, the interesting frame is the one in our code or in a library we call
+    private String firstApplicationFrame(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "unknown";
+        }
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return "jdk internal";
+    }
+}
@@ -0,0 +1,30 @@
+package com.realshield.platform.controller.admin;
+
+import com.realshield.platform.config.VirtualThreadPinningMonitor;
+import com.realshield.platform.dto.ApiResponse;
+import com.realshield.platform.dto.admin.ThreadDiagnosticsDTO;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/admin/diagnostics")
+public class AdminDiagnosticsController {
+
+    private final VirtualThreadPinningMonitor virtualThreadPinningMonitor;
+
+    public AdminDiagnosticsController(VirtualThreadPinningMonitor virtualThreadPinningMonitor) {
+        this.virtualThreadPinningMonitor = virtualThreadPinningMonitor;
+    }
+
+    @GetMapping("/threads")
+    public ResponseEntity<ApiResponse<ThreadDiagnosticsDTO>> getThreadDiagnostics(HttpServletRequest request) {
+        /*
+         * TODO (JWT REQUIRED):
+         * - Allow only ADMIN / SUPER_ADMIN
+         */
+        return ResponseEntity.ok(ApiResponse.success("Thread diagnostics fetched successfully", virtualThreadPinningMonitor.report(), request.getRequestURI()));
+    }
+}
@@ -0,0 +1,45 @@
+package com.realshield.platform.controller.admin;
+
+import com.realshield.platform.dto.ApiResponse;
+import com.realshield.platform.dto.verify.PublisherKeyDTO;
+import com.realshield.platform.dto.verify.PublisherKeyRequestDTO;
+import com.realshield.platform.service.verify.PublisherKeyStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/admin/publisher-keys")
+public class AdminPublisherKeyController {
+
+    private final PublisherKeyStore publisherKeyStore;
+
+    public AdminPublisherKeyController(PublisherKeyStore publisherKeyStore) {
+        this.publisherKeyStore = publisherKeyStore;
+    }
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<PublisherKeyDTO>> register(@Valid @RequestBody PublisherKeyRequestDTO body, HttpServletRequest request) {
+        /*
+         * TODO (JWT REQUIRED):
+         * - Allow only ADMIN / SUPER_ADMIN
+         */
+        return ResponseEntity.ok(ApiResponse.success("Publisher key registered successfully", publisherKeyStore.register(body), request.getRequestURI()));
+    }
+
+    //signatures made with a revoked key stop verifying right away
+    @DeleteMapping("/{keyId}")
+    public ResponseEntity<ApiResponse<PublisherKeyDTO>> revoke(@PathVariable String keyId, HttpServletRequest request) {
+        /*
+         * TODO (JWT REQUIRED):
+         * - Allow only ADMIN / SUPER_ADMIN
+         */
+        return ResponseEntity.ok(ApiResponse.success("Publisher key revoked successfully", publisherKeyStore.revoke(keyId), request.getRequestURI()));
+    }
+}
@@ -0,0 +1,65 @@
+package com.realshield.platform.controller.admin;
+
+import com.realshield.platform.dto.ApiResponse;
+import com.realshield.platform.dto.verify.TrustedHashImportDTO;
+import com.realshield.platform.dto.verify.TrustedMediaDTO;
+import com.realshield.platform.service.media.MediaContext;
+import com.realshield.platform.service.verify.TrustedHashImporter;
+import com.realshield.platform.service.verify.TrustedMediaService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/admin/trusted-hashes")
+public class AdminTrustedHashController {
+
+    private final TrustedHashImporter trustedHashImporter;
+    private final TrustedMediaService trustedMediaService;
+
+    public AdminTrustedHashController(TrustedHashImporter trustedHashImporter, TrustedMediaService trustedMediaService) {
+        this.trustedHashImporter = trustedHashImporter;
+        this.trustedMediaService = trustedMediaService;
+    }
+
+    //an original file we hold ourselves: trusted by hash, and clipped copies of it are matched through its chunk manifest
+    @PostMapping(value = "/media", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<TrustedMediaDTO>> registerMedia(@RequestPart("file") MultipartFile file,
+                                                                      @RequestParam(required = false) String source,
+                                                                      HttpServletRequest request) {
+        /*
+         * TODO (JWT REQUIRED):
+         * - Allow only ADMIN / SUPER_ADMIN
+         */
+        TrustedMediaDTO media = trustedMediaService.register(MediaContext.of(file), source);
+        return ResponseEntity.ok(ApiResponse.success("Trusted media registered successfully", media, request.getRequestURI()));
+    }
+
+    //bulk import of a partner's CSV / NDJSON digest list, format defaults to the file extension
+    //files above the multipart limit go through the command line import instead (see TrustedHashImportRunner)
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<TrustedHashImportDTO>> importHashes(@RequestPart("file") MultipartFile file,
+                                                                          @RequestParam(required = false) String format,
+                                                                          @RequestParam(required = false) String source,
+                                                                          HttpServletRequest request) throws IOException {
+        /*
+         * TODO (JWT REQUIRED):
+         * - Allow only ADMIN / SUPER_ADMIN
+         */
+        TrustedHashImporter.Format importFormat = TrustedHashImporter.Format.of(format, file.getOriginalFilename());
+        TrustedHashImportDTO report;
+        try (InputStream inputStream = file.getInputStream()) {
+            report = trustedHashImporter.importHashes(inputStream, importFormat, source != null ? source : file.getOriginalFilename());
+        }
+        return ResponseEntity.ok(ApiResponse.success("Trusted hashes imported successfully", report, request.getRequestURI()));
+    }
+}
@@ -3,87 +3,123 @@ package com.realshield.platform.controller.analyze;
 
 import com.realshield.platform.dto.ApiResponse;
 import com.realshield.platform.dto.analyze.AnalyzeResultDTO;
-import com.realshield.platform.dto.detect.DetectResultDTO;
-import com.realshield.platform.dto.verify.VerifyResultDTO;
-import com.realshield.platform.model.MediaAnalysis;
-import com.realshield.platform.repository.MediaAnalysisRepository;
-import com.realshield.platform.service.detect.DetectService;
-import com.realshield.platform.service.verify.VerifyService;
-import com.realshield.platform.utils.FileHashUtil;
+import com.realshield.platform.exception.InvalidFileTypeException;
+import com.realshield.platform.service.analyze.AnalyzeService;
+import com.realshield.platform.service.analyze.BatchAnalyzeService;
+import com.realshield.platform.service.media.MediaContext;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.time.LocalDateTime;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/analyze")
 public class AnalyzeController {
 
-    private final DetectService detectService;
-    private final VerifyService verifyService;
-    private final MediaAnalysisRepository mediaAnalysisRepository;
+    private final AnalyzeService analyzeService;
+    private final BatchAnalyzeService batchAnalyzeService;
 
-    public AnalyzeController(DetectService detectService, VerifyService verifyService, MediaAnalysisRepository mediaAnalysisRepository) {
-        this.detectService = detectService;
-        this.verifyService = verifyService;
-        this.mediaAnalysisRepository = mediaAnalysisRepository;
+    public AnalyzeController(AnalyzeService analyzeService, BatchAnalyzeService batchAnalyzeService) {
+        this.analyzeService = analyzeService;
+        this.batchAnalyzeService = batchAnalyzeService;
     }
 
     @PostMapping(value = "/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<ApiResponse<AnalyzeResultDTO>> analyzeImage(@RequestPart("file") MultipartFile file, HttpServletRequest request) {
-
-        //Detect
-        DetectResultDTO detectResult = detectService.detectImage(file);
-
-        //If FAKE → save & return
-        if ("FAKE".equalsIgnoreCase(detectResult.getResult())) {
-
-            MediaAnalysis analysis = MediaAnalysis.builder()
-                    .fileName(file.getOriginalFilename())
-                    .fileHash(FileHashUtil.generateSHA256(file))
-                    .detectResult(detectResult.getResult())
-                    .detectConfidence(detectResult.getConfidence())
-                    .createdAt(LocalDateTime.now())
-                    .build();
-
-            mediaAnalysisRepository.save(analysis);
-
+    public ResponseEntity<ApiResponse<AnalyzeResultDTO>> analyzeImage(
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(required = false) String keyId,
+            @RequestParam(required = false) String signature,
+            HttpServletRequest request
+    ) {
+
+        //one context per upload, detect / verify / save all reuse its hash
+        //source, metadata and (when keyId + signature are sent) signature checks run next to detection
+        AnalyzeResultDTO result = analyzeService.analyzeAndStore(MediaContext.of(file), "IMAGE", keyId, signature);
+
+        //If FAKE → verification was skipped
+        if (result.getVerifyResult() == null) {
             return ResponseEntity.ok(
                     ApiResponse.success(
                             "Image detected as FAKE. Verification skipped.",
-                            new AnalyzeResultDTO(detectResult, null),
+                            result,
                             request.getRequestURI()
                     )
             );
         }
 
-        //If REAL → verify
-        VerifyResultDTO verifyResult = verifyService.verifySource(file);
-
-        //Save REAL + VERIFIED result
-        MediaAnalysis analysis = MediaAnalysis.builder()
-                .fileName(file.getOriginalFilename())
-                .fileHash(FileHashUtil.generateSHA256(file))
-                .detectResult(detectResult.getResult())
-                .detectConfidence(detectResult.getConfidence())
-                .verifyType(verifyResult.getVerificationType())
-                .verifyStatus(verifyResult.getStatus())
-                .verifyDetails(verifyResult.getDetails())
-                .createdAt(LocalDateTime.now())
-                .build();
-
-        mediaAnalysisRepository.save(analysis);
-
         //Return response
         return ResponseEntity.ok(
                 ApiResponse.success(
                         "Image analyzed, verified, and stored successfully",
-                        new AnalyzeResultDTO(detectResult, verifyResult),
+                        result,
                         request.getRequestURI()
                 )
         );
     }
+
+    //video and audio go through the same stages as images, the upload is read from one spooled copy
+    @PostMapping(value = "/video", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<AnalyzeResultDTO>> analyzeVideo(
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(required = false) String keyId,
+            @RequestParam(required = false) String signature,
+            HttpServletRequest request
+    ) {
+        AnalyzeResultDTO result = analyzeService.analyzeUpload(file, "VIDEO", keyId, signature);
+        return ResponseEntity.ok(
+                ApiResponse.success(
+                        result.getVerifyResult() == null
+                                ? "Video detected as FAKE. Verification skipped."
+                                : "Video analyzed, verified, and stored successfully",
+                        result,
+                        request.getRequestURI()
+                )
+        );
+    }
+
+    @PostMapping(value = "/audio", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<AnalyzeResultDTO>> analyzeAudio(
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(required = false) String keyId,
+            @RequestParam(required = false) String signature,
+            HttpServletRequest request
+    ) {
+        AnalyzeResultDTO result = analyzeService.analyzeUpload(file, "AUDIO", keyId, signature);
+        return ResponseEntity.ok(
+                ApiResponse.success(
+                        result.getVerifyResult() == null
+                                ? "Audio detected as FAKE. Verification skipped."
+                                : "Audio analyzed, verified, and stored successfully",
+                        result,
+                        request.getRequestURI()
+                )
+        );
+    }
+
+    //many files in one call, as separate "files" parts and/or one ZIP "archive" part
+    //one NDJSON line is written per file as soon as it is analyzed
+    @PostMapping(value = "/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> analyzeBatch(
+            @RequestPart(value = "files", required = false) List<MultipartFile> files,
+            @RequestPart(value = "archive", required = false) MultipartFile archive
+    ) {
+        boolean noFiles = files == null || files.stream().allMatch(MultipartFile::isEmpty);
+        boolean noArchive = archive == null || archive.isEmpty();
+        if (noFiles && noArchive) {
+            throw new InvalidFileTypeException("No files or archive to analyze");
+        }
+
+        StreamingResponseBody body = outputStream -> batchAnalyzeService.analyzeBatch(
+                noFiles ? List.of() : files,
+                noArchive ? null : archive,
+                outputStream
+        );
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
 }
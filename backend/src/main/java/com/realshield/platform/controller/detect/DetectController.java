@@ -2,26 +2,40 @@ package com.realshield.platform.controller.detect;
 
 
 import com.realshield.platform.dto.ApiResponse;
+import com.realshield.platform.dto.detect.DetectCacheStatsDTO;
 import com.realshield.platform.dto.detect.DetectResultDTO;
+import com.realshield.platform.dto.detect.DetectorEngineDTO;
+import com.realshield.platform.dto.detect.SimilarMediaDTO;
+import com.realshield.platform.service.detect.DetectResultCache;
 import com.realshield.platform.service.detect.DetectService;
+import com.realshield.platform.service.detect.engine.DetectorEngineRegistry;
+import com.realshield.platform.service.media.MediaContext;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
+
 
 @RestController
 @RequestMapping("/api/v1/detect")
 public class DetectController {
 
     private final DetectService detectService;
+    private final DetectResultCache detectResultCache;
+    private final DetectorEngineRegistry detectorEngineRegistry;
 
-    public DetectController(DetectService detectService) {
+    public DetectController(DetectService detectService, DetectResultCache detectResultCache, DetectorEngineRegistry detectorEngineRegistry) {
         this.detectService = detectService;
+        this.detectResultCache = detectResultCache;
+        this.detectorEngineRegistry = detectorEngineRegistry;
     }
 
     @PostMapping(value = "/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -58,4 +72,26 @@ public class DetectController {
         return ResponseEntity.ok(ApiResponse.success("Audio deepfake detection completed", result, request.getRequestURI()));
     }
 
+    @PostMapping(value = "/image/similar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<List<SimilarMediaDTO>>> findSimilarImages(
+            @RequestPart("file") MultipartFile file,
+            @RequestParam(defaultValue = "10") int maxDistance,
+            @RequestParam(defaultValue = "10") int limit,
+            HttpServletRequest request
+    ) {
+        List<SimilarMediaDTO> result = detectService.findSimilarImages(MediaContext.of(file), maxDistance, limit);
+        return ResponseEntity.ok(ApiResponse.success("Similar images fetched successfully", result, request.getRequestURI()));
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ApiResponse<DetectCacheStatsDTO>> cacheStats(HttpServletRequest request) {
+        return ResponseEntity.ok(ApiResponse.success("Detection cache stats fetched successfully", detectResultCache.stats(), request.getRequestURI()));
+    }
+
+    //loaded engine per media type with its pool size and executor load
+    @GetMapping("/engines")
+    public ResponseEntity<ApiResponse<List<DetectorEngineDTO>>> engines(HttpServletRequest request) {
+        return ResponseEntity.ok(ApiResponse.success("Detector engines fetched successfully", detectorEngineRegistry.describe(), request.getRequestURI()));
+    }
+
 }
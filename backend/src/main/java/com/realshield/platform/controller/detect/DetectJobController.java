@@ -0,0 +1,47 @@
+package com.realshield.platform.controller.detect;
+
+
+import com.realshield.platform.dto.ApiResponse;
+import com.realshield.platform.dto.detect.DetectJobDTO;
+import com.realshield.platform.service.detect.DetectJobService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+//asynchronous detection: submit returns 202 with a job id, the client polls GET /jobs/{jobId} for the result
+
+@RestController
+@RequestMapping("/api/v1/detect")
+public class DetectJobController {
+
+    private final DetectJobService detectJobService;
+
+    public DetectJobController(DetectJobService detectJobService) {
+        this.detectJobService = detectJobService;
+    }
+
+    @PostMapping(value = "/video/jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<DetectJobDTO>> submitVideo(@RequestPart("file") MultipartFile file, HttpServletRequest request) {
+        DetectJobDTO job = detectJobService.submitVideo(file);
+        return ResponseEntity.accepted().body(ApiResponse.success("Video detection job queued", job, request.getRequestURI()));
+    }
+
+    @PostMapping(value = "/audio/jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<DetectJobDTO>> submitAudio(@RequestPart("file") MultipartFile file, HttpServletRequest request) {
+        DetectJobDTO job = detectJobService.submitAudio(file);
+        return ResponseEntity.accepted().body(ApiResponse.success("Audio detection job queued", job, request.getRequestURI()));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ApiResponse<DetectJobDTO>> getJob(@PathVariable String jobId, HttpServletRequest request) {
+        DetectJobDTO job = detectJobService.getJob(jobId);
+        return ResponseEntity.ok(ApiResponse.success("Detect job fetched successfully", job, request.getRequestURI()));
+    }
+}
@@ -0,0 +1,60 @@
+package com.realshield.platform.controller.receipt;
+
+import com.realshield.platform.dto.ApiResponse;
+import com.realshield.platform.dto.receipt.ReceiptDTO;
+import com.realshield.platform.dto.receipt.ReceiptKeyDTO;
+import com.realshield.platform.dto.receipt.ReceiptVerificationDTO;
+import com.realshield.platform.service.receipt.ReceiptSigner;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+//public: anyone holding a receipt can check it here, or fetch the keys once and check receipts offline
+@RestController
+@RequestMapping("/api/v1/receipts")
+public class ReceiptController {
+
+    private final ReceiptSigner receiptSigner;
+
+    public ReceiptController(ReceiptSigner receiptSigner) {
+        this.receiptSigner = receiptSigner;
+    }
+
+    // 🔑 PUBLIC KEYS (current signing key and retired ones)
+    @GetMapping("/keys")
+    public ResponseEntity<ApiResponse<List<ReceiptKeyDTO>>> keys(HttpServletRequest request) {
+        return ResponseEntity.ok(
+                ApiResponse.success(
+                        "Receipt signing keys fetched successfully",
+                        receiptSigner.publicKeys(),
+                        request.getRequestURI()
+                )
+        );
+    }
+
+    // 🧾 RECEIPT VERIFICATION
+    @PostMapping(
+            value = "/verify",
+            consumes = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<ApiResponse<ReceiptVerificationDTO>> verify(
+            @Valid @RequestBody ReceiptDTO receipt,
+            HttpServletRequest request
+    ) {
+        return ResponseEntity.ok(
+                ApiResponse.success(
+                        "Receipt verification completed",
+                        receiptSigner.verify(receipt),
+                        request.getRequestURI()
+                )
+        );
+    }
+}
@@ -0,0 +1,77 @@
+package com.realshield.platform.controller.upload;
+
+import com.realshield.platform.dto.ApiResponse;
+import com.realshield.platform.dto.analyze.AnalyzeResultDTO;
+import com.realshield.platform.dto.upload.CreateUploadRequestDTO;
+import com.realshield.platform.dto.upload.UploadSessionDTO;
+import com.realshield.platform.service.upload.ChunkedUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+//resumable chunked upload:
+//  POST   /api/v1/uploads                         create a session (fileName, contentType, totalSize)
+//  PUT    /api/v1/uploads/{uploadId}?offset=N     raw bytes of the next chunk (application/octet-stream)
+//  GET    /api/v1/uploads/{uploadId}              offset to resume from after a dropped connection
+//  POST   /api/v1/uploads/{uploadId}/complete     detect + verify the assembled file and store the analysis
+//  DELETE /api/v1/uploads/{uploadId}              abandon the upload
+
+@RestController
+@RequestMapping("/api/v1/uploads")
+public class UploadController {
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    public UploadController(ChunkedUploadService chunkedUploadService) {
+        this.chunkedUploadService = chunkedUploadService;
+    }
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<UploadSessionDTO>> create(@Valid @RequestBody CreateUploadRequestDTO body, HttpServletRequest request) {
+        UploadSessionDTO session = chunkedUploadService.create(body);
+        return ResponseEntity.status(HttpStatus.CREATED).body(ApiResponse.success("Upload session created", session, request.getRequestURI()));
+    }
+
+    //the body is read straight from the request stream, it is never buffered as a whole
+    @PutMapping(value = "/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<ApiResponse<UploadSessionDTO>> writeChunk(@PathVariable String uploadId,
+                                                                    @RequestParam long offset,
+                                                                    HttpServletRequest request) throws IOException {
+        UploadSessionDTO session = chunkedUploadService.writeChunk(uploadId, offset, request.getInputStream());
+        return ResponseEntity.ok(ApiResponse.success("Chunk stored", session, request.getRequestURI()));
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<ApiResponse<UploadSessionDTO>> getSession(@PathVariable String uploadId, HttpServletRequest request) {
+        UploadSessionDTO session = chunkedUploadService.getSession(uploadId);
+        return ResponseEntity.ok(ApiResponse.success("Upload session fetched successfully", session, request.getRequestURI()));
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<ApiResponse<AnalyzeResultDTO>> complete(@PathVariable String uploadId, HttpServletRequest request) {
+        AnalyzeResultDTO result = chunkedUploadService.complete(uploadId);
+        String message = result.getVerifyResult() == null
+                ? "Upload detected as FAKE. Verification skipped."
+                : "Upload analyzed, verified, and stored successfully";
+        return ResponseEntity.ok(ApiResponse.success(message, result, request.getRequestURI()));
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<ApiResponse<Void>> cancel(@PathVariable String uploadId, HttpServletRequest request) {
+        chunkedUploadService.cancel(uploadId);
+        return ResponseEntity.ok(ApiResponse.success("Upload session deleted", null, request.getRequestURI()));
+    }
+}
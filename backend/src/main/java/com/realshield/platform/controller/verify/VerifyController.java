@@ -2,18 +2,22 @@ package com.realshield.platform.controller.verify;
 
 
 import com.realshield.platform.dto.ApiResponse;
+import com.realshield.platform.dto.verify.SignatureCheckRequestDTO;
 import com.realshield.platform.dto.verify.VerifyResultDTO;
 import com.realshield.platform.service.verify.VerifyService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/verify")
@@ -72,9 +76,11 @@ public class VerifyController {
     )
     public ResponseEntity<ApiResponse<VerifyResultDTO>> verifySignature(
             @RequestPart("file") MultipartFile file,
+            @RequestParam(required = false) String keyId,
+            @RequestParam(required = false) String signature,
             HttpServletRequest request
     ) {
-        VerifyResultDTO result = verifyService.verifySignature(file);
+        VerifyResultDTO result = verifyService.verifySignature(file, keyId, signature);
 
         return ResponseEntity.ok(
                 ApiResponse.success(
@@ -84,4 +90,24 @@ public class VerifyController {
                 )
         );
     }
+
+    // 🔐 BATCH SIGNATURE VERIFICATION (SHA-256 + keyId + signature per file, no file upload)
+    @PostMapping(
+            value = "/signature/batch",
+            consumes = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<ApiResponse<List<VerifyResultDTO>>> verifySignatures(
+            @RequestBody List<SignatureCheckRequestDTO> checks,
+            HttpServletRequest request
+    ) {
+        List<VerifyResultDTO> results = verifyService.verifySignatures(checks);
+
+        return ResponseEntity.ok(
+                ApiResponse.success(
+                        "Batch signature verification completed",
+                        results,
+                        request.getRequestURI()
+                )
+        );
+    }
 }
@@ -0,0 +1,19 @@
+package com.realshield.platform.dto.admin;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class ThreadDiagnosticsDTO {
+
+    private boolean virtualThreadsSupported;   // runtime is Java 21+
+    private boolean virtualThreadsEnabled;     // spring.threads.virtual.enabled is on and supported
+    private boolean pinningDiagnosticsRunning;
+    private long pinningThresholdMs;
+    private long pinnedEvents;
+    private long pinnedMillis;
+    private Map<String, Long> pinnedHotspots;  // first application frame -> events, most frequent first
+}
@@ -1,6 +1,7 @@
 package com.realshield.platform.dto.analyze;
 
 import com.realshield.platform.dto.detect.DetectResultDTO;
+import com.realshield.platform.dto.receipt.ReceiptDTO;
 import com.realshield.platform.dto.verify.VerifyResultDTO;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,5 +11,8 @@ import lombok.Data;
 public class AnalyzeResultDTO {
 
     private DetectResultDTO detectResult;
-    private VerifyResultDTO verifyResult;
+    private VerifyResultDTO verifyResult;       // source check, stored with the verdict
+    private VerifyResultDTO metadataResult;
+    private VerifyResultDTO signatureResult;    // only when a key id and signature were sent
+    private ReceiptDTO receipt;                 // signed hash / verdict / confidence / time, check with /api/v1/receipts/verify
 }
@@ -0,0 +1,20 @@
+package com.realshield.platform.dto.analyze;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//one NDJSON line of a batch analyze response
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchAnalyzeItemDTO {
+
+    private int index;                  // position of the file in the request / archive
+    private String fileName;
+    private String mediaType;           // IMAGE / VIDEO / AUDIO
+    private boolean success;
+    private AnalyzeResultDTO result;    // null when success is false
+    private String error;               // null when success is true
+}
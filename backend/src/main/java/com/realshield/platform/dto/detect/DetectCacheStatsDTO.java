@@ -0,0 +1,20 @@
+package com.realshield.platform.dto.detect;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class DetectCacheStatsDTO {
+
+    private Map<String, String> detectorVersions;   // media type -> engine version in the cache key
+    private long size;
+    private long maxSize;
+    private long hits;          // answered from memory
+    private long storedHits;    // answered from media_analysis
+    private long misses;        // detector had to run
+    private long evictions;
+    private double hitRate;     // (hits + storedHits) / lookups
+}
@@ -0,0 +1,23 @@
+package com.realshield.platform.dto.detect;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DetectJobDTO {
+
+    private String jobId;
+    private String mediaType;           // VIDEO / AUDIO
+    private String fileName;
+    private String status;              // QUEUED / RUNNING / COMPLETED / FAILED
+    private DetectResultDTO result;     // null until COMPLETED
+    private String error;               // null unless FAILED
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+}
@@ -13,8 +13,23 @@ public class DetectResultDTO {
 
     private String fileName;
     private String mediaType; // IMAGE / VIDEO / AUDIO
-    private String result;    // FAKE / REAL
+    private String result;    // FAKE / REAL / INCONCLUSIVE
     private double confidence;
+    private boolean cached;   // true when the verdict came from the result cache
+    private Long nearDuplicateOf; // id of the analysis this image is a near duplicate of
+    private ScoreMapDTO scoreMap; // per tile scores of a localizing detector (ELA), null when cached or not available
+    private String scoreMapStatus; // INCLUDED / NOT_STORED (verdict was reused or read back, maps are not kept with it) / NONE
 
+    public DetectResultDTO(String fileName, String mediaType, String result, double confidence) {
+        this(fileName, mediaType, result, confidence, false, null, null);
+    }
 
+    public DetectResultDTO(String fileName, String mediaType, String result, double confidence, boolean cached, Long nearDuplicateOf) {
+        this(fileName, mediaType, result, confidence, cached, nearDuplicateOf, null);
+    }
+
+    public DetectResultDTO(String fileName, String mediaType, String result, double confidence, boolean cached, Long nearDuplicateOf, ScoreMapDTO scoreMap) {
+        this(fileName, mediaType, result, confidence, cached, nearDuplicateOf, scoreMap,
+                scoreMap != null ? "INCLUDED" : cached ? "NOT_STORED" : "NONE");
+    }
 }
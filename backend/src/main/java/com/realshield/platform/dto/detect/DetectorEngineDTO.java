@@ -0,0 +1,21 @@
+package com.realshield.platform.dto.detect;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class DetectorEngineDTO {
+
+    private String mediaType;       // IMAGE / VIDEO / AUDIO
+    private String name;
+    private String version;
+    private boolean threadSafe;
+    private int instances;          // pooled engine instances
+    private int workers;            // threads of the engine executor
+    private int active;             // detections running right now
+    private int queued;             // detections waiting for a worker
+    private long detections;
+    private long failures;
+    private long warmupMillis;
+}
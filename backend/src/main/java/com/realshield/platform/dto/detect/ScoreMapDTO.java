@@ -0,0 +1,20 @@
+package com.realshield.platform.dto.detect;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScoreMapDTO {
+
+    private String method;      // ELA
+    private int tileSize;       // pixels per tile side in the analysed image
+    private int subsampling;    // 1 = analysed at full resolution
+    private int rows;
+    private int cols;
+    private float[][] scores;   // scores[row][col], for ELA the mean absolute error of the tile (0 - 255)
+    private float median;
+    private float max;
+}
@@ -0,0 +1,22 @@
+package com.realshield.platform.dto.detect;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SimilarMediaDTO {
+
+    private Long analysisId;
+    private String fileName;
+    private String fileHash;
+    private String perceptualHash;  // hex
+    private int distance;           // differing bits out of 64
+    private String detectResult;
+    private Double detectConfidence;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,19 @@
+package com.realshield.platform.dto.receipt;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//signed analysis receipt, see ReceiptSigner for the payload format
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReceiptDTO {
+
+    @NotBlank(message = "Receipt payload is required")
+    private String payload;     // realshield-receipt/1|keyId|sha256|verdict|confidence|issuedAt
+
+    @NotBlank(message = "Receipt signature is required")
+    private String signature;   // base64url Ed25519 signature over the UTF-8 payload
+}
@@ -0,0 +1,18 @@
+package com.realshield.platform.dto.receipt;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReceiptKeyDTO {
+
+    private String keyId;
+    private String algorithm;   // ED25519
+    private String publicKey;   // PEM, X.509 SubjectPublicKeyInfo
+    private boolean current;    // false for a retired key that only verifies older receipts
+}
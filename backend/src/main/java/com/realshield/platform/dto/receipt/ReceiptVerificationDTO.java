@@ -0,0 +1,24 @@
+package com.realshield.platform.dto.receipt;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReceiptVerificationDTO {
+
+    private boolean valid;
+
+    // what the receipt attests to, only filled in for a valid receipt
+    private String keyId;
+    private String sha256;
+    private String verdict;         // REAL / FAKE / INCONCLUSIVE
+    private Double confidence;      // %
+    private String issuedAt;        // ISO-8601 UTC
+
+    private String details;
+}
@@ -0,0 +1,22 @@
+package com.realshield.platform.dto.upload;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateUploadRequestDTO {
+
+    @NotBlank(message = "fileName is required")
+    private String fileName;
+
+    @NotBlank(message = "contentType is required")
+    private String contentType;
+
+    @Positive(message = "totalSize must be greater than 0")
+    private long totalSize;
+}
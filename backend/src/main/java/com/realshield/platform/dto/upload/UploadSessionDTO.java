@@ -0,0 +1,25 @@
+package com.realshield.platform.dto.upload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UploadSessionDTO {
+
+    private String uploadId;
+    private String fileName;
+    private String contentType;
+    private String mediaType;           // IMAGE / VIDEO / AUDIO
+    private String status;              // ACTIVE / COMPLETED
+    private long totalSize;
+    private long receivedBytes;         // offset of the next chunk
+    private long maxChunkSize;
+    private String fileHash;            // null until COMPLETED
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,22 @@
+package com.realshield.platform.dto.verify;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PublisherKeyDTO {
+
+    private String keyId;
+    private String publisher;
+    private String algorithm;
+    private boolean active;
+    private LocalDateTime createdAt;
+    private LocalDateTime revokedAt;
+}
@@ -0,0 +1,24 @@
+package com.realshield.platform.dto.verify;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PublisherKeyRequestDTO {
+
+    @NotBlank(message = "keyId is required")
+    private String keyId;
+
+    @NotBlank(message = "publisher is required")
+    private String publisher;
+
+    @NotBlank(message = "algorithm is required")
+    private String algorithm;   // ED25519 / ECDSA
+
+    @NotBlank(message = "publicKey is required")
+    private String publicKey;   // PEM, base64 X.509 SubjectPublicKeyInfo, or base64 of a raw 32 byte Ed25519 key
+}
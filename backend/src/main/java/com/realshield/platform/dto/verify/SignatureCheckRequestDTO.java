@@ -0,0 +1,17 @@
+package com.realshield.platform.dto.verify;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+//one entry of a batch signature check: the file is not sent, only its SHA-256
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SignatureCheckRequestDTO {
+
+    private String fileName;    // echoed back, optional
+    private String sha256;      // hex SHA-256 of the signed file
+    private String keyId;
+    private String signature;   // base64 detached signature
+}
@@ -0,0 +1,25 @@
+package com.realshield.platform.dto.verify;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TrustedHashImportDTO {
+
+    private String source;
+    private String format;             // CSV / NDJSON
+    private long lines;                // data lines read, header and blank lines not counted
+    private long imported;             // rows inserted into verified_media
+    private long duplicates;           // already trusted, or repeated within the same chunk
+    private long invalid;              // no valid SHA-256 on the line
+    private List<Long> invalidLines;   // line numbers of the first invalid lines
+    private int registrySize;          // trusted hashes after the registry was rebuilt
+    private long elapsedMs;
+}
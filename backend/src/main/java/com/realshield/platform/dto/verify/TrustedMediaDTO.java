@@ -0,0 +1,21 @@
+package com.realshield.platform.dto.verify;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TrustedMediaDTO {
+
+    private Long id;
+    private String fileName;
+    private String hash;          // SHA-256 of the whole file
+    private String merkleRoot;    // root over the chunk hashes of the manifest
+    private int chunkCount;
+    private long sizeBytes;
+    private String source;
+}
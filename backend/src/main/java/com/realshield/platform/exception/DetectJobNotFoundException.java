@@ -0,0 +1,7 @@
+package com.realshield.platform.exception;
+
+public class DetectJobNotFoundException extends RuntimeException {
+    public DetectJobNotFoundException(String message) {
+        super(message);
+    }
+}
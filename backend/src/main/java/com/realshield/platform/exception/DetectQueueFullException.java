@@ -0,0 +1,7 @@
+package com.realshield.platform.exception;
+
+public class DetectQueueFullException extends RuntimeException {
+    public DetectQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -50,6 +50,67 @@ public class GlobalExceptionHandler {
         );
     }
 
+    // 404 - Detect job not found
+    @ExceptionHandler(DetectJobNotFoundException.class)
+    public ResponseEntity<ApiResponse<Void>> handleDetectJobNotFound(DetectJobNotFoundException ex, HttpServletRequest request) {
+        return ResponseEntity
+                .status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.failure("Detect job not found", ex.getMessage(), request.getRequestURI()));
+    }
+
+    // 503 - Detection workers are saturated, the client should retry later
+    @ExceptionHandler(DetectQueueFullException.class)
+    public ResponseEntity<ApiResponse<Void>> handleDetectQueueFull(DetectQueueFullException ex, HttpServletRequest request) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiResponse.failure("Detection queue is full", ex.getMessage(), request.getRequestURI()));
+    }
+
+    // 404 - Chunked upload session does not exist (or expired)
+    @ExceptionHandler(UploadSessionNotFoundException.class)
+    public ResponseEntity<ApiResponse<Void>> handleUploadSessionNotFound(UploadSessionNotFoundException ex, HttpServletRequest request) {
+        return ResponseEntity
+                .status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.failure("Upload session not found", ex.getMessage(), request.getRequestURI()));
+    }
+
+    // 409 - Chunk does not start at the offset the server has, the client should GET the session and resume from there
+    @ExceptionHandler(UploadOffsetMismatchException.class)
+    public ResponseEntity<ApiResponse<Void>> handleUploadOffsetMismatch(UploadOffsetMismatchException ex, HttpServletRequest request) {
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(ApiResponse.failure("Upload offset mismatch", ex.getMessage(), request.getRequestURI()));
+    }
+
+    // 400 - Chunked upload cannot be created, written or finalized as asked
+    @ExceptionHandler(InvalidUploadException.class)
+    public ResponseEntity<ApiResponse<Void>> handleInvalidUpload(InvalidUploadException ex, HttpServletRequest request) {
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.failure("Invalid upload", ex.getMessage(), request.getRequestURI()));
+    }
+
+    @ExceptionHandler(InvalidPublicKeyException.class)
+    public ResponseEntity<ApiResponse<Void>> handleInvalidPublicKey(InvalidPublicKeyException ex, HttpServletRequest request) {
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.failure("Invalid public key", ex.getMessage(), request.getRequestURI()));
+    }
+
+    @ExceptionHandler(InvalidSignatureRequestException.class)
+    public ResponseEntity<ApiResponse<Void>> handleInvalidSignatureRequest(InvalidSignatureRequestException ex, HttpServletRequest request) {
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.failure("Invalid signature request", ex.getMessage(), request.getRequestURI()));
+    }
+
+    @ExceptionHandler(PublisherKeyNotFoundException.class)
+    public ResponseEntity<ApiResponse<Void>> handlePublisherKeyNotFound(PublisherKeyNotFoundException ex, HttpServletRequest request) {
+        return ResponseEntity
+                .status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.failure("Publisher key not found", ex.getMessage(), request.getRequestURI()));
+    }
+
     // 409 - Email already exists
     @ExceptionHandler(EmailAlreadyExistsException.class)
     public ResponseEntity<ApiResponse<Void>> handleEmailExists(EmailAlreadyExistsException ex) {
@@ -0,0 +1,7 @@
+package com.realshield.platform.exception;
+
+public class InvalidPublicKeyException extends RuntimeException {
+    public InvalidPublicKeyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.realshield.platform.exception;
+
+public class InvalidSignatureRequestException extends RuntimeException {
+    public InvalidSignatureRequestException(String message) {
+        super(message);
+    }
+}
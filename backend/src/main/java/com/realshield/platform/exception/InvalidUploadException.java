@@ -0,0 +1,7 @@
+package com.realshield.platform.exception;
+
+public class InvalidUploadException extends RuntimeException {
+    public InvalidUploadException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.realshield.platform.exception;
+
+public class PublisherKeyNotFoundException extends RuntimeException {
+    public PublisherKeyNotFoundException(String message) {
+        super(message);
+    }
+}
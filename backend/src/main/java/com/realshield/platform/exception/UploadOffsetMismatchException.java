@@ -0,0 +1,7 @@
+package com.realshield.platform.exception;
+
+public class UploadOffsetMismatchException extends RuntimeException {
+    public UploadOffsetMismatchException(String message) {
+        super(message);
+    }
+}
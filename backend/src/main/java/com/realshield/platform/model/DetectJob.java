@@ -0,0 +1,48 @@
+package com.realshield.platform.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+//one asynchronous detection request, the client polls it by id until it is COMPLETED or FAILED
+
+@Entity
+@Table(name = "detect_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DetectJob {
+
+    @Id
+    @Column(length = 36)
+    private String id;                  // UUID handed to the client
+
+    @Column(nullable = false)
+    private String mediaType;           // VIDEO / AUDIO
+
+    private String fileName;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private DetectJobStatus status;
+
+    @Column(length = 100)
+    private String ownerInstance;       // instance that spooled the file and runs the job
+
+    // Detect results, set once COMPLETED
+    @Column(length = 64)
+    private String fileHash;
+    private String detectResult;        // REAL / FAKE / INCONCLUSIVE
+    private Double detectConfidence;    // %
+    private boolean cached;
+
+    @Column(length = 1000)
+    private String error;               // set once FAILED
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+}
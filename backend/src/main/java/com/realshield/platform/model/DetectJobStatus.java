@@ -0,0 +1,10 @@
+package com.realshield.platform.model;
+
+
+public enum DetectJobStatus {
+
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
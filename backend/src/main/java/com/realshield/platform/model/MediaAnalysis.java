@@ -6,7 +6,9 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "media_analysis")
+@Table(name = "media_analysis", indexes = {
+        @Index(name = "idx_media_analysis_file_hash", columnList = "file_hash")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -22,14 +24,29 @@ public class MediaAnalysis {
     @Column(length = 64)
     private String fileHash;
 
+    @Column(length = 64)
+    private String treeHash;            // parallel tree hash of large spooled files (FileHashUtil.treeHash), null otherwise
+
+    private String mediaType;           // IMAGE / VIDEO / AUDIO
+
+    private Long perceptualHash;        // 64 bit dHash, images only
+
     // Detect results
-    private String detectResult;        // REAL / FAKE
+    private String detectResult;        // REAL / FAKE / INCONCLUSIVE
     private Double detectConfidence;    // %
+    private String detectorVersion;     // detector that produced the verdict
 
     // Verify results
     private String verifyType;          // SOURCE / METADATA / SIGNATURE
     private String verifyStatus;        // VERIFIED / WARNING / NOT VERIFIED
     private String verifyDetails;
 
+    // Signed receipt handed out with the verdict (ReceiptSigner)
+    @Column(length = 255)
+    private String receiptPayload;
+
+    @Column(length = 100)
+    private String receiptSignature;
+
     private LocalDateTime createdAt;
 }
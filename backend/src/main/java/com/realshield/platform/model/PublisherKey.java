@@ -0,0 +1,41 @@
+package com.realshield.platform.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+//a publisher's public key, detached signatures sent with an upload name the key they were made with by keyId
+
+@Entity
+@Table(name = "publisher_keys", indexes = {
+        @Index(name = "idx_publisher_keys_key_id", columnList = "keyId", unique = true)
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PublisherKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String keyId;
+
+    @Column(nullable = false, length = 100)
+    private String publisher;
+
+    @Column(nullable = false, length = 20)
+    private String algorithm;           // ED25519 / ECDSA
+
+    @Column(nullable = false, length = 1024)
+    private String publicKey;           // base64 X.509 SubjectPublicKeyInfo
+
+    private boolean active;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime revokedAt;
+}
@@ -0,0 +1,48 @@
+package com.realshield.platform.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+//one resumable chunked upload, the bytes themselves live in the upload spool directory under the session id
+
+@Entity
+@Table(name = "upload_sessions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadSession {
+
+    @Id
+    @Column(length = 36)
+    private String id;                  // UUID handed to the client
+
+    private String fileName;
+
+    @Column(nullable = false)
+    private String contentType;
+
+    @Column(nullable = false)
+    private String mediaType;           // IMAGE / VIDEO / AUDIO
+
+    @Column(nullable = false)
+    private long totalSize;             // bytes announced when the session was created
+
+    @Column(nullable = false)
+    private long receivedBytes;         // next offset the client has to send
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private UploadSessionStatus status;
+
+    @Column(length = 64)
+    private String fileHash;            // set once COMPLETED
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
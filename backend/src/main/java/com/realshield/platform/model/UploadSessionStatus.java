@@ -0,0 +1,8 @@
+package com.realshield.platform.model;
+
+
+public enum UploadSessionStatus {
+
+    ACTIVE,
+    COMPLETED
+}
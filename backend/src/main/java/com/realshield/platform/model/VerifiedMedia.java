@@ -1,19 +1,45 @@
 package com.realshield.platform.model;
 
-import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.Id;
+import jakarta.persistence.*;
+import lombok.*;
 
 import java.time.LocalDateTime;
 
+//a SHA-256 we know to be authentic media, verifySource checks uploads against these through TrustedHashRegistry
+//one row per hash, bulk imports rely on the unique index to skip digests that are already stored
+
 @Entity
+@Table(name = "verified_media", indexes = {
+        @Index(name = "uk_verified_media_hash", columnList = "hash", unique = true)
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
 public class VerifiedMedia {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private String fileName;
-    private String hash;
+
+    @Column(nullable = false, length = 64)
+    private String hash;                // lower case hex SHA-256
+
+    @Column(length = 100)
+    private String source;              // who vouched for it, the partner name of a bulk import
+
     private LocalDateTime verifiedAt;
+
+    //Merkle manifest of the original (see ChunkManifest), lets a clipped copy be matched chunk by chunk
+    //null for hash only rows such as bulk imports
+    @Lob
+    @Column(length = 16 * 1024 * 1024)
+    private byte[] manifest;
+
+    @Column(length = 64)
+    private String merkleRoot;
+
+    private Long sizeBytes;
 }
@@ -0,0 +1,17 @@
+package com.realshield.platform.repository;
+
+import com.realshield.platform.model.DetectJob;
+import com.realshield.platform.model.DetectJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface DetectJobRepository extends JpaRepository<DetectJob, String> {
+
+    //jobs of one instance that were still waiting or running when it stopped
+    List<DetectJob> findByOwnerInstanceAndStatusIn(String ownerInstance, Collection<DetectJobStatus> statuses);
+
+    //jobs stored before jobs had an owner
+    List<DetectJob> findByOwnerInstanceIsNullAndStatusIn(Collection<DetectJobStatus> statuses);
+}
@@ -3,6 +3,23 @@ package com.realshield.platform.repository;
 
 import com.realshield.platform.model.MediaAnalysis;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface MediaAnalysisRepository extends JpaRepository<MediaAnalysis, Long> {
+
+    //latest verdict for the same file from the same detector, backed by idx_media_analysis_file_hash
+    Optional<MediaAnalysis> findFirstByFileHashAndDetectorVersionOrderByIdDesc(String fileHash, String detectorVersion);
+
+    //only the two columns the near duplicate index needs, loaded once at startup
+    @Query("select m.id as id, m.perceptualHash as perceptualHash from MediaAnalysis m where m.perceptualHash is not null")
+    List<PerceptualHashView> findAllPerceptualHashes();
+
+    interface PerceptualHashView {
+        Long getId();
+
+        Long getPerceptualHash();
+    }
 }
@@ -0,0 +1,13 @@
+package com.realshield.platform.repository;
+
+import com.realshield.platform.model.PublisherKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface PublisherKeyRepository extends JpaRepository<PublisherKey, Long> {
+
+    Optional<PublisherKey> findByKeyId(String keyId);
+
+    boolean existsByKeyId(String keyId);
+}
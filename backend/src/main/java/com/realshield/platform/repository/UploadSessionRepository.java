@@ -0,0 +1,14 @@
+package com.realshield.platform.repository;
+
+import com.realshield.platform.model.UploadSession;
+import com.realshield.platform.model.UploadSessionStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    //sessions nobody has written to for a while
+    List<UploadSession> findByStatusAndUpdatedAtBefore(UploadSessionStatus status, LocalDateTime updatedAt);
+}
@@ -0,0 +1,39 @@
+package com.realshield.platform.repository;
+
+import com.realshield.platform.model.VerifiedMedia;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface VerifiedMediaRepository extends JpaRepository<VerifiedMedia, Long> {
+
+    //id and hash only, in id order after the last row already loaded, so the trusted hash registry
+    //can page through millions of rows and later pick up just the new ones
+    @Query("select v.id as id, v.hash as hash from VerifiedMedia v where v.id > :afterId order by v.id")
+    List<HashView> findHashesAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    //chunk manifests in id order, for the manifest index; hash only rows have none
+    @Query("select v.id as id, v.manifest as manifest from VerifiedMedia v where v.id > :afterId and v.manifest is not null order by v.id")
+    List<ManifestView> findManifestsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    Optional<VerifiedMedia> findByHash(String hash);
+
+    @Query("select v.fileName from VerifiedMedia v where v.id = :id")
+    Optional<String> findFileNameById(@Param("id") long id);
+
+    interface HashView {
+        Long getId();
+
+        String getHash();
+    }
+
+    interface ManifestView {
+        Long getId();
+
+        byte[] getManifest();
+    }
+}
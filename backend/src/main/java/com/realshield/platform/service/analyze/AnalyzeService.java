@@ -0,0 +1,31 @@
+package com.realshield.platform.service.analyze;
+
+import com.realshield.platform.dto.analyze.AnalyzeResultDTO;
+import com.realshield.platform.model.MediaAnalysis;
+import com.realshield.platform.service.media.MediaContext;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface AnalyzeService {
+
+    //detect, verify when not FAKE, and store the MediaAnalysis row
+    AnalyzeResultDTO analyzeImage(MediaContext media);
+
+    //same as analyzeImage for any media type (IMAGE / VIDEO / AUDIO)
+    AnalyzeResultDTO analyzeAndStore(MediaContext media, String mediaType);
+
+    //same, with a detached signature (publisher key id + base64 signature) checked alongside, both may be null
+    AnalyzeResultDTO analyzeAndStore(MediaContext media, String mediaType, String keyId, String signature);
+
+    //video / audio straight from a multipart upload: the upload is moved to a file of ours once and every stage
+    //reads it in place, then it is deleted
+    AnalyzeResultDTO analyzeUpload(MultipartFile file, String mediaType, String keyId, String signature);
+
+    //same pipeline for any media type, the row is returned unsaved so callers can store many at once
+    AnalyzedMedia analyze(MediaContext media, String mediaType);
+
+    AnalyzedMedia analyze(MediaContext media, String mediaType, String keyId, String signature);
+
+    //analysis is null when the verdict was already stored for this file
+    record AnalyzedMedia(AnalyzeResultDTO result, MediaAnalysis analysis) {
+    }
+}
@@ -0,0 +1,257 @@
+package com.realshield.platform.service.analyze;
+
+import com.realshield.platform.dto.analyze.AnalyzeResultDTO;
+import com.realshield.platform.dto.detect.DetectResultDTO;
+import com.realshield.platform.dto.receipt.ReceiptDTO;
+import com.realshield.platform.dto.verify.VerifyResultDTO;
+import com.realshield.platform.exception.InvalidFileTypeException;
+import com.realshield.platform.model.MediaAnalysis;
+import com.realshield.platform.service.detect.DetectResultCache;
+import com.realshield.platform.service.detect.DetectService;
+import com.realshield.platform.service.media.MediaContext;
+import com.realshield.platform.service.media.TreeHasher;
+import com.realshield.platform.service.receipt.ReceiptSigner;
+import com.realshield.platform.service.verify.VerifyService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static com.realshield.platform.utils.FileValidationUtil.*;
+
+//detection runs on the calling thread while the verify stages (source, metadata, signature) and the tree hash run
+//on analyzeStageExecutor, so a request takes about as long as its slowest stage instead of the sum of all of them;
+//the stages share the MediaContext, the upload is still hashed once whichever stage asks first
+//a FAKE verdict cancels the verify stages, their results would be thrown away
+//a stage that fails is reported (NOT VERIFIED, or no tree hash), the verdict is never lost to a side check
+
+@Service
+public class AnalyzeServiceImpl implements AnalyzeService {
+
+    private final DetectService detectService;
+    private final VerifyService verifyService;
+    private final DetectResultCache detectResultCache;
+    private final MediaAnalysisWriter mediaAnalysisWriter;
+    private final TreeHasher treeHasher;
+    private final ReceiptSigner receiptSigner;
+    private final AsyncTaskExecutor analyzeStageExecutor;
+    private final Path spoolDirectory;
+
+    public AnalyzeServiceImpl(DetectService detectService, VerifyService verifyService, DetectResultCache detectResultCache, MediaAnalysisWriter mediaAnalysisWriter, TreeHasher treeHasher, ReceiptSigner receiptSigner,
+                              @Qualifier("analyzeStageExecutor") AsyncTaskExecutor analyzeStageExecutor,
+                              @Value("${realshield.analyze.spool-dir:${java.io.tmpdir}/realshield-analyze}") String spoolDirectory) {
+        this.detectService = detectService;
+        this.verifyService = verifyService;
+        this.detectResultCache = detectResultCache;
+        this.mediaAnalysisWriter = mediaAnalysisWriter;
+        this.treeHasher = treeHasher;
+        this.receiptSigner = receiptSigner;
+        this.analyzeStageExecutor = analyzeStageExecutor;
+        this.spoolDirectory = Paths.get(spoolDirectory);
+    }
+
+    @Override
+    public AnalyzeResultDTO analyzeImage(MediaContext media) {
+        return analyzeAndStore(media, "IMAGE");
+    }
+
+    @Override
+    public AnalyzeResultDTO analyzeAndStore(MediaContext media, String mediaType) {
+        return analyzeAndStore(media, mediaType, null, null);
+    }
+
+    @Override
+    public AnalyzeResultDTO analyzeAndStore(MediaContext media, String mediaType, String keyId, String signature) {
+        AnalyzedMedia analyzed = analyze(media, mediaType, keyId, signature);
+        if (analyzed.analysis() != null) {
+            mediaAnalysisWriter.save(analyzed.analysis());
+        }
+        return analyzed.result();
+    }
+
+    @Override
+    public AnalyzeResultDTO analyzeUpload(MultipartFile file, String mediaType, String keyId, String signature) {
+        //a multipart upload read by several stages would be copied to a temp file by each one that needs a channel
+        //(MediaContext.openChannel), a spooled file is opened in place and its hash is read through the mapped path
+        Path spooled = spool(file);
+        try {
+            return analyzeAndStore(MediaContext.of(spooled, file.getOriginalFilename(), file.getContentType()), mediaType, keyId, signature);
+        } finally {
+            deleteQuietly(spooled);
+        }
+    }
+
+    @Override
+    public AnalyzedMedia analyze(MediaContext media, String mediaType) {
+        return analyze(media, mediaType, null, null);
+    }
+
+    @Override
+    public AnalyzedMedia analyze(MediaContext media, String mediaType, String keyId, String signature) {
+        if (!"IMAGE".equals(mediaType) && !"VIDEO".equals(mediaType) && !"AUDIO".equals(mediaType)) {
+            throw new InvalidFileTypeException("Unsupported media type: " + mediaType);
+        }
+
+        //size, declared type and magic bytes are checked here, before any stage starts, so a mislabelled or oversized
+        //upload is rejected without being hashed or parsed; detection checks again, the sniffed type is memoised
+        switch (mediaType) {
+            case "IMAGE" -> validateImage(media.getFile(), media::getSniffedType);
+            case "VIDEO" -> validateVideo(media.getFile(), media::getSniffedType);
+            default -> validateAudio(media.getFile(), media::getSniffedType);
+        }
+
+        //verify stages start before detection, they only need the file
+        Future<VerifyResultDTO> source = analyzeStageExecutor.submit(() -> verifyService.verifySource(media));
+        Future<VerifyResultDTO> metadata = analyzeStageExecutor.submit(() -> verifyService.verifyMetadata(media));
+        Future<VerifyResultDTO> signatureCheck = keyId == null || signature == null ? null
+                : analyzeStageExecutor.submit(() -> verifyService.verifySignature(media, keyId, signature));
+        Future<String> treeHash = analyzeStageExecutor.submit(() -> treeHasher.treeHash(media));
+
+        //Detect
+        DetectResultDTO detectResult;
+        try {
+            detectResult = switch (mediaType) {
+                case "IMAGE" -> detectService.detectImage(media);
+                case "VIDEO" -> detectService.detectVideo(media);
+                default -> detectService.detectAudio(media);
+            };
+        } catch (RuntimeException e) {
+            cancel(source, metadata, signatureCheck, treeHash);
+            throw e;
+        }
+
+        //a cached verdict that is already stored does not need another row
+        boolean alreadyStored = detectResult.isCached() && detectResultCache.isStored(media.getSha256(), mediaType);
+        if (alreadyStored) {
+            treeHash.cancel(true);
+        }
+
+        //If FAKE → verification skipped
+        VerifyResultDTO verifyResult = null;
+        VerifyResultDTO metadataResult = null;
+        VerifyResultDTO signatureResult = null;
+        if ("FAKE".equalsIgnoreCase(detectResult.getResult())) {
+            cancel(source, metadata, signatureCheck);
+        } else {
+            verifyResult = awaitCheck(source, media, "SOURCE");
+            metadataResult = awaitCheck(metadata, media, "METADATA");
+            signatureResult = awaitCheck(signatureCheck, media, "SIGNATURE");
+        }
+
+        //a fresh receipt for every response, a cached verdict included
+        ReceiptDTO receipt = receiptSigner.sign(media.getSha256(), detectResult.getResult(), detectResult.getConfidence());
+
+        AnalyzeResultDTO result = new AnalyzeResultDTO(detectResult, verifyResult, metadataResult, signatureResult, receipt);
+        if (alreadyStored) {
+            return new AnalyzedMedia(result, null);
+        }
+
+        MediaAnalysis.MediaAnalysisBuilder analysis = media.analysisBuilder()
+                .treeHash(awaitTreeHash(treeHash, media))
+                .mediaType(detectResult.getMediaType())
+                .detectResult(detectResult.getResult())
+                .detectConfidence(detectResult.getConfidence())
+                .detectorVersion(detectResultCache.detectorVersion(mediaType))
+                .receiptPayload(receipt.getPayload())
+                .receiptSignature(receipt.getSignature());
+        if ("IMAGE".equals(mediaType)) {
+            analysis.perceptualHash(media.getPerceptualHash());
+        }
+        if (verifyResult != null) {
+            analysis.verifyType(verifyResult.getVerificationType())
+                    .verifyStatus(verifyResult.getStatus())
+                    .verifyDetails(verifyResult.getDetails());
+        }
+        return new AnalyzedMedia(result, analysis.build());
+    }
+
+    //transferTo renames the multipart temp file when it is on the same disk, so this is usually not a copy
+    private Path spool(MultipartFile file) {
+        try {
+            Files.createDirectories(spoolDirectory);
+            Path target = spoolDirectory.resolve(UUID.randomUUID().toString());
+            file.transferTo(target);
+            return target;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store upload for analysis");
+        }
+    }
+
+    //a cancelled stage may still hold the file open, on Linux it goes away once that stage closes it
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+        }
+    }
+
+    //null for a stage that was never started; a stage's own exception is rethrown as it is
+    private static <T> T await(Future<T> stage) {
+        if (stage == null) {
+            return null;
+        }
+        try {
+            return stage.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stage.cancel(true);
+            throw new IllegalStateException("Analysis interrupted", e);
+        } catch (CancellationException e) {
+            throw new IllegalStateException("Analysis stage cancelled", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Analysis stage failed", e.getCause());
+        }
+    }
+
+    //a side check that breaks (corrupt metadata, an I/O error) is reported as NOT VERIFIED, it does not throw
+    //away the verdict; only an interrupted request still fails as a whole
+    private static VerifyResultDTO awaitCheck(Future<VerifyResultDTO> stage, MediaContext media, String verificationType) {
+        try {
+            return await(stage);
+        } catch (RuntimeException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw e;
+            }
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            return new VerifyResultDTO(media.getFileName(), verificationType, "NOT VERIFIED", "Check failed: " + error);
+        }
+    }
+
+    //the tree hash is an extra column, a row without it is better than no row
+    private static String awaitTreeHash(Future<String> stage, MediaContext media) {
+        try {
+            return await(stage);
+        } catch (RuntimeException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw e;
+            }
+            System.out.println("Tree hash of " + media.getFileName() + " failed, stored without it: " + e.getMessage());
+            return null;
+        }
+    }
+
+    //a stage still in the queue never starts, a running one is interrupted
+    private static void cancel(Future<?>... stages) {
+        for (Future<?> stage : stages) {
+            if (stage != null) {
+                stage.cancel(true);
+            }
+        }
+    }
+}
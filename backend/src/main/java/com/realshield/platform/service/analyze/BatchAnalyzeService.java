@@ -0,0 +1,275 @@
+package com.realshield.platform.service.analyze;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.realshield.platform.dto.analyze.BatchAnalyzeItemDTO;
+import com.realshield.platform.model.MediaAnalysis;
+import com.realshield.platform.service.media.MediaContext;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static com.realshield.platform.utils.FileValidationUtil.mediaTypeOf;
+
+//analyzes many files in one request through the same detect / verify pipeline as a single upload
+//ZIP archives are read entry by entry, each entry is spooled to its own temp file and deleted once analyzed,
+//and never more than max-in-flight entries exist at the same time
+//results are streamed as NDJSON in completion order, the rows are stored in one JDBC batch at the end
+
+@Service
+public class BatchAnalyzeService {
+
+    private static final byte[] NEW_LINE = {'\n'};
+
+    private final AnalyzeService analyzeService;
+    private final MediaAnalysisWriter mediaAnalysisWriter;
+    private final AsyncTaskExecutor analyzeBatchExecutor;
+    private final ObjectMapper objectMapper;
+    private final Path spoolDirectory;
+    private final int maxInFlight;
+    private final int maxFiles;
+    private final long maxEntryBytes;
+
+    public BatchAnalyzeService(AnalyzeService analyzeService,
+                               MediaAnalysisWriter mediaAnalysisWriter,
+                               @Qualifier("analyzeBatchExecutor") AsyncTaskExecutor analyzeBatchExecutor,
+                               ObjectMapper objectMapper,
+                               @Value("${realshield.analyze.batch.spool-dir:${java.io.tmpdir}/realshield-batch}") String spoolDirectory,
+                               @Value("${realshield.analyze.batch.max-in-flight:8}") int maxInFlight,
+                               @Value("${realshield.analyze.batch.max-files:500}") int maxFiles,
+                               @Value("${realshield.analyze.batch.max-entry-size-mb:100}") long maxEntrySizeMb) {
+        this.analyzeService = analyzeService;
+        this.mediaAnalysisWriter = mediaAnalysisWriter;
+        this.analyzeBatchExecutor = analyzeBatchExecutor;
+        this.objectMapper = objectMapper;
+        this.spoolDirectory = Paths.get(spoolDirectory);
+        this.maxInFlight = maxInFlight;
+        this.maxFiles = maxFiles;
+        this.maxEntryBytes = maxEntrySizeMb * 1024 * 1024;
+    }
+
+    public void analyzeBatch(List<MultipartFile> files, MultipartFile archive, OutputStream outputStream) throws IOException {
+        Batch batch = new Batch(outputStream);
+        try {
+            for (MultipartFile file : files) {
+                if (file.isEmpty()) {
+                    continue;
+                }
+                if (!batch.hasRoom()) {
+                    break;
+                }
+                batch.submit(MediaContext.of(file), null);
+            }
+            if (archive != null && batch.hasRoom()) {
+                readArchive(archive, batch);
+            }
+        } finally {
+            batch.drain(0);
+            mediaAnalysisWriter.saveAll(batch.uniqueAnalyses());
+        }
+    }
+
+    private void readArchive(MultipartFile archive, Batch batch) throws IOException {
+        Files.createDirectories(spoolDirectory);
+
+        try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(archive.getInputStream()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String fileName = fileName(entry);
+                if (entry.isDirectory() || fileName == null) {
+                    continue;
+                }
+                if (!batch.hasRoom()) {
+                    return;
+                }
+
+                //the entry name is only used for display, the spool file name is always generated
+                //once submitted the task owns the spool file, until then it is deleted here whatever goes wrong
+                Path spooled = Files.createTempFile(spoolDirectory, "batch-", ".part");
+                boolean submitted = false;
+                try {
+                    if (!copy(zip, spooled)) {
+                        batch.fail(fileName, "File is larger than " + (maxEntryBytes / (1024 * 1024)) + "MB");
+                        continue;
+                    }
+
+                    String contentType = MediaTypeFactory.getMediaType(fileName).map(Object::toString).orElse(null);
+                    submitted = batch.submit(MediaContext.of(spooled, fileName, contentType), spooled);
+                } finally {
+                    if (!submitted) {
+                        Files.deleteIfExists(spooled);
+                    }
+                }
+            }
+        }
+    }
+
+    //copies the current entry, gives up once it is larger than the entry limit
+    private boolean copy(InputStream entry, Path target) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        try (OutputStream out = Files.newOutputStream(target)) {
+            int read;
+            while ((read = entry.read(buffer)) != -1) {
+                total += read;
+                if (total > maxEntryBytes) {
+                    return false;
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        return true;
+    }
+
+    //base name of the entry, null for entries that are not user files (macOS resource forks, hidden files)
+    private String fileName(ZipEntry entry) {
+        String name = entry.getName();
+        if (name.startsWith("__MACOSX/")) {
+            return null;
+        }
+        String baseName = name.substring(name.lastIndexOf('/') + 1);
+        return baseName.isEmpty() || baseName.startsWith(".") ? null : baseName;
+    }
+
+    private record Completed(BatchAnalyzeItemDTO item, MediaAnalysis analysis) {
+    }
+
+    //state of one batch request, only touched by the streaming thread
+    private final class Batch {
+
+        private final OutputStream outputStream;
+        private final CompletionService<Completed> completionService;
+        private final List<MediaAnalysis> analyses = new ArrayList<>();
+
+        //what is known about every running file, for the error line of a task that failed outright
+        private final Map<Future<Completed>, BatchAnalyzeItemDTO> running = new HashMap<>();
+        private int nextIndex;
+        private int inFlight;
+        private boolean clientGone;
+
+        private Batch(OutputStream outputStream) {
+            this.outputStream = outputStream;
+            this.completionService = new ExecutorCompletionService<>(analyzeBatchExecutor);
+        }
+
+        private boolean hasRoom() throws IOException {
+            if (nextIndex < maxFiles) {
+                return true;
+            }
+            if (nextIndex == maxFiles) {
+                fail(null, "Batch limit of " + maxFiles + " files reached, remaining files were skipped");
+            }
+            return false;
+        }
+
+        //true once the file is handed to a task, which then deletes the spool file
+        private boolean submit(MediaContext media, Path spooled) throws IOException {
+            int index = nextIndex++;
+            String mediaType = mediaTypeOf(media.getSniffedType());
+
+            //keep the number of spooled / running files bounded before adding another one
+            drain(maxInFlight - 1);
+
+            Future<Completed> future = completionService.submit(() -> {
+                try {
+                    if (mediaType == null) {
+                        return new Completed(new BatchAnalyzeItemDTO(index, media.getFileName(), null, false, null, "Unsupported file type"), null);
+                    }
+                    AnalyzeService.AnalyzedMedia analyzed = analyzeService.analyze(media, mediaType);
+                    return new Completed(new BatchAnalyzeItemDTO(index, media.getFileName(), mediaType, true, analyzed.result(), null), analyzed.analysis());
+                } catch (Exception e) {
+                    return new Completed(new BatchAnalyzeItemDTO(index, media.getFileName(), mediaType, false, null, e.getMessage()), null);
+                } finally {
+                    if (spooled != null) {
+                        Files.deleteIfExists(spooled);
+                    }
+                }
+            });
+            running.put(future, new BatchAnalyzeItemDTO(index, media.getFileName(), mediaType, false, null, null));
+            inFlight++;
+            return true;
+        }
+
+        private void fail(String fileName, String error) throws IOException {
+            write(new BatchAnalyzeItemDTO(nextIndex++, fileName, null, false, null, error));
+        }
+
+        //waits until at most `remaining` files are still being analyzed, writing every finished one
+        private void drain(int remaining) throws IOException {
+            while (inFlight > remaining) {
+                Future<Completed> future;
+                try {
+                    future = completionService.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Batch analysis interrupted", e);
+                }
+                inFlight--;
+                BatchAnalyzeItemDTO item = running.remove(future);
+                try {
+                    Completed completed = future.get();
+                    if (completed.analysis() != null) {
+                        analyses.add(completed.analysis());
+                    }
+                    write(completed.item());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Batch analysis interrupted", e);
+                } catch (ExecutionException e) {
+                    //the task catches everything itself, only the spool cleanup can end up here; the file still gets its line
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    item.setError(cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName());
+                    write(item);
+                }
+            }
+        }
+
+        private void write(BatchAnalyzeItemDTO item) {
+            if (clientGone) {
+                return;
+            }
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(item));
+                outputStream.write(NEW_LINE);
+                outputStream.flush();
+            } catch (IOException e) {
+                //keep analyzing so the spooled files are cleaned up and the results are still stored
+                clientGone = true;
+            }
+        }
+
+        //identical files in the same batch are stored once
+        private List<MediaAnalysis> uniqueAnalyses() {
+            Set<String> hashes = new HashSet<>();
+            List<MediaAnalysis> unique = new ArrayList<>();
+            for (MediaAnalysis analysis : analyses) {
+                if (hashes.add(analysis.getFileHash())) {
+                    unique.add(analysis);
+                }
+            }
+            return unique;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.realshield.platform.service.analyze;
+
+import com.realshield.platform.model.MediaAnalysis;
+import com.realshield.platform.repository.MediaAnalysisRepository;
+import com.realshield.platform.service.detect.DetectResultCache;
+import com.realshield.platform.service.detect.PerceptualHashIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//every MediaAnalysis row goes through here, so the result cache and the near duplicate index
+//always learn about a stored verdict no matter which endpoint produced it
+//
+//write-behind mode (realshield.analyze.write-behind.enabled): save() only queues the row and returns, a background
+//thread writes whatever is queued in one JDBC batch per transaction, so a request no longer waits on an insert
+//- a full queue makes the caller wait up to offer-timeout-ms for room, then write its own row: a database that falls
+//  behind slows requests down instead of piling up rows in memory
+//- a queued row already counts as stored for the result cache, a repeat upload does not queue a second one
+//- a clean shutdown stops taking new rows and flushes the queue before the datasource goes away; a crash loses
+//  what was still queued (at most queue-capacity rows)
+//- a batch that fails is retried with exponential backoff (retry-attempts, retry-backoff-ms), so a database that is
+//  briefly away costs nothing but time; while the writer waits the queue fills and callers fall back to writing
+//  their own rows; a row that still cannot be written is dropped from the "stored" state of the result cache,
+//  the next upload of that file stores it again
+
+@Component
+public class MediaAnalysisWriter {
+
+    private static final String INSERT_SQL = "insert into media_analysis "
+            + "(file_name, file_hash, tree_hash, media_type, perceptual_hash, detect_result, detect_confidence, detector_version, "
+            + "verify_type, verify_status, verify_details, receipt_payload, receipt_signature, created_at) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final long MAX_BACKOFF_MS = 5000;
+
+    private final MediaAnalysisRepository mediaAnalysisRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DetectResultCache detectResultCache;
+    private final PerceptualHashIndex perceptualHashIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean writeBehind;
+    private final BlockingQueue<MediaAnalysis> queue;
+    private final int batchSize;
+    private final long offerTimeoutMs;
+    private final int retryAttempts;
+    private final long retryBackoffMs;
+
+    //queueing holds the read lock, shutdown takes the write lock: once it is closed nothing lands behind the last flush
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
+    private volatile boolean accepting;
+    private Thread writerThread;
+
+    public MediaAnalysisWriter(MediaAnalysisRepository mediaAnalysisRepository,
+                               JdbcTemplate jdbcTemplate,
+                               DetectResultCache detectResultCache,
+                               PerceptualHashIndex perceptualHashIndex,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${realshield.analyze.write-behind.enabled:false}") boolean writeBehind,
+                               @Value("${realshield.analyze.write-behind.queue-capacity:10000}") int queueCapacity,
+                               @Value("${realshield.analyze.write-behind.batch-size:500}") int batchSize,
+                               @Value("${realshield.analyze.write-behind.offer-timeout-ms:1000}") long offerTimeoutMs,
+                               @Value("${realshield.analyze.write-behind.retry-attempts:5}") int retryAttempts,
+                               @Value("${realshield.analyze.write-behind.retry-backoff-ms:200}") long retryBackoffMs) {
+        this.mediaAnalysisRepository = mediaAnalysisRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.detectResultCache = detectResultCache;
+        this.perceptualHashIndex = perceptualHashIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.writeBehind = writeBehind;
+        this.queue = writeBehind ? new ArrayBlockingQueue<>(queueCapacity) : null;
+        this.batchSize = batchSize;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.retryAttempts = Math.max(1, retryAttempts);
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!writeBehind) {
+            return;
+        }
+        accepting = true;
+        writerThread = new Thread(this::writeQueued, "media-analysis-writer");
+        writerThread.start();
+    }
+
+    //in write-behind mode the row is returned before it has an id
+    public MediaAnalysis save(MediaAnalysis analysis) {
+        if (writeBehind && enqueue(analysis)) {
+            return analysis;
+        }
+        MediaAnalysis saved = mediaAnalysisRepository.save(analysis);
+        stored(saved);
+        return saved;
+    }
+
+    //one JDBC batch for all rows, the generated ids are written back onto the entities
+    public void saveAll(List<MediaAnalysis> analyses) {
+        if (analyses.isEmpty()) {
+            return;
+        }
+        insert(analyses);
+        for (MediaAnalysis analysis : analyses) {
+            stored(analysis);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!writeBehind) {
+            return;
+        }
+        acceptLock.writeLock().lock();
+        try {
+            accepting = false;
+        } finally {
+            acceptLock.writeLock().unlock();
+        }
+
+        int pending = queue.size();
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        //the writer did not get through the queue in time, what is left is written here
+        List<MediaAnalysis> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            flush(rest);
+        }
+        System.out.println("Media analysis writer stopped, flushed " + pending + " queued rows");
+    }
+
+    private boolean enqueue(MediaAnalysis analysis) {
+        acceptLock.readLock().lock();
+        try {
+            if (!accepting) {
+                return false;
+            }
+            if (queue.offer(analysis, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                detectResultCache.markStored(analysis.getFileHash(), analysis.getMediaType());
+                return true;
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+    }
+
+    //one batch per round with whatever is queued, up to batch-size rows: under load the batches fill up by themselves,
+    //a quiet server writes single rows without waiting for more
+    private void writeQueued() {
+        List<MediaAnalysis> batch = new ArrayList<>(batchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                MediaAnalysis first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    //a batch is all or nothing: it is retried with backoff first (the database may just be away for a moment), then
+    //row by row so one bad row does not take the others with it
+    private void flush(List<MediaAnalysis> batch) {
+        long backoffMs = retryBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(batch));
+                for (MediaAnalysis analysis : batch) {
+                    stored(analysis);
+                }
+                return;
+            } catch (RuntimeException e) {
+                for (MediaAnalysis analysis : batch) {
+                    analysis.setId(null);
+                }
+                if (attempt == retryAttempts || !sleep(backoffMs)) {
+                    System.out.println("Media analysis batch of " + batch.size() + " rows failed " + attempt + " times ("
+                            + e.getMessage() + "), writing them one by one");
+                    break;
+                }
+                System.out.println("Media analysis batch of " + batch.size() + " rows failed (" + e.getMessage() + "), retrying in " + backoffMs + " ms");
+                backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+            }
+        }
+
+        for (MediaAnalysis analysis : batch) {
+            try {
+                stored(mediaAnalysisRepository.save(analysis));
+            } catch (RuntimeException rowFailure) {
+                analysis.setId(null);
+                //the verdict was marked stored when it was queued, a later upload of the file has to write it again
+                detectResultCache.unmarkStored(analysis.getFileHash(), analysis.getMediaType());
+                System.out.println("Media analysis row for " + analysis.getFileHash() + " lost: " + rowFailure.getMessage());
+            }
+        }
+    }
+
+    //false when interrupted, the caller gives up on retrying
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void insert(List<MediaAnalysis> analyses) {
+        jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (MediaAnalysis analysis : analyses) {
+                    bind(statement, analysis);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (int i = 0; i < analyses.size() && keys.next(); i++) {
+                        analyses.get(i).setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private void stored(MediaAnalysis analysis) {
+        detectResultCache.markStored(analysis.getFileHash(), analysis.getMediaType());
+        if (analysis.getId() != null && analysis.getPerceptualHash() != null) {
+            perceptualHashIndex.add(analysis.getId(), analysis.getPerceptualHash());
+        }
+    }
+
+    private void bind(PreparedStatement statement, MediaAnalysis analysis) throws SQLException {
+        statement.setString(1, analysis.getFileName());
+        statement.setString(2, analysis.getFileHash());
+        statement.setString(3, analysis.getTreeHash());
+        statement.setString(4, analysis.getMediaType());
+        statement.setObject(5, analysis.getPerceptualHash(), Types.BIGINT);
+        statement.setString(6, analysis.getDetectResult());
+        statement.setObject(7, analysis.getDetectConfidence(), Types.DOUBLE);
+        statement.setString(8, analysis.getDetectorVersion());
+        statement.setString(9, analysis.getVerifyType());
+        statement.setString(10, analysis.getVerifyStatus());
+        statement.setString(11, analysis.getVerifyDetails());
+        statement.setString(12, analysis.getReceiptPayload());
+        statement.setString(13, analysis.getReceiptSignature());
+        statement.setTimestamp(14, analysis.getCreatedAt() != null ? Timestamp.valueOf(analysis.getCreatedAt()) : null);
+    }
+}
@@ -0,0 +1,24 @@
+package com.realshield.platform.service.detect;
+
+import com.realshield.platform.service.media.audio.AudioFeatureExtractor;
+import com.realshield.platform.service.media.audio.SpectralPlan;
+import com.realshield.platform.service.media.audio.WavHeader;
+
+//scores an audio file from its log mel frames
+//DetectServiceImpl streams the frames of one file into one Scorer, so a detector never sees the whole file at once
+//register an implementation as a @Primary bean to replace the default StubAudioDetector
+
+public interface AudioDetector {
+
+    //called once per file, before the first frame
+    Scorer start(WavHeader wav, SpectralPlan plan);
+
+    interface Scorer extends AudioFeatureExtractor.FeatureSink {
+
+        //called after the last frame
+        Verdict finish(long frames);
+    }
+
+    record Verdict(String result, double confidence) {
+    }
+}
@@ -0,0 +1,118 @@
+package com.realshield.platform.service.detect;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+//BK-tree over 64 bit perceptual hashes with Hamming distance
+//every child hangs off its parent at its exact distance from the parent, so a radius query
+//only has to descend into children whose distance lies within [d - radius, d + radius]
+//not thread safe, PerceptualHashIndex guards it with a read/write lock
+
+class BkTree {
+
+    private Node root;
+    private int size;
+
+    //adds one analysis id under the given hash, ids sharing a hash share a node
+    void add(long hash, long id) {
+        size++;
+        if (root == null) {
+            root = new Node(hash, id);
+            return;
+        }
+
+        Node node = root;
+        while (true) {
+            int distance = Long.bitCount(node.hash ^ hash);
+            if (distance == 0) {
+                node.addId(id);
+                return;
+            }
+            Node child = node.child(distance);
+            if (child == null) {
+                node.addChild(distance, new Node(hash, id));
+                return;
+            }
+            node = child;
+        }
+    }
+
+    //every id whose hash is at most radius bits away from the query
+    List<Match> search(long hash, int radius) {
+        List<Match> matches = new ArrayList<>();
+        if (root == null) {
+            return matches;
+        }
+
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = Long.bitCount(node.hash ^ hash);
+            if (distance <= radius) {
+                for (int i = 0; i < node.idCount; i++) {
+                    matches.add(new Match(node.ids[i], node.hash, distance));
+                }
+            }
+            for (int i = 0; i < node.childCount; i++) {
+                int childDistance = node.childDistances[i];
+                if (childDistance >= distance - radius && childDistance <= distance + radius) {
+                    pending.push(node.children[i]);
+                }
+            }
+        }
+        return matches;
+    }
+
+    int size() {
+        return size;
+    }
+
+    record Match(long id, long hash, int distance) {
+    }
+
+    //children are kept in small parallel arrays instead of a 65 slot table, most nodes only have a few
+    private static final class Node {
+
+        private final long hash;
+        private long[] ids = new long[1];
+        private int idCount;
+        private byte[] childDistances = new byte[0];
+        private Node[] children = new Node[0];
+        private int childCount;
+
+        private Node(long hash, long id) {
+            this.hash = hash;
+            addId(id);
+        }
+
+        private void addId(long id) {
+            if (idCount == ids.length) {
+                ids = Arrays.copyOf(ids, idCount * 2);
+            }
+            ids[idCount++] = id;
+        }
+
+        private Node child(int distance) {
+            for (int i = 0; i < childCount; i++) {
+                if (childDistances[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private void addChild(int distance, Node child) {
+            if (childCount == children.length) {
+                int capacity = Math.max(2, childCount * 2);
+                childDistances = Arrays.copyOf(childDistances, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            childDistances[childCount] = (byte) distance;
+            children[childCount++] = child;
+        }
+    }
+}
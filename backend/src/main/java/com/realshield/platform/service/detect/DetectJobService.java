@@ -0,0 +1,15 @@
+package com.realshield.platform.service.detect;
+
+import com.realshield.platform.dto.detect.DetectJobDTO;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface DetectJobService {
+
+    //queue a VIDEO detection and return at once with the job id
+    DetectJobDTO submitVideo(MultipartFile file);
+
+    //queue an AUDIO detection and return at once with the job id
+    DetectJobDTO submitAudio(MultipartFile file);
+
+    DetectJobDTO getJob(String jobId);
+}
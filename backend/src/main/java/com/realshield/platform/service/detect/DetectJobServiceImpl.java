@@ -0,0 +1,208 @@
+package com.realshield.platform.service.detect;
+
+import com.realshield.platform.dto.detect.DetectJobDTO;
+import com.realshield.platform.dto.detect.DetectResultDTO;
+import com.realshield.platform.exception.DetectJobNotFoundException;
+import com.realshield.platform.exception.DetectQueueFullException;
+import com.realshield.platform.model.DetectJob;
+import com.realshield.platform.model.DetectJobStatus;
+import com.realshield.platform.repository.DetectJobRepository;
+import com.realshield.platform.service.media.MediaContext;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+import static com.realshield.platform.utils.FileValidationUtil.validateAudio;
+import static com.realshield.platform.utils.FileValidationUtil.validateVideo;
+
+//video and audio detection can take tens of seconds, so it runs on the bounded detectJobExecutor
+//the upload is moved into a spool directory because the multipart temp file is deleted when the request ends
+//job state lives in detect_jobs so any instance can answer the status poll
+//the spooled file and the worker belong to the instance that accepted the job, so every job records its owner
+//(realshield.instance-id, the host name by default; it has to stay the same across restarts of one instance)
+
+@Service
+public class DetectJobServiceImpl implements DetectJobService {
+
+    private final DetectService detectService;
+    private final DetectJobRepository detectJobRepository;
+    private final TaskExecutor detectJobExecutor;
+    private final Path spoolDirectory;
+    private final String instanceId;
+
+    public DetectJobServiceImpl(DetectService detectService,
+                                DetectJobRepository detectJobRepository,
+                                @Qualifier("detectJobExecutor") TaskExecutor detectJobExecutor,
+                                @Value("${realshield.detect.jobs.spool-dir:${java.io.tmpdir}/realshield-jobs}") String spoolDirectory,
+                                @Value("${realshield.instance-id:}") String instanceId) {
+        this.detectService = detectService;
+        this.detectJobRepository = detectJobRepository;
+        this.detectJobExecutor = detectJobExecutor;
+        this.spoolDirectory = Paths.get(spoolDirectory);
+        this.instanceId = instanceId.isBlank() ? hostName() : instanceId;
+    }
+
+    //jobs this instance had queued or running when it went down will never finish; other instances' jobs are
+    //left alone, they may still be running there (jobs without an owner predate it and are failed as before)
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterruptedJobs() {
+        EnumSet<DetectJobStatus> unfinished = EnumSet.of(DetectJobStatus.QUEUED, DetectJobStatus.RUNNING);
+        List<DetectJob> interrupted = new ArrayList<>(detectJobRepository.findByOwnerInstanceAndStatusIn(instanceId, unfinished));
+        interrupted.addAll(detectJobRepository.findByOwnerInstanceIsNullAndStatusIn(unfinished));
+        for (DetectJob job : interrupted) {
+            job.setStatus(DetectJobStatus.FAILED);
+            job.setError("Interrupted by a server restart, please submit the file again");
+            job.setCompletedAt(LocalDateTime.now());
+            detectJobRepository.save(job);
+        }
+    }
+
+    @Override
+    public DetectJobDTO submitVideo(MultipartFile file) {
+        validateVideo(file);
+        return submit(file, "VIDEO");
+    }
+
+    @Override
+    public DetectJobDTO submitAudio(MultipartFile file) {
+        validateAudio(file);
+        return submit(file, "AUDIO");
+    }
+
+    @Override
+    public DetectJobDTO getJob(String jobId) {
+        return detectJobRepository.findById(jobId)
+                .map(this::toDTO)
+                .orElseThrow(() -> new DetectJobNotFoundException("No detect job with id " + jobId));
+    }
+
+    private DetectJobDTO submit(MultipartFile file, String mediaType) {
+        DetectJob job = DetectJob.builder()
+                .id(UUID.randomUUID().toString())
+                .mediaType(mediaType)
+                .fileName(file.getOriginalFilename())
+                .status(DetectJobStatus.QUEUED)
+                .ownerInstance(instanceId)
+                .createdAt(LocalDateTime.now())
+                .build();
+
+        //the MultipartFile is cleaned up when the request ends, the job only keeps plain values
+        String fileName = file.getOriginalFilename();
+        String contentType = file.getContentType();
+        Path spooled = spool(file, job.getId());
+        detectJobRepository.save(job);
+
+        try {
+            detectJobExecutor.execute(() -> run(job.getId(), spooled, fileName, contentType));
+        } catch (TaskRejectedException e) {
+            deleteQuietly(spooled);
+            detectJobRepository.deleteById(job.getId());
+            throw new DetectQueueFullException("Too many detections are waiting, please retry later");
+        }
+        return toDTO(job);
+    }
+
+    private void run(String jobId, Path spooled, String fileName, String contentType) {
+        DetectJob job = detectJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            deleteQuietly(spooled);
+            return;
+        }
+
+        try {
+            job.setStatus(DetectJobStatus.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+            detectJobRepository.save(job);
+
+            MediaContext media = MediaContext.of(spooled, fileName, contentType);
+            DetectResultDTO result = "VIDEO".equals(job.getMediaType())
+                    ? detectService.detectVideo(media)
+                    : detectService.detectAudio(media);
+
+            job.setFileHash(media.getSha256());
+            job.setDetectResult(result.getResult());
+            job.setDetectConfidence(result.getConfidence());
+            job.setCached(result.isCached());
+            job.setStatus(DetectJobStatus.COMPLETED);
+        } catch (Exception e) {
+            job.setStatus(DetectJobStatus.FAILED);
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            job.setError(error.length() > 1000 ? error.substring(0, 1000) : error);
+        } finally {
+            job.setCompletedAt(LocalDateTime.now());
+            detectJobRepository.save(job);
+            deleteQuietly(spooled);
+        }
+    }
+
+    //transferTo renames the multipart temp file when it is on the same disk, so this is usually not a copy
+    private Path spool(MultipartFile file, String jobId) {
+        try {
+            Files.createDirectories(spoolDirectory);
+            Path target = spoolDirectory.resolve(jobId);
+            file.transferTo(target);
+            return target;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store upload for detection");
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private DetectJobDTO toDTO(DetectJob job) {
+        DetectResultDTO result = null;
+        if (job.getStatus() == DetectJobStatus.COMPLETED) {
+            result = new DetectResultDTO(
+                    job.getFileName(),
+                    job.getMediaType(),
+                    job.getDetectResult(),
+                    job.getDetectConfidence() != null ? job.getDetectConfidence() : 0,
+                    job.isCached(),
+                    null,
+                    null,
+                    "NOT_STORED"
+            );
+        }
+        return new DetectJobDTO(
+                job.getId(),
+                job.getMediaType(),
+                job.getFileName(),
+                job.getStatus().name(),
+                result,
+                job.getError(),
+                job.getCreatedAt(),
+                job.getStartedAt(),
+                job.getCompletedAt()
+        );
+    }
+}
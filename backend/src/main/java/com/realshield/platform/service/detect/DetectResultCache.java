@@ -0,0 +1,159 @@
+package com.realshield.platform.service.detect;
+
+import com.realshield.platform.dto.detect.DetectCacheStatsDTO;
+import com.realshield.platform.model.MediaAnalysis;
+import com.realshield.platform.repository.MediaAnalysisRepository;
+import com.realshield.platform.service.detect.engine.DetectorEngineRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+//content addressed cache of detection verdicts
+//the same bytes always get the same verdict from the same detector, so the key is SHA-256 + the version of the engine
+//for the media type (DetectorEngineRegistry.engineVersion), swapping one engine leaves the other types' verdicts valid
+//lookups go memory first, then the indexed media_analysis.file_hash column, and only then the detector runs
+
+@Component
+public class DetectResultCache {
+
+    private final MediaAnalysisRepository mediaAnalysisRepository;
+    private final DetectorEngineRegistry detectorEngineRegistry;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    //access ordered, so the eldest entry is always the least recently used one
+    private final LinkedHashMap<String, Entry> entries;
+
+    private long hits;
+    private long storedHits;
+    private long misses;
+    private long evictions;
+
+    public DetectResultCache(MediaAnalysisRepository mediaAnalysisRepository,
+                             DetectorEngineRegistry detectorEngineRegistry,
+                             @Value("${realshield.detect.cache.max-size:10000}") int maxSize,
+                             @Value("${realshield.detect.cache.ttl-minutes:60}") long ttlMinutes) {
+        this.mediaAnalysisRepository = mediaAnalysisRepository;
+        this.detectorEngineRegistry = detectorEngineRegistry;
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MINUTES.toNanos(ttlMinutes);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > DetectResultCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    //version stored with a verdict of this media type, e.g. ela-image:1
+    public String detectorVersion(String mediaType) {
+        return detectorEngineRegistry.engineVersion(mediaType);
+    }
+
+    //cached verdict for this file, empty when the detector has to run
+    public Optional<Verdict> get(String sha256, String mediaType) {
+        String detectorVersion = detectorVersion(mediaType);
+        String key = key(sha256, detectorVersion);
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt - System.nanoTime() > 0) {
+                    hits++;
+                    return Optional.of(entry.verdict);
+                }
+                entries.remove(key);
+                evictions++;
+            }
+        }
+
+        //not in memory, a previous analysis may still be stored
+        Optional<MediaAnalysis> stored = mediaAnalysisRepository
+                .findFirstByFileHashAndDetectorVersionOrderByIdDesc(sha256, detectorVersion);
+
+        synchronized (this) {
+            if (stored.isEmpty() || stored.get().getDetectResult() == null) {
+                misses++;
+                return Optional.empty();
+            }
+            storedHits++;
+            MediaAnalysis analysis = stored.get();
+            Verdict verdict = new Verdict(
+                    analysis.getMediaType(),
+                    analysis.getDetectResult(),
+                    analysis.getDetectConfidence() != null ? analysis.getDetectConfidence() : 0,
+                    true
+            );
+            entries.put(key, new Entry(verdict, System.nanoTime() + ttlNanos));
+            return Optional.of(verdict);
+        }
+    }
+
+    public synchronized void put(String sha256, String mediaType, String result, double confidence) {
+        entries.put(key(sha256, detectorVersion(mediaType)), new Entry(new Verdict(mediaType, result, confidence, false), System.nanoTime() + ttlNanos));
+    }
+
+    //called once the verdict has been written to media_analysis, so later analyses don't insert it again
+    public synchronized void markStored(String sha256, String mediaType) {
+        String key = key(sha256, detectorVersion(mediaType));
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.verdict.stored()) {
+            Verdict verdict = entry.verdict;
+            entries.put(key, new Entry(new Verdict(verdict.mediaType(), verdict.result(), verdict.confidence(), true), entry.expiresAt));
+        }
+    }
+
+    //the row that was expected to hold this verdict could not be written after all
+    public synchronized void unmarkStored(String sha256, String mediaType) {
+        String key = key(sha256, detectorVersion(mediaType));
+        Entry entry = entries.get(key);
+        if (entry != null && entry.verdict.stored()) {
+            Verdict verdict = entry.verdict;
+            entries.put(key, new Entry(new Verdict(verdict.mediaType(), verdict.result(), verdict.confidence(), false), entry.expiresAt));
+        }
+    }
+
+    //true when the cached verdict for this file is already in media_analysis, does not count as a lookup
+    public synchronized boolean isStored(String sha256, String mediaType) {
+        Entry entry = entries.get(key(sha256, detectorVersion(mediaType)));
+        return entry != null && entry.verdict.stored();
+    }
+
+    public synchronized DetectCacheStatsDTO stats() {
+        purgeExpired();
+        long lookups = hits + storedHits + misses;
+        double hitRate = lookups == 0 ? 0 : (double) (hits + storedHits) / lookups;
+        return new DetectCacheStatsDTO(detectorEngineRegistry.engineVersions(), entries.size(), maxSize, hits, storedHits, misses, evictions, hitRate);
+    }
+
+    private void purgeExpired() {
+        long now = System.nanoTime();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiresAt - now <= 0) {
+                iterator.remove();
+                evictions++;
+            }
+        }
+    }
+
+    private static String key(String sha256, String detectorVersion) {
+        return sha256 + ":" + detectorVersion;
+    }
+
+    //stored is true when a media_analysis row already holds this verdict
+    public record Verdict(String mediaType, String result, double confidence, boolean stored) {
+    }
+
+    private record Entry(Verdict verdict, long expiresAt) {
+    }
+}
@@ -1,15 +1,34 @@
 package com.realshield.platform.service.detect;
+import com.realshield.platform.service.media.MediaContext;
 import org.springframework.web.multipart.MultipartFile;
 import com.realshield.platform.dto.detect.DetectResultDTO;
+import com.realshield.platform.dto.detect.SimilarMediaDTO;
+
+import java.util.List;
 
 public interface DetectService {
 
     //detecting the image files only
-    DetectResultDTO detectImage(MultipartFile file);
+    DetectResultDTO detectImage(MediaContext media);
 
     //Detect deepfake in VIDEO files only
-    DetectResultDTO detectVideo(MultipartFile file);
+    DetectResultDTO detectVideo(MediaContext media);
 
     //Detect deepfake in AUDIO files only
-    DetectResultDTO detectAudio(MultipartFile file);
+    DetectResultDTO detectAudio(MediaContext media);
+
+    //closest previously analysed images by perceptual hash, nearest first
+    List<SimilarMediaDTO> findSimilarImages(MediaContext media, int maxDistance, int limit);
+
+    default DetectResultDTO detectImage(MultipartFile file) {
+        return detectImage(MediaContext.of(file));
+    }
+
+    default DetectResultDTO detectVideo(MultipartFile file) {
+        return detectVideo(MediaContext.of(file));
+    }
+
+    default DetectResultDTO detectAudio(MultipartFile file) {
+        return detectAudio(MediaContext.of(file));
+    }
 }
@@ -1,44 +1,183 @@
 package com.realshield.platform.service.detect;
 
 import com.realshield.platform.dto.detect.DetectResultDTO;
+import com.realshield.platform.dto.detect.SimilarMediaDTO;
+import com.realshield.platform.exception.InvalidFileTypeException;
+import com.realshield.platform.model.MediaAnalysis;
+import com.realshield.platform.repository.MediaAnalysisRepository;
+import com.realshield.platform.service.detect.engine.DetectionVerdict;
+import com.realshield.platform.service.detect.engine.DetectorEngineRegistry;
+import com.realshield.platform.service.media.MediaContext;
+import com.realshield.platform.utils.PerceptualHashUtil;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static com.realshield.platform.utils.FileValidationUtil.*;
 
 @Service
 public class DetectServiceImpl implements DetectService {
 
+    private static final int MAX_SIMILAR_LIMIT = 100;
+
+    private final DetectResultCache detectResultCache;
+    private final PerceptualHashIndex perceptualHashIndex;
+    private final MediaAnalysisRepository mediaAnalysisRepository;
+
+    //an image this close to an analysed one reuses its verdict, 0 turns the short circuit off
+    private final int nearDuplicateDistance;
+    private final int maxSearchDistance;
+
+    private final DetectorEngineRegistry detectorEngineRegistry;
+
+    public DetectServiceImpl(DetectResultCache detectResultCache,
+                             PerceptualHashIndex perceptualHashIndex,
+                             MediaAnalysisRepository mediaAnalysisRepository,
+                             @Value("${realshield.detect.phash.near-duplicate-distance:4}") int nearDuplicateDistance,
+                             @Value("${realshield.detect.phash.max-search-distance:16}") int maxSearchDistance,
+                             DetectorEngineRegistry detectorEngineRegistry) {
+        this.detectResultCache = detectResultCache;
+        this.perceptualHashIndex = perceptualHashIndex;
+        this.mediaAnalysisRepository = mediaAnalysisRepository;
+        this.nearDuplicateDistance = nearDuplicateDistance;
+        this.maxSearchDistance = maxSearchDistance;
+        this.detectorEngineRegistry = detectorEngineRegistry;
+    }
+
+    @Override
+    public DetectResultDTO detectImage(MediaContext media) {
+        validateImage(media.getFile(), media::getSniffedType);
+        return detect(media, "IMAGE");
+    }
+
     @Override
-    public DetectResultDTO detectImage(MultipartFile file) {
-        validateImage(file);
-        return buildResult(file, "IMAGE");
+    public DetectResultDTO detectVideo(MediaContext media) {
+        validateVideo(media.getFile(), media::getSniffedType);
+        return detect(media, "VIDEO");
     }
 
     @Override
-    public DetectResultDTO detectVideo(MultipartFile file) {
-        validateVideo(file);
-        return buildResult(file, "VIDEO");
+    public DetectResultDTO detectAudio(MediaContext media) {
+        validateAudio(media.getFile(), media::getSniffedType);
+        return detect(media, "AUDIO");
+    }
+
+    //the same file is only ever detected once per detector version, repeats are answered from the cache
+    private DetectResultDTO detect(MediaContext media, String mediaType) {
+        Optional<DetectResultCache.Verdict> cached = detectResultCache.get(media.getSha256(), mediaType);
+        if (cached.isPresent()) {
+            DetectResultCache.Verdict verdict = cached.get();
+            return new DetectResultDTO(media.getFileName(), mediaType, verdict.result(), verdict.confidence(), true, null);
+        }
+
+        //re-encoded or resized copies of an analysed image get the verdict of the original
+        if ("IMAGE".equals(mediaType)) {
+            Optional<DetectResultDTO> nearDuplicate = detectNearDuplicate(media);
+            if (nearDuplicate.isPresent()) {
+                DetectResultDTO result = nearDuplicate.get();
+                detectResultCache.put(media.getSha256(), mediaType, result.getResult(), result.getConfidence());
+                return result;
+            }
+        }
+
+        DetectResultDTO result = buildResult(media, mediaType);
+        detectResultCache.put(media.getSha256(), mediaType, result.getResult(), result.getConfidence());
+        return result;
     }
 
     @Override
-    public DetectResultDTO detectAudio(MultipartFile file) {
-        validateAudio(file);
-        return buildResult(file, "AUDIO");
+    public List<SimilarMediaDTO> findSimilarImages(MediaContext media, int maxDistance, int limit) {
+        //Hamming distance between two 64 bit hashes is 0 - 64, larger radii are capped by max-search-distance below
+        if (maxDistance < 0 || maxDistance > 64) {
+            throw new IllegalArgumentException("maxDistance must be between 0 and 64");
+        }
+        if (limit < 1 || limit > MAX_SIMILAR_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_SIMILAR_LIMIT);
+        }
+        validateImage(media.getFile(), media::getSniffedType);
+
+        Long perceptualHash = media.getPerceptualHash();
+        if (perceptualHash == null) {
+            throw new InvalidFileTypeException("Image could not be decoded");
+        }
+
+        List<BkTree.Match> matches = perceptualHashIndex.search(perceptualHash, Math.min(maxDistance, maxSearchDistance), limit);
+        Map<Long, MediaAnalysis> analyses = mediaAnalysisRepository
+                .findAllById(matches.stream().map(BkTree.Match::id).toList())
+                .stream()
+                .collect(Collectors.toMap(MediaAnalysis::getId, Function.identity()));
+
+        List<SimilarMediaDTO> similar = new ArrayList<>();
+        for (BkTree.Match match : matches) {
+            MediaAnalysis analysis = analyses.get(match.id());
+            if (analysis == null) {
+                continue;
+            }
+            similar.add(new SimilarMediaDTO(
+                    analysis.getId(),
+                    analysis.getFileName(),
+                    analysis.getFileHash(),
+                    PerceptualHashUtil.toHex(match.hash()),
+                    match.distance(),
+                    analysis.getDetectResult(),
+                    analysis.getDetectConfidence(),
+                    analysis.getCreatedAt()
+            ));
+        }
+        return similar;
+    }
+
+    private Optional<DetectResultDTO> detectNearDuplicate(MediaContext media) {
+        if (nearDuplicateDistance <= 0) {
+            return Optional.empty();
+        }
+        Long perceptualHash = media.getPerceptualHash();
+        if (perceptualHash == null) {
+            return Optional.empty();
+        }
+
+        for (BkTree.Match match : perceptualHashIndex.search(perceptualHash, nearDuplicateDistance, 5)) {
+            Optional<MediaAnalysis> analysis = mediaAnalysisRepository.findById(match.id());
+            //only verdicts from the current detector are reused
+            if (analysis.isPresent()
+                    && analysis.get().getDetectResult() != null
+                    && detectResultCache.detectorVersion("IMAGE").equals(analysis.get().getDetectorVersion())) {
+                MediaAnalysis original = analysis.get();
+                return Optional.of(new DetectResultDTO(
+                        media.getFileName(),
+                        "IMAGE",
+                        original.getDetectResult(),
+                        original.getDetectConfidence() != null ? original.getDetectConfidence() : 0,
+                        true,
+                        original.getId()
+                ));
+            }
+        }
+        return Optional.empty();
     }
 
     // 🔍 ADD DEBUG HERE
-    private DetectResultDTO buildResult(MultipartFile file, String mediaType) {
+    private DetectResultDTO buildResult(MediaContext media, String mediaType) {
 
-        System.out.println("DEBUG: File received = " + file.getOriginalFilename());
-        System.out.println("DEBUG: Content-Type = " + file.getContentType());
+        System.out.println("DEBUG: File received = " + media.getFileName());
+        System.out.println("DEBUG: Content-Type = " + media.getDeclaredContentType());
         System.out.println("DEBUG: MediaType = " + mediaType);
 
+        DetectionVerdict verdict = detectorEngineRegistry.detect(mediaType, media);
         return new DetectResultDTO(
-                file.getOriginalFilename(),
+                media.getFileName(),
                 mediaType,
-                "FAKE",
-                91.5
+                verdict.result(),
+                verdict.confidence(),
+                false,
+                null,
+                verdict.scoreMap()
         );
     }
 }
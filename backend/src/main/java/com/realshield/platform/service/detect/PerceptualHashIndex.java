@@ -0,0 +1,77 @@
+package com.realshield.platform.service.detect;
+
+import com.realshield.platform.repository.MediaAnalysisRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//in memory near duplicate index over every analysed image that has a perceptual hash
+//it is filled from media_analysis once the application is ready and kept up to date as new analyses are saved
+
+@Component
+public class PerceptualHashIndex {
+
+    private final MediaAnalysisRepository mediaAnalysisRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private BkTree tree = new BkTree();
+
+    public PerceptualHashIndex(MediaAnalysisRepository mediaAnalysisRepository) {
+        this.mediaAnalysisRepository = mediaAnalysisRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        BkTree loaded = new BkTree();
+        for (MediaAnalysisRepository.PerceptualHashView view : mediaAnalysisRepository.findAllPerceptualHashes()) {
+            loaded.add(view.getPerceptualHash(), view.getId());
+        }
+
+        lock.writeLock().lock();
+        try {
+            tree = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void add(long analysisId, long perceptualHash) {
+        lock.writeLock().lock();
+        try {
+            tree.add(perceptualHash, analysisId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //matches within the radius, closest first; callers pass a radius >= 0 and a limit >= 1
+    List<BkTree.Match> search(long perceptualHash, int radius, int limit) {
+        if (radius < 0 || limit < 1) {
+            return new ArrayList<>();
+        }
+        List<BkTree.Match> matches;
+        lock.readLock().lock();
+        try {
+            matches = tree.search(perceptualHash, radius);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matches.sort(Comparator.comparingInt(BkTree.Match::distance).thenComparing(Comparator.comparingLong(BkTree.Match::id).reversed()));
+        return matches.size() > limit ? matches.subList(0, limit) : matches;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return tree.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.realshield.platform.service.detect;
+
+import com.realshield.platform.service.media.audio.SpectralPlan;
+import com.realshield.platform.service.media.audio.WavHeader;
+import org.springframework.stereotype.Component;
+
+//placeholder until the audio model is wired in: consumes the features and returns the same verdict as the other stubs
+//a real detector registered as a @Primary bean takes its place
+
+@Component
+public class StubAudioDetector implements AudioDetector {
+
+    @Override
+    public Scorer start(WavHeader wav, SpectralPlan plan) {
+        return new Scorer() {
+
+            @Override
+            public void accept(float[] melFrame) {
+            }
+
+            @Override
+            public Verdict finish(long frames) {
+                return new Verdict("FAKE", 91.5);
+            }
+        };
+    }
+}
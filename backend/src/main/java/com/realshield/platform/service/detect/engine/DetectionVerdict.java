@@ -0,0 +1,12 @@
+package com.realshield.platform.service.detect.engine;
+
+import com.realshield.platform.dto.detect.ScoreMapDTO;
+
+//what an engine says about one file, result is REAL / FAKE (INCONCLUSIVE when the engine cannot judge the file) and confidence is in %
+//scoreMap is set by engines that can say where in the image the evidence is
+public record DetectionVerdict(String result, double confidence, ScoreMapDTO scoreMap) {
+
+    public DetectionVerdict(String result, double confidence) {
+        this(result, confidence, null);
+    }
+}
@@ -0,0 +1,22 @@
+package com.realshield.platform.service.detect.engine;
+
+import com.realshield.platform.service.media.MediaContext;
+
+//one detector instance (model, buffers, native session ...) for one media type
+//an instance is only ever used by one thread at a time unless its provider says it is thread safe,
+//so it may keep mutable state between calls
+
+public interface DetectorEngine extends AutoCloseable {
+
+    //throws InvalidFileTypeException when the file cannot be read as this media type
+    DetectionVerdict detect(MediaContext media) throws Exception;
+
+    //run on every pooled instance before the application takes traffic, so JIT compilation
+    //and lazy model initialisation do not land on the first users
+    default void warmUp() throws Exception {
+    }
+
+    @Override
+    default void close() throws Exception {
+    }
+}
@@ -0,0 +1,55 @@
+package com.realshield.platform.service.detect.engine;
+
+import java.util.function.Supplier;
+
+//the SPI: creates DetectorEngine instances for one media type
+//providers are picked up as Spring beans and through java.util.ServiceLoader
+//(META-INF/services/com.realshield.platform.service.detect.engine.DetectorEngineProvider), so a model can ship in its own jar
+//realshield.detect.engines.<image|video|audio>.name selects one provider per media type
+
+public interface DetectorEngineProvider {
+
+    //unique name, used in the configuration and in the detector version
+    String name();
+
+    //IMAGE / VIDEO / AUDIO
+    String mediaType();
+
+    String version();
+
+    //a thread safe engine is created once and shared, otherwise one instance per worker is pooled
+    boolean threadSafe();
+
+    //loads the model, called at startup only
+    DetectorEngine create() throws Exception;
+
+    static DetectorEngineProvider of(String name, String mediaType, String version, boolean threadSafe, Supplier<DetectorEngine> factory) {
+        return new DetectorEngineProvider() {
+
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public String mediaType() {
+                return mediaType;
+            }
+
+            @Override
+            public String version() {
+                return version;
+            }
+
+            @Override
+            public boolean threadSafe() {
+                return threadSafe;
+            }
+
+            @Override
+            public DetectorEngine create() {
+                return factory.get();
+            }
+        };
+    }
+}
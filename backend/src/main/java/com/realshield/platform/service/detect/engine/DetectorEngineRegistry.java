@@ -0,0 +1,205 @@
+package com.realshield.platform.service.detect.engine;
+
+import com.realshield.platform.dto.detect.DetectorEngineDTO;
+import com.realshield.platform.exception.DetectQueueFullException;
+import com.realshield.platform.service.media.MediaContext;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+//loads one DetectorEngine per media type at startup, warms it up and gives it its own bounded executor,
+//so a burst of video detections cannot hold up image detections and each type is sized on its own
+//
+//per media type (image / video / audio):
+//  realshield.detect.engines.<type>.name            provider to use, the only one registered for the type when not set
+//  realshield.detect.engines.<type>.workers         executor threads, also the number of pooled instances
+//  realshield.detect.engines.<type>.queue-capacity  detections waiting for a worker before new ones get a 503
+//warm-up runs before the web server starts, so the first requests never pay for model loading or JIT
+
+@Component
+public class DetectorEngineRegistry implements SmartInitializingSingleton, DisposableBean {
+
+    private static final List<String> MEDIA_TYPES = List.of("IMAGE", "VIDEO", "AUDIO");
+
+    private final List<DetectorEngineProvider> beanProviders;
+    private final Environment environment;
+    private final int warmupIterations;
+    private final long timeoutSeconds;
+
+    private final Map<String, LoadedEngine> engines = new LinkedHashMap<>();
+
+    public DetectorEngineRegistry(List<DetectorEngineProvider> beanProviders,
+                                  Environment environment,
+                                  @Value("${realshield.detect.engines.warmup-iterations:3}") int warmupIterations,
+                                  @Value("${realshield.detect.engines.timeout-seconds:300}") long timeoutSeconds) {
+        this.beanProviders = beanProviders;
+        this.environment = environment;
+        this.warmupIterations = warmupIterations;
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<DetectorEngineProvider> providers = new ArrayList<>(beanProviders);
+        ServiceLoader.load(DetectorEngineProvider.class).forEach(providers::add);
+
+        for (String mediaType : MEDIA_TYPES) {
+            DetectorEngineProvider provider = select(providers, mediaType);
+            engines.put(mediaType, load(provider));
+        }
+    }
+
+    //runs the file through the engine for its media type on that engine's executor and waits for the verdict
+    public DetectionVerdict detect(String mediaType, MediaContext media) {
+        LoadedEngine engine = engines.get(mediaType);
+        if (engine == null) {
+            throw new IllegalStateException("No detector engine loaded for " + mediaType);
+        }
+
+        Future<DetectionVerdict> future;
+        try {
+            future = engine.executor.submit(() -> engine.pool.detect(media));
+        } catch (TaskRejectedException e) {
+            throw new DetectQueueFullException("Too many " + mediaType.toLowerCase() + " detections are waiting, please retry later");
+        }
+
+        try {
+            DetectionVerdict verdict = future.get(timeoutSeconds, TimeUnit.SECONDS);
+            engine.detections.incrementAndGet();
+            return verdict;
+        } catch (ExecutionException e) {
+            engine.failures.incrementAndGet();
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Detection failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            engine.failures.incrementAndGet();
+            future.cancel(true);
+            throw new RuntimeException("Detection took longer than " + timeoutSeconds + " seconds");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Detection was interrupted");
+        }
+    }
+
+    //name and version of the engine behind a media type, e.g. stub-image:1
+    public String engineVersion(String mediaType) {
+        LoadedEngine engine = engines.get(mediaType);
+        return engine != null ? engine.provider.name() + ":" + engine.provider.version() : null;
+    }
+
+    public Map<String, String> engineVersions() {
+        Map<String, String> versions = new LinkedHashMap<>();
+        engines.keySet().forEach(mediaType -> versions.put(mediaType, engineVersion(mediaType)));
+        return versions;
+    }
+
+    public List<DetectorEngineDTO> describe() {
+        List<DetectorEngineDTO> result = new ArrayList<>();
+        engines.forEach((mediaType, engine) -> result.add(new DetectorEngineDTO(
+                mediaType,
+                engine.provider.name(),
+                engine.provider.version(),
+                engine.provider.threadSafe(),
+                engine.pool.size(),
+                engine.executor.getMaxPoolSize(),
+                engine.executor.getActiveCount(),
+                engine.executor.getQueueSize(),
+                engine.detections.get(),
+                engine.failures.get(),
+                engine.warmupMillis
+        )));
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        for (LoadedEngine engine : engines.values()) {
+            engine.executor.shutdown();
+            engine.pool.close();
+        }
+    }
+
+    private DetectorEngineProvider select(List<DetectorEngineProvider> providers, String mediaType) {
+        String name = property(mediaType, "name", String.class, null);
+        List<DetectorEngineProvider> candidates = providers.stream()
+                .filter(provider -> mediaType.equals(provider.mediaType()))
+                .filter(provider -> name == null || name.equals(provider.name()))
+                .toList();
+
+        if (candidates.isEmpty()) {
+            throw new IllegalStateException("No detector engine provider for " + mediaType + (name != null ? " named " + name : ""));
+        }
+        if (candidates.size() > 1) {
+            throw new IllegalStateException("Several detector engine providers for " + mediaType
+                    + ", choose one with realshield.detect.engines." + mediaType.toLowerCase() + ".name");
+        }
+        return candidates.get(0);
+    }
+
+    private LoadedEngine load(DetectorEngineProvider provider) {
+        String mediaType = provider.mediaType();
+        int defaultWorkers = "IMAGE".equals(mediaType) ? Runtime.getRuntime().availableProcessors() : 2;
+        int workers = property(mediaType, "workers", Integer.class, defaultWorkers);
+        int queueCapacity = property(mediaType, "queue-capacity", Integer.class, 100);
+
+        EnginePool pool;
+        long start = System.nanoTime();
+        try {
+            pool = EnginePool.create(provider, workers);
+            pool.warmUp(warmupIterations);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to start detector engine " + provider.name(), e);
+        }
+        long warmupMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("detect-" + mediaType.toLowerCase() + "-");
+        executor.initialize();
+
+        System.out.println("Detector engine " + provider.name() + ":" + provider.version() + " loaded for " + mediaType
+                + " (" + pool.size() + " instances, " + workers + " workers, warm-up " + warmupMillis + " ms)");
+        return new LoadedEngine(provider, pool, executor, warmupMillis);
+    }
+
+    private <T> T property(String mediaType, String key, Class<T> type, T defaultValue) {
+        return environment.getProperty("realshield.detect.engines." + mediaType.toLowerCase() + "." + key, type, defaultValue);
+    }
+
+    private static final class LoadedEngine {
+
+        private final DetectorEngineProvider provider;
+        private final EnginePool pool;
+        private final ThreadPoolTaskExecutor executor;
+        private final long warmupMillis;
+        private final AtomicLong detections = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+
+        private LoadedEngine(DetectorEngineProvider provider, EnginePool pool, ThreadPoolTaskExecutor executor, long warmupMillis) {
+            this.provider = provider;
+            this.pool = pool;
+            this.executor = executor;
+            this.warmupMillis = warmupMillis;
+        }
+    }
+}
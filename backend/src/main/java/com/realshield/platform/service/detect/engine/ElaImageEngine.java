@@ -0,0 +1,247 @@
+package com.realshield.platform.service.detect.engine;
+
+import com.realshield.platform.dto.detect.ScoreMapDTO;
+import com.realshield.platform.service.media.MediaContext;
+import com.realshield.platform.utils.ImageDecodeUtil;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+//Error Level Analysis: every tile is re-compressed as JPEG at a known quality and compared with itself
+//a region pasted in from another source (or edited after the last save) has a different compression history,
+//so its error level stands out from the rest of the image
+//
+//tiles are multiples of the 16x16 JPEG MCU and aligned to the image origin, so re-compressing a tile on its own
+//gives the same block grid as re-compressing the whole image; that makes the tiles independent and lets one large
+//image spread over every core of the ForkJoinPool
+//
+//the verdict compares the 95th percentile tile with the median tile, a signal rather than a model: it catches
+//splices in JPEGs, it says little about fully generated images
+//
+//only JPEGs are judged: anything else, a JPEG ImageIO cannot decode, and images over maxPixels (only decoded
+//subsampled, which no longer lines up with the 8x8 blocks the error levels depend on) get INCONCLUSIVE instead of
+//a verdict read from a meaningless map
+
+public class ElaImageEngine implements DetectorEngine {
+
+    private static final int MCU = 16;
+
+    public static final String INCONCLUSIVE = "INCONCLUSIVE";
+
+    //tiles handled by one task without splitting further
+    private static final int TILES_PER_TASK = 2;
+
+    private final ForkJoinPool pool;
+    private final float quality;
+    private final int tileSize;
+    private final long maxPixels;
+    private final double fakeThreshold;
+
+    //JPEG writer / reader and buffers of the ForkJoin worker thread, reused for every tile it handles
+    private final ThreadLocal<TileCodec> codecs;
+
+    public ElaImageEngine(int parallelism, int quality, int tileSize, long maxPixels, double fakeThreshold) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.quality = quality / 100f;
+        this.tileSize = Math.max(MCU, (tileSize + MCU - 1) / MCU * MCU);
+        this.maxPixels = maxPixels;
+        this.fakeThreshold = fakeThreshold;
+        this.codecs = ThreadLocal.withInitial(() -> new TileCodec(this.tileSize, this.quality));
+    }
+
+    @Override
+    public DetectionVerdict detect(MediaContext media) throws Exception {
+        //the signal is a JPEG re-compression error, PNG / WebP / other lossless inputs have no history to compare with
+        if (!"image/jpeg".equals(media.getSniffedType())) {
+            return new DetectionVerdict(INCONCLUSIVE, 0);
+        }
+
+        ImageDecodeUtil.Decoded decoded;
+        try (InputStream inputStream = media.getFile().getInputStream()) {
+            decoded = ImageDecodeUtil.decodeAtMost(inputStream, maxPixels);
+        }
+        if (decoded == null || decoded.image() == null || decoded.subsampling() > 1) {
+            return new DetectionVerdict(INCONCLUSIVE, 0);
+        }
+
+        BufferedImage image = toBgr(decoded.image());
+        int cols = (image.getWidth() + tileSize - 1) / tileSize;
+        int rows = (image.getHeight() + tileSize - 1) / tileSize;
+        float[] errors = errorLevels(image);
+
+        float[] sorted = errors.clone();
+        Arrays.sort(sorted);
+        float median = sorted[sorted.length / 2];
+        float p95 = sorted[Math.min(sorted.length - 1, (int) (sorted.length * 0.95))];
+        float max = sorted[sorted.length - 1];
+
+        float[][] scores = new float[rows][];
+        for (int row = 0; row < rows; row++) {
+            scores[row] = Arrays.copyOfRange(errors, row * cols, (row + 1) * cols);
+        }
+        ScoreMapDTO scoreMap = new ScoreMapDTO("ELA", tileSize, decoded.subsampling(), rows, cols, scores, median, max);
+
+        //how far the worst regions stand out from a typical region, +1 keeps flat images from dividing by ~0
+        double inconsistency = (p95 - median) / (median + 1.0);
+        boolean fake = inconsistency > fakeThreshold;
+        double confidence = 50 + 49 * Math.min(1, Math.abs(inconsistency - fakeThreshold) / fakeThreshold);
+        return new DetectionVerdict(fake ? "FAKE" : "REAL", Math.round(confidence * 10) / 10.0, scoreMap);
+    }
+
+    //mean absolute error of every tile after re-compression, row major
+    public float[] errorLevels(BufferedImage image) {
+        int cols = (image.getWidth() + tileSize - 1) / tileSize;
+        int rows = (image.getHeight() + tileSize - 1) / tileSize;
+        float[] errors = new float[rows * cols];
+        try {
+            pool.invoke(new TileTask(image, errors, cols, 0, errors.length));
+        } catch (UncheckedIOException e) {
+            throw new IllegalStateException("Error level analysis failed", e.getCause());
+        }
+        return errors;
+    }
+
+    @Override
+    public void warmUp() {
+        BufferedImage image = new BufferedImage(1024, 768, BufferedImage.TYPE_3BYTE_BGR);
+        Random random = new Random(42);
+        for (int y = 0; y < image.getHeight(); y += 4) {
+            for (int x = 0; x < image.getWidth(); x += 4) {
+                image.setRGB(x, y, random.nextInt(0xFFFFFF));
+            }
+        }
+        errorLevels(image);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    //the JPEG writer only takes images without alpha, PNGs and indexed images are redrawn once
+    private static BufferedImage toBgr(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_3BYTE_BGR || image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+        BufferedImage bgr = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D graphics = bgr.createGraphics();
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        return bgr;
+    }
+
+    private final class TileTask extends RecursiveAction {
+
+        private final BufferedImage image;
+        private final float[] errors;
+        private final int cols;
+        private final int from;
+        private final int to;
+
+        private TileTask(BufferedImage image, float[] errors, int cols, int from, int to) {
+            this.image = image;
+            this.errors = errors;
+            this.cols = cols;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TILES_PER_TASK) {
+                TileCodec codec = codecs.get();
+                for (int tile = from; tile < to; tile++) {
+                    int x = (tile % cols) * tileSize;
+                    int y = (tile / cols) * tileSize;
+                    try {
+                        errors[tile] = codec.errorLevel(image, x, y,
+                                Math.min(tileSize, image.getWidth() - x), Math.min(tileSize, image.getHeight() - y));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new TileTask(image, errors, cols, from, middle), new TileTask(image, errors, cols, middle, to));
+        }
+    }
+
+    private static final class TileCodec {
+
+        private final ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        private final ImageReader reader = ImageIO.getImageReadersByFormatName("jpeg").next();
+        private final ImageWriteParam param;
+        private final Buffer buffer;
+        private final int[] original;
+        private final int[] recompressed;
+
+        private TileCodec(int tileSize, float quality) {
+            this.param = writer.getDefaultWriteParam();
+            this.param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            this.param.setCompressionQuality(quality);
+            this.buffer = new Buffer(tileSize * tileSize);
+            this.original = new int[tileSize];
+            this.recompressed = new int[tileSize];
+        }
+
+        private float errorLevel(BufferedImage image, int x, int y, int width, int height) throws IOException {
+            BufferedImage tile = image.getSubimage(x, y, width, height);
+
+            buffer.reset();
+            try (ImageOutputStream output = new MemoryCacheImageOutputStream(buffer)) {
+                writer.setOutput(output);
+                writer.write(null, new IIOImage(tile, null, null), param);
+            }
+
+            BufferedImage decoded;
+            try (MemoryCacheImageInputStream input = new MemoryCacheImageInputStream(buffer.asInputStream())) {
+                reader.setInput(input, true, true);
+                decoded = reader.read(0);
+            }
+
+            long sum = 0;
+            for (int row = 0; row < height; row++) {
+                tile.getRGB(0, row, width, 1, original, 0, width);
+                decoded.getRGB(0, row, width, 1, recompressed, 0, width);
+                for (int col = 0; col < width; col++) {
+                    int a = original[col];
+                    int b = recompressed[col];
+                    sum += Math.abs(((a >> 16) & 0xff) - ((b >> 16) & 0xff))
+                            + Math.abs(((a >> 8) & 0xff) - ((b >> 8) & 0xff))
+                            + Math.abs((a & 0xff) - (b & 0xff));
+                }
+            }
+            return sum / (3f * width * height);
+        }
+    }
+
+    //ByteArrayOutputStream that can be read back without copying its array
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        private Buffer(int size) {
+            super(size);
+        }
+
+        private InputStream asInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.realshield.platform.service.detect.engine;
+
+import com.realshield.platform.service.media.MediaContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+//the instances of one engine: a single shared one when the provider is thread safe,
+//otherwise one per worker thread, borrowed for the length of one detection
+
+final class EnginePool implements AutoCloseable {
+
+    private final List<DetectorEngine> instances;
+    private final BlockingQueue<DetectorEngine> idle;
+    private final DetectorEngine shared;
+
+    private EnginePool(List<DetectorEngine> instances, boolean threadSafe) {
+        this.instances = instances;
+        this.shared = threadSafe ? instances.get(0) : null;
+        this.idle = threadSafe ? null : new ArrayBlockingQueue<>(instances.size(), false, instances);
+    }
+
+    static EnginePool create(DetectorEngineProvider provider, int workers) throws Exception {
+        int size = provider.threadSafe() ? 1 : workers;
+        List<DetectorEngine> instances = new ArrayList<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                instances.add(provider.create());
+            }
+        } catch (Exception e) {
+            for (DetectorEngine instance : instances) {
+                closeQuietly(instance);
+            }
+            throw e;
+        }
+        return new EnginePool(List.copyOf(instances), provider.threadSafe());
+    }
+
+    //the executor has as many threads as there are instances, so take() only waits while another thread hands one back
+    DetectionVerdict detect(MediaContext media) throws Exception {
+        if (shared != null) {
+            return shared.detect(media);
+        }
+        DetectorEngine engine = idle.take();
+        try {
+            return engine.detect(media);
+        } finally {
+            idle.offer(engine);
+        }
+    }
+
+    void warmUp(int iterations) throws Exception {
+        for (DetectorEngine instance : instances) {
+            for (int i = 0; i < iterations; i++) {
+                instance.warmUp();
+            }
+        }
+    }
+
+    int size() {
+        return instances.size();
+    }
+
+    @Override
+    public void close() {
+        for (DetectorEngine instance : instances) {
+            closeQuietly(instance);
+        }
+    }
+
+    private static void closeQuietly(DetectorEngine engine) {
+        try {
+            engine.close();
+        } catch (Exception ignored) {
+        }
+    }
+}
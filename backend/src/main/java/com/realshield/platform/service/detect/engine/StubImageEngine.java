@@ -0,0 +1,49 @@
+package com.realshield.platform.service.detect.engine;
+
+import com.realshield.platform.service.media.MediaContext;
+import com.realshield.platform.service.media.image.ImageTensor;
+import com.realshield.platform.service.media.image.ImageTensorDecoder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Random;
+
+//placeholder image detector: builds the model input a real detector would get (subsampled decode into a pooled
+//tensor) and returns the verdict the service has always returned until a model is wired in
+
+public class StubImageEngine implements DetectorEngine {
+
+    private final ImageTensorDecoder decoder;
+
+    public StubImageEngine(ImageTensorDecoder decoder) {
+        this.decoder = decoder;
+    }
+
+    @Override
+    public DetectionVerdict detect(MediaContext media) throws Exception {
+        //the tensor is what a model would score, until one is wired in it is only decoded and returned to the pool
+        try (InputStream inputStream = media.getFile().getInputStream();
+             ImageTensor tensor = decoder.decode(inputStream)) {
+        }
+        return new DetectionVerdict("FAKE", 91.5);
+    }
+
+    //decodes a generated 12 MP JPEG, so the JPEG reader and the resampling loop are compiled before the first upload
+    @Override
+    public void warmUp() throws Exception {
+        BufferedImage image = new BufferedImage(4000, 3000, BufferedImage.TYPE_3BYTE_BGR);
+        Random random = new Random(42);
+        for (int y = 0; y < image.getHeight(); y += 8) {
+            image.setRGB(0, y, random.nextInt(0xFFFFFF));
+        }
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", jpeg);
+
+        try (ImageTensor ignored = decoder.decode(new ByteArrayInputStream(jpeg.toByteArray()))) {
+            //only the decode matters
+        }
+    }
+}
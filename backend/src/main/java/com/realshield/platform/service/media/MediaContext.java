@@ -0,0 +1,207 @@
+package com.realshield.platform.service.media;
+
+import com.realshield.platform.model.MediaAnalysis;
+import com.realshield.platform.service.verify.ChunkManifest;
+import com.realshield.platform.utils.FileHashUtil;
+import com.realshield.platform.utils.FileValidationUtil;
+import com.realshield.platform.utils.PerceptualHashUtil;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+//one MediaContext exists per uploaded file per request
+//detect, verify and the MediaAnalysis builder all read the hash, size and type from here
+//every value is computed the first time it is asked for and then reused, so the upload is hashed only once
+
+public class MediaContext {
+
+    private static final String ATTRIBUTE_PREFIX = MediaContext.class.getName() + ".";
+
+    private final MultipartFile file;
+
+    //each value has its own lock, so hashing and perceptual hashing can run at the same time
+    private final Memo<String> sha256 = new Memo<>();
+    private final Memo<String> sniffedType = new Memo<>();
+    private final Memo<Long> perceptualHash = new Memo<>();
+    private final Memo<ChunkManifest> chunkManifest = new Memo<>();
+
+    private MediaContext(MultipartFile file) {
+        this.file = file;
+    }
+
+    //returns the context already bound to this upload in the current request, or creates it
+    //outside of a request (background jobs) a fresh context is returned
+    public static MediaContext of(MultipartFile file) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return new MediaContext(file);
+        }
+
+        String key = ATTRIBUTE_PREFIX + System.identityHashCode(file);
+        Object existing = attributes.getAttribute(key, RequestAttributes.SCOPE_REQUEST);
+        if (existing instanceof MediaContext context && context.file == file) {
+            return context;
+        }
+
+        MediaContext context = new MediaContext(file);
+        attributes.setAttribute(key, context, RequestAttributes.SCOPE_REQUEST);
+        return context;
+    }
+
+    //context over a file we own on disk, the hash is read through the memory mapped path
+    public static MediaContext of(Path path, String fileName, String contentType) {
+        return new MediaContext(new PathMultipartFile(path, fileName, contentType));
+    }
+
+    //context over a file whose SHA-256 was already computed while it was being written
+    public static MediaContext of(Path path, String fileName, String contentType, String sha256) {
+        MediaContext context = of(path, fileName, contentType);
+        context.sha256.set(sha256);
+        return context;
+    }
+
+    public MultipartFile getFile() {
+        return file;
+    }
+
+    public String getFileName() {
+        return file.getOriginalFilename();
+    }
+
+    //content type sent by the client, not trusted for anything but display
+    public String getDeclaredContentType() {
+        return file.getContentType();
+    }
+
+    public long getSize() {
+        return file.getSize();
+    }
+
+    //seekable channel over the file for parsers that jump around (MP4 boxes, WAV chunks)
+    //a file we own is opened in place, an in memory or multipart upload is copied to a temp file deleted on close
+    public FileChannel openChannel() throws IOException {
+        if (file instanceof PathMultipartFile pathFile) {
+            return FileChannel.open(pathFile.getPath(), StandardOpenOption.READ);
+        }
+        Path copy = Files.createTempFile("realshield-media-", ".tmp");
+        try (InputStream inputStream = file.getInputStream()) {
+            Files.copy(inputStream, copy, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(copy);
+            throw e;
+        }
+        return FileChannel.open(copy, StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE);
+    }
+
+    public String getSha256() {
+        return sha256.get(() -> file instanceof PathMultipartFile pathFile
+                ? FileHashUtil.generateSHA256(pathFile.getPath())
+                : FileHashUtil.generateSHA256(file));
+    }
+
+    //the SHA-256 if it has already been computed, null otherwise (also while another stage is still hashing);
+    //never reads the file and never waits
+    public String getKnownSha256() {
+        return sha256.peek();
+    }
+
+    //Merkle chunk manifest for matching clips of trusted originals
+    //built in the same pass as the SHA-256 when the hash has not been asked for yet, so callers that need both
+    //(source verification, registering an original) should ask for the manifest first
+    public ChunkManifest getChunkManifest() {
+        return chunkManifest.get(() -> {
+            ChunkManifest[] built = new ChunkManifest[1];
+            sha256.get(() -> {
+                MessageDigest fileDigest = FileHashUtil.newSha256();
+                built[0] = buildManifest(fileDigest);
+                return FileHashUtil.toHex(fileDigest.digest());
+            });
+            return built[0] != null ? built[0] : buildManifest(null);
+        });
+    }
+
+    private ChunkManifest buildManifest(MessageDigest fileDigest) {
+        try (InputStream inputStream = file.getInputStream()) {
+            return ChunkManifest.build(inputStream, fileDigest);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the upload", e);
+        }
+    }
+
+    //content type from the magic bytes at the start of the file, null when unknown
+    //validation, detector engines and batch routing all use this instead of the declared type
+    public String getSniffedType() {
+        return sniffedType.get(() -> FileValidationUtil.sniffContentType(file));
+    }
+
+    //dHash of the decoded image, null when the file is not a decodable image
+    public Long getPerceptualHash() {
+        return perceptualHash.get(() -> {
+            try (InputStream inputStream = file.getInputStream()) {
+                return PerceptualHashUtil.dHash(inputStream);
+            } catch (Exception e) {
+                return null;
+            }
+        });
+    }
+
+    //MediaAnalysis builder with the file name, hash and time already filled in
+    public MediaAnalysis.MediaAnalysisBuilder analysisBuilder() {
+        return MediaAnalysis.builder()
+                .fileName(getFileName())
+                .fileHash(getSha256())
+                .createdAt(LocalDateTime.now());
+    }
+
+    //computes a value once, null included
+    //a ReentrantLock instead of synchronized, so a virtual thread reading the file does not pin its carrier thread
+    private static final class Memo<T> {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile boolean computed;
+        private T value;
+
+        private T get(Supplier<T> supplier) {
+            if (computed) {
+                return value;
+            }
+            lock.lock();
+            try {
+                if (!computed) {
+                    value = supplier.get();
+                    computed = true;
+                }
+                return value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private T peek() {
+            return computed ? value : null;
+        }
+
+        private void set(T known) {
+            lock.lock();
+            try {
+                value = known;
+                computed = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.realshield.platform.service.media;
+
+import com.realshield.platform.utils.FileHashUtil;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+//optional parallel tree hash (FileHashUtil.treeHash) of large files we own on disk, stored next to the plain SHA-256
+//only spooled files qualify (chunked uploads, detect jobs, batch entries), their segments are mapped straight from disk;
+//multipart uploads stay below the multipart limit and are not worth it
+
+@Component
+public class TreeHasher {
+
+    private final boolean enabled;
+    private final long minSize;
+    private final ForkJoinPool pool;
+
+    public TreeHasher(@Value("${realshield.hash.tree.enabled:false}") boolean enabled,
+                      @Value("${realshield.hash.tree.min-size-mb:256}") long minSizeMb,
+                      @Value("${realshield.hash.tree.parallelism:0}") int parallelism) {
+        this.enabled = enabled;
+        this.minSize = minSizeMb * 1024 * 1024;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    //null when the mode is off, the file is not spooled or it is too small
+    public String treeHash(MediaContext media) {
+        if (!enabled || !(media.getFile() instanceof PathMultipartFile pathFile) || pathFile.getSize() < minSize) {
+            return null;
+        }
+        try {
+            return FileHashUtil.treeHash(pathFile.getPath(), pool);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to generate tree hash");
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.shutdown();
+    }
+}
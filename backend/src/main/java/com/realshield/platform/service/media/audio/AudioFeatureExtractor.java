@@ -0,0 +1,139 @@
+package com.realshield.platform.service.media.audio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+//streaming log-mel front end for WAV files
+//PCM is read through one reused direct buffer, mixed down to mono into a float ring buffer,
+//and every hop the last window of the ring goes through Hann window -> FFT -> power -> mel filters
+//all buffers are allocated once per file and sized by the FFT, so memory does not grow with the length of the audio
+//one extractor is used by one thread at a time
+
+public final class AudioFeatureExtractor {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    @FunctionalInterface
+    public interface FeatureSink {
+        //melFrame holds the log mel energies of one frame and is overwritten by the next one, copy it to keep it
+        void accept(float[] melFrame);
+    }
+
+    private final SpectralPlan plan;
+    private final float[] ring;
+    private final int ringMask;
+    private final float[] re;
+    private final float[] im;
+    private final float[] power;
+    private final float[] mel;
+
+    private long samplesWritten;
+    private int untilNextFrame;
+    private long frames;
+
+    public AudioFeatureExtractor(SpectralPlan plan) {
+        this.plan = plan;
+        this.ring = new float[plan.getFftSize()];
+        this.ringMask = plan.getFftSize() - 1;
+        this.re = new float[plan.getFftSize()];
+        this.im = new float[plan.getFftSize()];
+        this.power = new float[plan.getFftSize() / 2 + 1];
+        this.mel = new float[plan.getMelBands()];
+    }
+
+    //reads the whole data chunk and returns the number of feature frames handed to the sink
+    public long extract(FileChannel channel, WavHeader wav, FeatureSink sink) throws IOException {
+        samplesWritten = 0;
+        untilNextFrame = 1;
+        frames = 0;
+
+        int blockAlign = wav.blockAlign();
+        int channels = wav.channels();
+        int bytesPerSample = wav.bytesPerSample();
+        boolean floating = wav.format() == WavHeader.FORMAT_IEEE_FLOAT;
+        float channelScale = 1f / channels;
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE - READ_BUFFER_SIZE % blockAlign)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        long position = wav.dataOffset();
+        long remaining = wav.dataSize() - wav.dataSize() % blockAlign;
+
+        while (remaining > 0) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), remaining));
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position + buffer.position());
+                if (read < 0) {
+                    break;
+                }
+            }
+            int length = buffer.position() - buffer.position() % blockAlign;
+            if (length == 0) {
+                break;
+            }
+            position += length;
+            remaining -= length;
+
+            for (int frameStart = 0; frameStart < length; frameStart += blockAlign) {
+                float sum = 0;
+                for (int c = 0, offset = frameStart; c < channels; c++, offset += bytesPerSample) {
+                    sum += sample(buffer, offset, bytesPerSample, floating);
+                }
+                push(sum * channelScale, sink);
+            }
+            if (length < buffer.limit()) {
+                break;
+            }
+        }
+        return frames;
+    }
+
+    private static float sample(ByteBuffer buffer, int offset, int bytesPerSample, boolean floating) {
+        switch (bytesPerSample) {
+            case 1:
+                return ((buffer.get(offset) & 0xFF) - 128) / 128f;
+            case 2:
+                return buffer.getShort(offset) / 32768f;
+            case 3:
+                int value = (buffer.get(offset) & 0xFF)
+                        | (buffer.get(offset + 1) & 0xFF) << 8
+                        | buffer.get(offset + 2) << 16;
+                return value / 8388608f;
+            default:
+                return floating ? buffer.getFloat(offset) : buffer.getInt(offset) / 2147483648f;
+        }
+    }
+
+    private void push(float sample, FeatureSink sink) {
+        ring[(int) (samplesWritten & ringMask)] = sample;
+        samplesWritten++;
+        if (samplesWritten >= plan.getWindowSize() && --untilNextFrame == 0) {
+            frame(sink);
+            untilNextFrame = plan.getHopSize();
+        }
+    }
+
+    private void frame(FeatureSink sink) {
+        int windowSize = plan.getWindowSize();
+        int fftSize = plan.getFftSize();
+        long first = samplesWritten - windowSize;
+        for (int i = 0; i < windowSize; i++) {
+            re[i] = ring[(int) ((first + i) & ringMask)] * plan.window(i);
+            im[i] = 0;
+        }
+        for (int i = windowSize; i < fftSize; i++) {
+            re[i] = 0;
+            im[i] = 0;
+        }
+
+        plan.fft(re, im);
+        for (int bin = 0; bin < power.length; bin++) {
+            power[bin] = re[bin] * re[bin] + im[bin] * im[bin];
+        }
+        plan.melBands(power, mel);
+
+        frames++;
+        sink.accept(mel);
+    }
+}
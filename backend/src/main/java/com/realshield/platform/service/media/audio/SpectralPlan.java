@@ -0,0 +1,193 @@
+package com.realshield.platform.service.media.audio;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+//everything about an STFT / mel setup that does not depend on the audio itself:
+//Hann window, FFT twiddle factors, bit reversal order and the triangular mel filters
+//plans are immutable and cached per sample rate, so every file of the same rate shares them
+//only the common rates are cached, the rate comes from the uploaded header and an open cache would grow with
+//every odd value a client sends; other rates get a plan of their own that is dropped after the file
+
+public final class SpectralPlan {
+
+    private static final Set<Integer> CACHED_RATES = Set.of(8000, 11025, 16000, 22050, 24000, 32000, 44100, 48000, 88200, 96000, 176400, 192000);
+
+    private static final Map<String, SpectralPlan> PLANS = new ConcurrentHashMap<>();
+
+    private final int sampleRate;
+    private final int fftSize;
+    private final int windowSize;
+    private final int hopSize;
+    private final int melBands;
+
+    private final float[] window;
+    private final float[] cos;
+    private final float[] sin;
+    private final int[] bitReversed;
+
+    //filter b covers bins melStart[b] .. melStart[b] + melWeights[b].length - 1
+    private final int[] melStart;
+    private final float[][] melWeights;
+
+    private SpectralPlan(int sampleRate, int windowSize, int hopSize, int melBands) {
+        this.sampleRate = sampleRate;
+        this.windowSize = windowSize;
+        this.hopSize = hopSize;
+        this.melBands = melBands;
+        this.fftSize = Integer.highestOneBit(Math.max(2, windowSize - 1)) << 1;
+
+        //periodic Hann window, zero padded up to the FFT size
+        window = new float[fftSize];
+        for (int i = 0; i < windowSize; i++) {
+            window[i] = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * i / windowSize));
+        }
+
+        int half = fftSize / 2;
+        cos = new float[half];
+        sin = new float[half];
+        for (int i = 0; i < half; i++) {
+            cos[i] = (float) Math.cos(-2 * Math.PI * i / fftSize);
+            sin[i] = (float) Math.sin(-2 * Math.PI * i / fftSize);
+        }
+
+        int bits = Integer.numberOfTrailingZeros(fftSize);
+        bitReversed = new int[fftSize];
+        for (int i = 0; i < fftSize; i++) {
+            bitReversed[i] = Integer.reverse(i) >>> (32 - bits);
+        }
+
+        //mel filters from 0 Hz to Nyquist, HTK mel scale
+        int bins = half + 1;
+        double maxMel = hzToMel(sampleRate / 2.0);
+        double[] edges = new double[melBands + 2];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = melToHz(maxMel * i / (melBands + 1)) * fftSize / sampleRate;
+        }
+        melStart = new int[melBands];
+        melWeights = new float[melBands][];
+        for (int band = 0; band < melBands; band++) {
+            double left = edges[band];
+            double center = edges[band + 1];
+            double right = edges[band + 2];
+            int start = (int) Math.ceil(left);
+            int end = Math.min(bins - 1, (int) Math.floor(right));
+            if (end < start) {
+                //narrow low bands at small FFT sizes still get the bin nearest their center
+                start = Math.min(bins - 1, (int) Math.round(center));
+                end = start;
+            }
+            float[] weights = new float[end - start + 1];
+            for (int bin = start; bin <= end; bin++) {
+                double weight = bin <= center
+                        ? (bin - left) / Math.max(center - left, 1e-9)
+                        : (right - bin) / Math.max(right - center, 1e-9);
+                weights[bin - start] = (float) Math.max(weight, start == end ? 1 : 0);
+            }
+            melStart[band] = start;
+            melWeights[band] = weights;
+        }
+    }
+
+    public static SpectralPlan of(int sampleRate, int windowMs, int hopMs, int melBands) {
+        if (!CACHED_RATES.contains(sampleRate)) {
+            return build(sampleRate, windowMs, hopMs, melBands);
+        }
+        String key = sampleRate + "/" + windowMs + "/" + hopMs + "/" + melBands;
+        return PLANS.computeIfAbsent(key, k -> build(sampleRate, windowMs, hopMs, melBands));
+    }
+
+    private static SpectralPlan build(int sampleRate, int windowMs, int hopMs, int melBands) {
+        return new SpectralPlan(
+                sampleRate,
+                Math.max(16, sampleRate * windowMs / 1000),
+                Math.max(1, sampleRate * hopMs / 1000),
+                melBands
+        );
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getFftSize() {
+        return fftSize;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public int getHopSize() {
+        return hopSize;
+    }
+
+    public int getMelBands() {
+        return melBands;
+    }
+
+    //seconds between two feature frames
+    public double getHopSeconds() {
+        return hopSize / (double) sampleRate;
+    }
+
+    //in place iterative radix-2 FFT, re / im are fftSize long
+    void fft(float[] re, float[] im) {
+        int n = fftSize;
+        for (int i = 0; i < n; i++) {
+            int j = bitReversed[i];
+            if (j > i) {
+                float t = re[i];
+                re[i] = re[j];
+                re[j] = t;
+                t = im[i];
+                im[i] = im[j];
+                im[j] = t;
+            }
+        }
+        for (int size = 2; size <= n; size <<= 1) {
+            int halfSize = size >> 1;
+            int step = n / size;
+            for (int start = 0; start < n; start += size) {
+                for (int k = 0, t = 0; k < halfSize; k++, t += step) {
+                    int even = start + k;
+                    int odd = even + halfSize;
+                    float wr = cos[t];
+                    float wi = sin[t];
+                    float xr = re[odd] * wr - im[odd] * wi;
+                    float xi = re[odd] * wi + im[odd] * wr;
+                    re[odd] = re[even] - xr;
+                    im[odd] = im[even] - xi;
+                    re[even] += xr;
+                    im[even] += xi;
+                }
+            }
+        }
+    }
+
+    float window(int index) {
+        return window[index];
+    }
+
+    //log mel energies of a power spectrum (fftSize / 2 + 1 bins) written into mel
+    void melBands(float[] power, float[] mel) {
+        for (int band = 0; band < melBands; band++) {
+            float[] weights = melWeights[band];
+            int start = melStart[band];
+            float energy = 0;
+            for (int i = 0; i < weights.length; i++) {
+                energy += weights[i] * power[start + i];
+            }
+            mel[band] = (float) Math.log(energy + 1e-10f);
+        }
+    }
+
+    private static double hzToMel(double hz) {
+        return 2595 * Math.log10(1 + hz / 700);
+    }
+
+    private static double melToHz(double mel) {
+        return 700 * (Math.pow(10, mel / 2595) - 1);
+    }
+}
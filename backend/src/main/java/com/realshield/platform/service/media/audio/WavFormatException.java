@@ -0,0 +1,10 @@
+package com.realshield.platform.service.media.audio;
+
+import java.io.IOException;
+
+//the file is not a WAV file we can decode
+public class WavFormatException extends IOException {
+    public WavFormatException(String message) {
+        super(message);
+    }
+}
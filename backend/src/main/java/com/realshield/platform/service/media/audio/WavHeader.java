@@ -0,0 +1,118 @@
+package com.realshield.platform.service.media.audio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+//fmt and data chunk of a RIFF/WAVE file, read with positioned reads so LIST / fact / junk chunks are skipped, not read
+//supports integer PCM (8, 16, 24, 32 bit) and 32 bit IEEE float, also when wrapped in WAVE_FORMAT_EXTENSIBLE
+
+public record WavHeader(int format, int channels, int sampleRate, int bitsPerSample, int blockAlign, long dataOffset, long dataSize) {
+
+    public static final int FORMAT_PCM = 1;
+    public static final int FORMAT_IEEE_FLOAT = 3;
+    private static final int FORMAT_EXTENSIBLE = 0xFFFE;
+
+    //well above any real recording (384 kHz is the highest rate studio gear writes), anything past it is a crafted header
+    public static final int MAX_SAMPLE_RATE = 384_000;
+
+    public static WavHeader read(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+
+        readFully(channel, header.clear().limit(12), 0);
+        if (!"RIFF".equals(fourCC(header, 0)) || !"WAVE".equals(fourCC(header, 8))) {
+            throw new WavFormatException("Not a RIFF/WAVE file");
+        }
+
+        int format = -1;
+        int channels = 0;
+        int sampleRate = 0;
+        int bitsPerSample = 0;
+        int blockAlign = 0;
+        long position = 12;
+        while (position + 8 <= fileSize) {
+            readFully(channel, header.clear().limit(8), position);
+            String id = fourCC(header, 0);
+            long size = header.getInt(4) & 0xFFFFFFFFL;
+            long body = position + 8;
+
+            if ("fmt ".equals(id)) {
+                if (size < 16) {
+                    throw new WavFormatException("fmt chunk is too short");
+                }
+                readFully(channel, header.clear().limit((int) Math.min(size, 40)), body);
+                format = header.getShort(0) & 0xFFFF;
+                channels = header.getShort(2) & 0xFFFF;
+                sampleRate = header.getInt(4);
+                blockAlign = header.getShort(12) & 0xFFFF;
+                bitsPerSample = header.getShort(14) & 0xFFFF;
+                //the real format is the first two bytes of the SubFormat GUID
+                if (format == FORMAT_EXTENSIBLE && size >= 40) {
+                    format = header.getShort(24) & 0xFFFF;
+                }
+            } else if ("data".equals(id)) {
+                if (format < 0) {
+                    throw new WavFormatException("data chunk before fmt chunk");
+                }
+                //streamed recordings leave the size at 0 or 0xFFFFFFFF, the data then runs to the end of the file
+                long dataSize = size == 0 || body + size > fileSize ? fileSize - body : size;
+                WavHeader wav = new WavHeader(format, channels, sampleRate, bitsPerSample, blockAlign, body, dataSize);
+                wav.validate();
+                return wav;
+            }
+            //chunks are padded to an even size
+            position = body + size + (size & 1);
+        }
+        throw new WavFormatException("WAV file has no data chunk");
+    }
+
+    public int bytesPerSample() {
+        return bitsPerSample / 8;
+    }
+
+    public long frameCount() {
+        return dataSize / blockAlign;
+    }
+
+    public double durationSeconds() {
+        return sampleRate > 0 ? frameCount() / (double) sampleRate : 0;
+    }
+
+    private void validate() throws WavFormatException {
+        if (format != FORMAT_PCM && format != FORMAT_IEEE_FLOAT) {
+            throw new WavFormatException("Unsupported WAV encoding " + format + ", only PCM and IEEE float are read");
+        }
+        boolean supportedBits = format == FORMAT_PCM
+                ? bitsPerSample == 8 || bitsPerSample == 16 || bitsPerSample == 24 || bitsPerSample == 32
+                : bitsPerSample == 32;
+        if (!supportedBits) {
+            throw new WavFormatException("Unsupported WAV sample size of " + bitsPerSample + " bits");
+        }
+        if (sampleRate > MAX_SAMPLE_RATE) {
+            throw new WavFormatException("Unsupported WAV sample rate of " + sampleRate + " Hz");
+        }
+        if (channels < 1 || sampleRate < 1000 || blockAlign != channels * bytesPerSample()) {
+            throw new WavFormatException("Inconsistent WAV fmt chunk");
+        }
+    }
+
+    private static String fourCC(ByteBuffer buffer, int offset) {
+        char[] chars = new char[4];
+        for (int i = 0; i < 4; i++) {
+            chars[i] = (char) (buffer.get(offset + i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new WavFormatException("Unexpected end of file at offset " + position);
+            }
+            position += read;
+        }
+    }
+}
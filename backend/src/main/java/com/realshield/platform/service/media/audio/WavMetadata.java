@@ -0,0 +1,146 @@
+package com.realshield.platform.service.media.audio;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//descriptive metadata of a RIFF/WAVE file, read from a stream in one pass
+//chunks are skipped by size, so the sample data is never read; only LIST/INFO and bext (Broadcast WAV) are read
+//
+//values come back under display names:
+//  INFO: Software (ISFT), Title (INAM), Artist (IART), Creation Date (ICRD), Comment (ICMT), Engineer (IENG) ...
+//  bext: Description, Originator (the recorder or software that made the file), Origination Date
+//other INFO ids keep their four character code
+
+public final class WavMetadata {
+
+    //LIST / bext chunks larger than this are not metadata we want to hold in memory
+    private static final long MAX_METADATA_CHUNK = 1024 * 1024;
+
+    private static final Map<String, String> INFO_NAMES = Map.ofEntries(
+            Map.entry("ISFT", "Software"),
+            Map.entry("INAM", "Title"),
+            Map.entry("IART", "Artist"),
+            Map.entry("ICRD", "Creation Date"),
+            Map.entry("ICMT", "Comment"),
+            Map.entry("IENG", "Engineer"),
+            Map.entry("ITCH", "Technician"),
+            Map.entry("ICOP", "Copyright"),
+            Map.entry("IPRD", "Product"),
+            Map.entry("IGNR", "Genre"),
+            Map.entry("ISRC", "Source")
+    );
+
+    private WavMetadata() {
+    }
+
+    public static Map<String, String> read(InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(inputStream);
+        ByteBuffer header = ByteBuffer.wrap(input.readNBytes(12)).order(ByteOrder.LITTLE_ENDIAN);
+        if (header.limit() < 12 || !"RIFF".equals(fourCC(header, 0)) || !"WAVE".equals(fourCC(header, 8))) {
+            throw new WavFormatException("Not a RIFF/WAVE file");
+        }
+
+        Map<String, String> tags = new LinkedHashMap<>();
+        while (true) {
+            byte[] chunkHeader = input.readNBytes(8);
+            if (chunkHeader.length < 8) {
+                break;
+            }
+            ByteBuffer chunk = ByteBuffer.wrap(chunkHeader).order(ByteOrder.LITTLE_ENDIAN);
+            String id = fourCC(chunk, 0);
+            long size = chunk.getInt(4) & 0xFFFFFFFFL;
+            //chunks are padded to an even size
+            long padded = size + (size & 1);
+
+            boolean metadataChunk = "LIST".equals(id) || "bext".equals(id);
+            if (metadataChunk && size <= MAX_METADATA_CHUNK) {
+                byte[] body = new byte[(int) size];
+                input.readFully(body);
+                skip(input, padded - size);
+                if ("LIST".equals(id)) {
+                    readList(ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN), tags);
+                } else {
+                    readBext(ByteBuffer.wrap(body), tags);
+                }
+            } else if ("data".equals(id) && (size == 0 || size == 0xFFFFFFFFL)) {
+                //a streamed recording without a real size, the data runs to the end of the file
+                break;
+            } else if (!skip(input, padded)) {
+                break;
+            }
+        }
+        return tags;
+    }
+
+    //LIST: list type, then sub chunks of id(4) size(4) zero terminated text
+    private static void readList(ByteBuffer list, Map<String, String> tags) {
+        if (list.limit() < 4 || !"INFO".equals(fourCC(list, 0))) {
+            return;
+        }
+        int position = 4;
+        while (position + 8 <= list.limit()) {
+            String id = fourCC(list, position);
+            long size = list.getInt(position + 4) & 0xFFFFFFFFL;
+            if (position + 8 + size > list.limit()) {
+                break;
+            }
+            put(tags, INFO_NAMES.getOrDefault(id, id), text(list, position + 8, (int) size));
+            position += 8 + (int) (size + (size & 1));
+        }
+    }
+
+    //bext: Description(256) Originator(32) OriginatorReference(32) OriginationDate(10) OriginationTime(8) ...
+    private static void readBext(ByteBuffer bext, Map<String, String> tags) {
+        if (bext.limit() < 338) {
+            return;
+        }
+        put(tags, "Description", text(bext, 0, 256));
+        put(tags, "Originator", text(bext, 256, 32));
+        String date = text(bext, 320, 10).trim();
+        String time = text(bext, 330, 8).trim();
+        put(tags, "Origination Date", time.isEmpty() ? date : date + " " + time);
+    }
+
+    private static void put(Map<String, String> tags, String key, String value) {
+        String trimmed = value.trim();
+        if (!trimmed.isEmpty()) {
+            tags.putIfAbsent(key, trimmed);
+        }
+    }
+
+    private static String text(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        int end = 0;
+        while (end < length && bytes[end] != 0) {
+            end++;
+        }
+        return new String(bytes, 0, end, StandardCharsets.UTF_8);
+    }
+
+    private static String fourCC(ByteBuffer buffer, int offset) {
+        char[] chars = new char[4];
+        for (int i = 0; i < 4; i++) {
+            chars[i] = (char) (buffer.get(offset + i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    //skip() on a file backed stream moves the file position, the sample data is not read
+    //false when the file ends inside the chunk (a truncated upload still gives the chunks before it)
+    private static boolean skip(DataInputStream input, long bytes) throws IOException {
+        try {
+            input.skipNBytes(bytes);
+            return true;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.realshield.platform.service.media.image;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+//bounded pool of equally sized float arrays
+//acquire never waits: when the pool is empty a new array is made, release drops arrays the pool has no room for
+
+public final class FloatBufferPool {
+
+    private final int length;
+    private final BlockingQueue<float[]> free;
+
+    public FloatBufferPool(int length, int capacity) {
+        this.length = length;
+        this.free = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    }
+
+    public float[] acquire() {
+        float[] buffer = free.poll();
+        return buffer != null ? buffer : new float[length];
+    }
+
+    public void release(float[] buffer) {
+        if (buffer != null && buffer.length == length) {
+            free.offer(buffer);
+        }
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int available() {
+        return free.size();
+    }
+}
@@ -0,0 +1,63 @@
+package com.realshield.platform.service.media.image;
+
+//normalized RGB input for an image model, channel first: data[c * height * width + y * width + x] in [0, 1]
+//data comes from a pool, close() hands it back, so the tensor must not be used after that
+
+public final class ImageTensor implements AutoCloseable {
+
+    private final float[] data;
+    private final int width;
+    private final int height;
+    private final int sourceWidth;
+    private final int sourceHeight;
+    private final int subsampling;
+    private final FloatBufferPool pool;
+    private boolean closed;
+
+    ImageTensor(float[] data, int width, int height, int sourceWidth, int sourceHeight, int subsampling, FloatBufferPool pool) {
+        this.data = data;
+        this.width = width;
+        this.height = height;
+        this.sourceWidth = sourceWidth;
+        this.sourceHeight = sourceHeight;
+        this.subsampling = subsampling;
+        this.pool = pool;
+    }
+
+    public float[] getData() {
+        if (closed) {
+            throw new IllegalStateException("Tensor was already released");
+        }
+        return data;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    //size of the image in the file
+    public int getSourceWidth() {
+        return sourceWidth;
+    }
+
+    public int getSourceHeight() {
+        return sourceHeight;
+    }
+
+    //1 = every pixel decoded, n = every n-th pixel in each direction
+    public int getSubsampling() {
+        return subsampling;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            pool.release(data);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.realshield.platform.service.media.image;
+
+import com.realshield.platform.utils.ImageDecodeUtil;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.io.InputStream;
+
+//header -> subsampled decode -> area average into a pooled width x height RGB tensor
+//the subsampled image is at most about twice the target size per side, so the decode stays small whatever the
+//resolution of the upload; that BufferedImage is still allocated by ImageIO on every decode, only the tensor
+//arrays are pooled. colour images are averaged straight from the raster bytes, other layouts go through getRGB
+//thread safe, one decoder is shared by all detections of the same input size
+
+public final class ImageTensorDecoder {
+
+    private final int width;
+    private final int height;
+    private final FloatBufferPool pool;
+
+    public ImageTensorDecoder(int width, int height, int pooledBuffers) {
+        this.width = width;
+        this.height = height;
+        this.pool = new FloatBufferPool(3 * width * height, pooledBuffers);
+    }
+
+    //null when the format has no ImageIO reader (webp without a plugin, for example)
+    public ImageTensor decode(InputStream inputStream) throws IOException {
+        ImageDecodeUtil.Decoded decoded = ImageDecodeUtil.decode(inputStream, width, height);
+        if (decoded == null) {
+            return null;
+        }
+
+        float[] data = pool.acquire();
+        try {
+            resample(decoded.image(), data);
+        } catch (RuntimeException e) {
+            pool.release(data);
+            throw e;
+        }
+        return new ImageTensor(data, width, height, decoded.sourceWidth(), decoded.sourceHeight(), decoded.subsampling(), pool);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    //every target pixel is the average of the source pixels it covers (at least one, so small images are upscaled)
+    //each source row is read once
+    private void resample(BufferedImage image, float[] data) {
+        int sourceWidth = image.getWidth();
+        int sourceHeight = image.getHeight();
+        int plane = width * height;
+
+        //8 bit interleaved sRGB (what the JPEG and PNG readers return for colour images) is read from the bytes
+        //of the raster, without a ColorModel call per pixel; anything else is converted a row at a time by getRGB
+        Raster raster = image.getRaster();
+        boolean direct = isInterleavedSrgb(image);
+        byte[] bytes = null;
+        int pixelStride = 0;
+        int scanlineStride = 0;
+        int red = 0;
+        int green = 0;
+        int blue = 0;
+        int[] row = null;
+        if (direct) {
+            PixelInterleavedSampleModel sampleModel = (PixelInterleavedSampleModel) raster.getSampleModel();
+            bytes = ((DataBufferByte) raster.getDataBuffer()).getData();
+            pixelStride = sampleModel.getPixelStride();
+            scanlineStride = sampleModel.getScanlineStride();
+            int origin = raster.getDataBuffer().getOffset()
+                    - raster.getSampleModelTranslateY() * scanlineStride - raster.getSampleModelTranslateX() * pixelStride;
+            int[] bandOffsets = sampleModel.getBandOffsets();
+            red = origin + bandOffsets[0];
+            green = origin + bandOffsets[1];
+            blue = origin + bandOffsets[2];
+        } else {
+            row = new int[sourceWidth];
+        }
+
+        for (int ty = 0; ty < height; ty++) {
+            int y0 = (int) ((long) ty * sourceHeight / height);
+            int y1 = Math.max(y0 + 1, (int) ((long) (ty + 1) * sourceHeight / height));
+            int target = ty * width;
+
+            for (int tx = 0; tx < width; tx++) {
+                data[target + tx] = 0;
+                data[plane + target + tx] = 0;
+                data[2 * plane + target + tx] = 0;
+            }
+            for (int y = y0; y < y1; y++) {
+                int line = y * scanlineStride;
+                if (!direct) {
+                    image.getRGB(0, y, sourceWidth, 1, row, 0, sourceWidth);
+                }
+                for (int tx = 0; tx < width; tx++) {
+                    int x0 = (int) ((long) tx * sourceWidth / width);
+                    int x1 = Math.max(x0 + 1, (int) ((long) (tx + 1) * sourceWidth / width));
+                    int r = 0;
+                    int g = 0;
+                    int b = 0;
+                    if (direct) {
+                        for (int x = x0, pixel = line + x0 * pixelStride; x < x1; x++, pixel += pixelStride) {
+                            r += bytes[red + pixel] & 0xff;
+                            g += bytes[green + pixel] & 0xff;
+                            b += bytes[blue + pixel] & 0xff;
+                        }
+                    } else {
+                        for (int x = x0; x < x1; x++) {
+                            int rgb = row[x];
+                            r += (rgb >> 16) & 0xff;
+                            g += (rgb >> 8) & 0xff;
+                            b += rgb & 0xff;
+                        }
+                    }
+                    data[target + tx] += r;
+                    data[plane + target + tx] += g;
+                    data[2 * plane + target + tx] += b;
+                }
+            }
+
+            for (int tx = 0; tx < width; tx++) {
+                int x0 = (int) ((long) tx * sourceWidth / width);
+                int x1 = Math.max(x0 + 1, (int) ((long) (tx + 1) * sourceWidth / width));
+                float scale = 1f / (255f * (x1 - x0) * (y1 - y0));
+                data[target + tx] *= scale;
+                data[plane + target + tx] *= scale;
+                data[2 * plane + target + tx] *= scale;
+            }
+        }
+    }
+
+    //bands 0 - 2 are R, G, B bytes that getRGB would return unchanged (alpha, if any, is ignored by both)
+    private static boolean isInterleavedSrgb(BufferedImage image) {
+        ColorModel colorModel = image.getColorModel();
+        Raster raster = image.getRaster();
+        return colorModel instanceof ComponentColorModel
+                && colorModel.getColorSpace().isCS_sRGB()
+                && !colorModel.isAlphaPremultiplied()
+                && colorModel.getNumColorComponents() == 3
+                && raster.getSampleModel() instanceof PixelInterleavedSampleModel
+                && raster.getDataBuffer() instanceof DataBufferByte;
+    }
+}
@@ -0,0 +1,54 @@
+package com.realshield.platform.service.media.mp4;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+//reads sampled sync frames (keyframes) of a video track with positioned FileChannel reads
+//one buffer sized for the largest selected frame is reused for every frame, the consumer must not keep it
+
+public final class KeyframeReader {
+
+    //a single frame larger than this is treated as a corrupt size
+    private static final int MAX_FRAME_SIZE = 64 * 1024 * 1024;
+
+    private KeyframeReader() {
+    }
+
+    @FunctionalInterface
+    public interface FrameConsumer {
+        //buffer holds exactly the frame bytes (position 0, limit = size) and is only valid during the call
+        void accept(SampleRange range, ByteBuffer frame) throws IOException;
+    }
+
+    //returns the number of bytes read
+    public static long read(FileChannel channel, List<SampleRange> ranges, FrameConsumer consumer) throws IOException {
+        int largest = 0;
+        long fileSize = channel.size();
+        for (SampleRange range : ranges) {
+            if (range.size() < 0 || range.size() > MAX_FRAME_SIZE || range.offset() + range.size() > fileSize) {
+                throw new Mp4FormatException("Sample " + range.sampleNumber() + " points outside the file");
+            }
+            largest = Math.max(largest, range.size());
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(largest, 1));
+        long bytesRead = 0;
+        for (SampleRange range : ranges) {
+            buffer.clear().limit(range.size());
+            long position = range.offset();
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new Mp4FormatException("Unexpected end of file in sample " + range.sampleNumber());
+                }
+                position += read;
+            }
+            bytesRead += range.size();
+            buffer.flip();
+            consumer.accept(range, buffer);
+        }
+        return bytesRead;
+    }
+}
@@ -0,0 +1,10 @@
+package com.realshield.platform.service.media.mp4;
+
+import java.io.IOException;
+
+//the file is not an ISO-BMFF (MP4 / QuickTime) file we can index
+public class Mp4FormatException extends IOException {
+    public Mp4FormatException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,310 @@
+package com.realshield.platform.service.media.mp4;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+//box index of an ISO-BMFF file (MP4 / M4V / MOV) built with positioned reads on a FileChannel
+//only box headers and the moov/trak/mdia/minf/stbl sample tables are read, mdat is skipped by seeking,
+//so indexing a multi-GB file reads a few hundred KB no matter where moov sits
+//
+//tables used per track: stss (sync samples), stsc (samples per chunk), stsz (sample sizes), stco / co64 (chunk offsets)
+//fragmented files (moof) and stz2 are not supported
+
+public final class Mp4Index {
+
+    private static final int HEADER_SIZE = 8;
+
+    //sample tables larger than this are treated as a corrupt file rather than allocated
+    private static final long MAX_TABLE_SIZE = 256L * 1024 * 1024;
+
+    private final long fileSize;
+    private final List<Mp4Track> tracks;
+    private final long bytesRead;
+
+    private Mp4Index(long fileSize, List<Mp4Track> tracks, long bytesRead) {
+        this.fileSize = fileSize;
+        this.tracks = tracks;
+        this.bytesRead = bytesRead;
+    }
+
+    public static Mp4Index read(FileChannel channel) throws IOException {
+        Reader reader = new Reader(channel);
+        long fileSize = channel.size();
+
+        List<Mp4Track> tracks = new ArrayList<>();
+        boolean moovFound = false;
+        boolean ftypFound = false;
+        long position = 0;
+        while (position + HEADER_SIZE <= fileSize) {
+            Box box;
+            try {
+                box = reader.box(position, fileSize);
+            } catch (Mp4FormatException e) {
+                //garbage where the first box should be is simply not an MP4 file
+                throw position == 0 ? new Mp4FormatException("Not an MP4 / QuickTime file") : e;
+            }
+            switch (box.type) {
+                case "ftyp" -> ftypFound = true;
+                case "moov" -> {
+                    moovFound = true;
+                    for (Box trak : reader.children(box, "trak")) {
+                        Mp4Track track = readTrack(reader, trak);
+                        if (track != null) {
+                            tracks.add(track);
+                        }
+                    }
+                }
+                default -> {
+                    //mdat, free, wide, uuid ... skipped without reading their body
+                }
+            }
+            position = box.end;
+        }
+
+        //old QuickTime files may start with mdat / wide instead of ftyp, moov is what matters
+        if (!moovFound) {
+            throw new Mp4FormatException(ftypFound ? "MP4 file has no moov box" : "Not an MP4 / QuickTime file");
+        }
+        return new Mp4Index(fileSize, List.copyOf(tracks), reader.bytesRead);
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public List<Mp4Track> getTracks() {
+        return tracks;
+    }
+
+    //bytes read from the file to build this index
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    //first video track, empty for audio only files
+    public Optional<Mp4Track> videoTrack() {
+        return tracks.stream().filter(Mp4Track::isVideo).findFirst();
+    }
+
+    private static Mp4Track readTrack(Reader reader, Box trak) throws IOException {
+        Box mdia = reader.child(trak, "mdia");
+        if (mdia == null) {
+            return null;
+        }
+        Box mdhd = reader.child(mdia, "mdhd");
+        Box hdlr = reader.child(mdia, "hdlr");
+        Box minf = reader.child(mdia, "minf");
+        Box stbl = minf != null ? reader.child(minf, "stbl") : null;
+        if (mdhd == null || hdlr == null || stbl == null) {
+            return null;
+        }
+
+        //mdhd: version(1) flags(3), then 32 or 64 bit creation / modification times, timescale, duration
+        //at least the 20 bytes of a version 0 header before the version byte is even read
+        ByteBuffer header = reader.body(mdhd, (int) Math.max(20, Math.min(32, mdhd.bodySize())));
+        if (header.limit() < ((header.get(0) & 0xFF) == 1 ? 32 : 20)) {
+            throw new Mp4FormatException("Box mdhd is too short");
+        }
+        int version = header.get(0) & 0xFF;
+        long timescale;
+        long duration;
+        if (version == 1) {
+            timescale = header.getInt(20) & 0xFFFFFFFFL;
+            duration = header.getLong(24);
+        } else {
+            timescale = header.getInt(12) & 0xFFFFFFFFL;
+            duration = header.getInt(16) & 0xFFFFFFFFL;
+        }
+
+        //hdlr: version / flags(4), pre_defined(4), handler_type(4)
+        String handlerType = fourCC(reader.body(hdlr, 12), 8);
+
+        int[] syncSamples = null;
+        int[] stscFirstChunk = null;
+        int[] stscSamplesPerChunk = null;
+        int constantSampleSize = 0;
+        int[] sampleSizes = null;
+        int sampleCount = 0;
+        long[] chunkOffsets = null;
+
+        for (Box box : reader.children(stbl, null)) {
+            switch (box.type) {
+                case "stss" -> {
+                    ByteBuffer body = reader.table(box);
+                    int count = entryCount(body, 4, 4, box);
+                    syncSamples = new int[count];
+                    for (int i = 0; i < count; i++) {
+                        syncSamples[i] = body.getInt(8 + i * 4);
+                    }
+                }
+                case "stsc" -> {
+                    ByteBuffer body = reader.table(box);
+                    int count = entryCount(body, 4, 12, box);
+                    stscFirstChunk = new int[count];
+                    stscSamplesPerChunk = new int[count];
+                    for (int i = 0; i < count; i++) {
+                        stscFirstChunk[i] = body.getInt(8 + i * 12);
+                        stscSamplesPerChunk[i] = body.getInt(12 + i * 12);
+                    }
+                }
+                case "stsz" -> {
+                    //a non zero sample_size means every sample has that size and no table follows
+                    ByteBuffer head = reader.body(box, 12);
+                    constantSampleSize = head.getInt(4);
+                    sampleCount = head.getInt(8);
+                    if (constantSampleSize == 0) {
+                        ByteBuffer body = reader.table(box);
+                        int count = entryCount(body, 8, 4, box);
+                        sampleSizes = new int[count];
+                        for (int i = 0; i < count; i++) {
+                            sampleSizes[i] = body.getInt(12 + i * 4);
+                        }
+                        sampleCount = count;
+                    }
+                }
+                case "stco" -> {
+                    ByteBuffer body = reader.table(box);
+                    int count = entryCount(body, 4, 4, box);
+                    chunkOffsets = new long[count];
+                    for (int i = 0; i < count; i++) {
+                        chunkOffsets[i] = body.getInt(8 + i * 4) & 0xFFFFFFFFL;
+                    }
+                }
+                case "co64" -> {
+                    ByteBuffer body = reader.table(box);
+                    int count = entryCount(body, 4, 8, box);
+                    chunkOffsets = new long[count];
+                    for (int i = 0; i < count; i++) {
+                        chunkOffsets[i] = body.getLong(8 + i * 8);
+                    }
+                }
+                case "stz2" -> throw new Mp4FormatException("Compact sample size tables (stz2) are not supported");
+                default -> {
+                }
+            }
+        }
+
+        if (stscFirstChunk == null || chunkOffsets == null || sampleCount < 0) {
+            return null;
+        }
+        return new Mp4Track(handlerType, timescale, duration, sampleCount, constantSampleSize, sampleSizes,
+                chunkOffsets, stscFirstChunk, stscSamplesPerChunk, syncSamples);
+    }
+
+    //entry_count sits after version / flags (and after sample_size for stsz), entries follow it
+    private static int entryCount(ByteBuffer body, int countOffset, int entrySize, Box box) throws Mp4FormatException {
+        long count = body.getInt(countOffset) & 0xFFFFFFFFL;
+        if (countOffset + 4 + count * entrySize > body.limit()) {
+            throw new Mp4FormatException("Box " + box.type + " is shorter than its entry count");
+        }
+        return (int) count;
+    }
+
+    private static String fourCC(ByteBuffer buffer, int offset) {
+        char[] chars = new char[4];
+        for (int i = 0; i < 4; i++) {
+            chars[i] = (char) (buffer.get(offset + i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    //a box: where its body starts and where the next box starts
+    private record Box(String type, long bodyStart, long end) {
+
+        private long bodySize() {
+            return end - bodyStart;
+        }
+    }
+
+    //positioned reads that never move the channel position, so the same channel can be shared with the frame reader
+    private static final class Reader {
+
+        private final FileChannel channel;
+        private final ByteBuffer header = ByteBuffer.allocate(16);
+        private long bytesRead;
+
+        private Reader(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private Box box(long position, long parentEnd) throws IOException {
+            header.clear().limit(HEADER_SIZE);
+            readFully(header, position);
+            long size = header.getInt(0) & 0xFFFFFFFFL;
+            String type = fourCC(header, 4);
+            long bodyStart = position + HEADER_SIZE;
+
+            if (size == 1) {
+                //64 bit largesize follows the type
+                header.clear().limit(8);
+                readFully(header, bodyStart);
+                size = header.getLong(0);
+                bodyStart += 8;
+            } else if (size == 0) {
+                //box runs to the end of its parent (the file for a top level mdat)
+                size = parentEnd - position;
+            }
+
+            long end = position + size;
+            if (end < bodyStart || end > parentEnd) {
+                throw new Mp4FormatException("Box " + type + " at offset " + position + " has an invalid size");
+            }
+            return new Box(type, bodyStart, end);
+        }
+
+        //direct children of a container, all of them when type is null
+        private List<Box> children(Box parent, String type) throws IOException {
+            List<Box> children = new ArrayList<>();
+            long position = parent.bodyStart;
+            while (position + HEADER_SIZE <= parent.end) {
+                Box child = box(position, parent.end);
+                if (type == null || type.equals(child.type)) {
+                    children.add(child);
+                }
+                position = child.end;
+            }
+            return children;
+        }
+
+        private Box child(Box parent, String type) throws IOException {
+            List<Box> children = children(parent, type);
+            return children.isEmpty() ? null : children.get(0);
+        }
+
+        //the first bytes of a box body, for fixed size headers
+        private ByteBuffer body(Box box, int length) throws IOException {
+            if (box.bodySize() < length) {
+                throw new Mp4FormatException("Box " + box.type + " is too short");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            readFully(buffer, box.bodyStart);
+            return buffer;
+        }
+
+        //a whole sample table
+        private ByteBuffer table(Box box) throws IOException {
+            if (box.bodySize() > MAX_TABLE_SIZE || box.bodySize() < 8) {
+                throw new Mp4FormatException("Box " + box.type + " has an invalid size");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) box.bodySize());
+            readFully(buffer, box.bodyStart);
+            return buffer;
+        }
+
+        private void readFully(ByteBuffer buffer, long position) throws IOException {
+            long start = position;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new Mp4FormatException("Unexpected end of file at offset " + position);
+                }
+                position += read;
+            }
+            bytesRead += position - start;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.realshield.platform.service.media.mp4;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//descriptive metadata of an MP4 / MOV file, read from a stream in one pass
+//top level boxes are skipped by size (mdat is never read), inside moov only mvhd, udta and meta are read,
+//trak and its sample tables are skipped, and reading stops as soon as moov has been parsed
+//
+//values come back under display names:
+//  Creation Time / Modification Time  mvhd, when set
+//  Encoder                            ©too / ©enc (ffmpeg writes Lavf..., HandBrake its version)
+//  Software                           ©swr, com.apple.quicktime.software
+//  Make / Model / Title / Creation Date / Comment
+//QuickTime user data (udta/©xxx), iTunes style udta/meta/ilst and QuickTime mdta keys (moov/meta/keys + ilst) are read
+//other keys keep their raw name
+
+public final class Mp4Metadata {
+
+    private static final int HEADER_SIZE = 8;
+
+    //udta / meta boxes larger than this hold cover art or similar and are skipped
+    private static final long MAX_METADATA_BOX = 1024 * 1024;
+
+    //seconds between 1904-01-01 (QuickTime epoch) and 1970-01-01
+    private static final long EPOCH_OFFSET = 2082844800L;
+
+    private static final Map<String, String> NAMES = Map.ofEntries(
+            Map.entry("©too", "Encoder"),
+            Map.entry("©enc", "Encoder"),
+            Map.entry("©swr", "Software"),
+            Map.entry("©mak", "Make"),
+            Map.entry("©mod", "Model"),
+            Map.entry("©nam", "Title"),
+            Map.entry("©day", "Creation Date"),
+            Map.entry("©cmt", "Comment"),
+            Map.entry("com.apple.quicktime.software", "Software"),
+            Map.entry("com.apple.quicktime.make", "Make"),
+            Map.entry("com.apple.quicktime.model", "Model"),
+            Map.entry("com.apple.quicktime.title", "Title"),
+            Map.entry("com.apple.quicktime.creationdate", "Creation Date"),
+            Map.entry("com.apple.quicktime.comment", "Comment")
+    );
+
+    private Mp4Metadata() {
+    }
+
+    public static Map<String, String> read(InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(inputStream);
+        Map<String, String> tags = new LinkedHashMap<>();
+
+        boolean first = true;
+        while (true) {
+            Header box = header(input, first);
+            if (box == null) {
+                break;
+            }
+            first = false;
+            if (!"moov".equals(box.type)) {
+                if (box.bodySize == Long.MAX_VALUE) {
+                    break;
+                }
+                skip(input, box.bodySize);
+                continue;
+            }
+
+            long remaining = box.bodySize;
+            while (remaining >= HEADER_SIZE) {
+                Header child = header(input, false);
+                if (child == null && box.bodySize == Long.MAX_VALUE) {
+                    break;
+                }
+                if (child == null || child.bodySize > remaining - child.headerSize) {
+                    throw new Mp4FormatException("Box " + (child != null ? child.type : "moov") + " has an invalid size");
+                }
+                remaining -= child.headerSize + child.bodySize;
+
+                boolean metadataBox = "udta".equals(child.type) || "meta".equals(child.type);
+                if ("mvhd".equals(child.type)) {
+                    readMvhd(ByteBuffer.wrap(body(input, child, 120)), tags);
+                } else if (metadataBox && child.bodySize <= MAX_METADATA_BOX) {
+                    ByteBuffer body = ByteBuffer.wrap(body(input, child, child.bodySize));
+                    if ("udta".equals(child.type)) {
+                        readUdta(body, tags);
+                    } else {
+                        readMeta(body, tags);
+                    }
+                } else {
+                    skip(input, child.bodySize);
+                }
+            }
+            //everything we read lives in moov, the rest of the file is not needed
+            break;
+        }
+        if (first) {
+            throw new Mp4FormatException("Not an MP4 / QuickTime file");
+        }
+        return tags;
+    }
+
+    //mvhd: version(1) flags(3), then 32 or 64 bit creation / modification times since 1904
+    private static void readMvhd(ByteBuffer body, Map<String, String> tags) {
+        if (body.limit() < 12) {
+            return;
+        }
+        boolean version1 = (body.get(0) & 0xFF) == 1;
+        if (version1 && body.limit() < 20) {
+            return;
+        }
+        long created = version1 ? body.getLong(4) : body.getInt(4) & 0xFFFFFFFFL;
+        long modified = version1 ? body.getLong(12) : body.getInt(8) & 0xFFFFFFFFL;
+        //muxers that do not know the time leave 0
+        if (created > 0) {
+            tags.put("Creation Time", Instant.ofEpochSecond(created - EPOCH_OFFSET).toString());
+        }
+        if (modified > 0) {
+            tags.put("Modification Time", Instant.ofEpochSecond(modified - EPOCH_OFFSET).toString());
+        }
+    }
+
+    //QuickTime user data: ©xxx atoms holding size(2) language(2) text, or an iTunes style meta box
+    private static void readUdta(ByteBuffer udta, Map<String, String> tags) {
+        for (Slice item : children(udta, 0, udta.limit())) {
+            if ("meta".equals(item.type)) {
+                readMeta(slice(udta, item), tags);
+            } else if (item.type.charAt(0) == '©' && item.size >= 4) {
+                int length = udta.getShort(item.start) & 0xFFFF;
+                if (length > 0 && length <= item.size - 4) {
+                    put(tags, item.type, text(udta, item.start + 4, length));
+                }
+            }
+        }
+    }
+
+    //meta: a full box in MP4 (version / flags first), a plain container in QuickTime
+    //keys (mdta) maps ilst item numbers to reverse DNS names, ilst items hold a data box with the value
+    private static void readMeta(ByteBuffer meta, Map<String, String> tags) {
+        int start = meta.limit() >= 8 && "hdlr".equals(fourCC(meta, 4)) ? 0 : 4;
+        List<String> keys = new ArrayList<>();
+        Slice ilst = null;
+        for (Slice child : children(meta, start, meta.limit())) {
+            if ("keys".equals(child.type) && child.size >= 8) {
+                int count = meta.getInt(child.start + 4);
+                int position = child.start + 8;
+                for (int i = 0; i < count && position + 8 <= child.start + child.size; i++) {
+                    int size = meta.getInt(position);
+                    if (size < 8 || position + size > child.start + child.size) {
+                        break;
+                    }
+                    keys.add(text(meta, position + 8, size - 8));
+                    position += size;
+                }
+            } else if ("ilst".equals(child.type)) {
+                ilst = child;
+            }
+        }
+        if (ilst == null) {
+            return;
+        }
+
+        for (Slice item : children(meta, ilst.start, ilst.start + ilst.size)) {
+            String name = item.type;
+            int index = meta.getInt(item.start - HEADER_SIZE + 4);
+            if (!keys.isEmpty() && index >= 1 && index <= keys.size()) {
+                name = keys.get(index - 1);
+            }
+            for (Slice data : children(meta, item.start, item.start + item.size)) {
+                //data: type(4, 1 = UTF-8) locale(4) value
+                if ("data".equals(data.type) && data.size >= 8 && (meta.getInt(data.start) & 0xFFFFFF) == 1) {
+                    put(tags, name, text(meta, data.start + 8, data.size - 8));
+                }
+            }
+        }
+    }
+
+    private static void put(Map<String, String> tags, String key, String value) {
+        String trimmed = value.trim();
+        if (!trimmed.isEmpty()) {
+            tags.putIfAbsent(NAMES.getOrDefault(key, key), trimmed);
+        }
+    }
+
+    //child boxes of an in memory box body, boxes with a broken size end the list
+    private static List<Slice> children(ByteBuffer buffer, int from, int to) {
+        List<Slice> children = new ArrayList<>();
+        int position = from;
+        while (position + HEADER_SIZE <= to) {
+            long size = buffer.getInt(position) & 0xFFFFFFFFL;
+            if (size < HEADER_SIZE || position + size > to) {
+                break;
+            }
+            children.add(new Slice(fourCC(buffer, position + 4), position + HEADER_SIZE, (int) size - HEADER_SIZE));
+            position += (int) size;
+        }
+        return children;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, Slice slice) {
+        return buffer.duplicate().position(slice.start).limit(slice.start + slice.size).slice();
+    }
+
+    private static String text(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        int end = 0;
+        while (end < length && bytes[end] != 0) {
+            end++;
+        }
+        return new String(bytes, 0, end, StandardCharsets.UTF_8);
+    }
+
+    private static String fourCC(ByteBuffer buffer, int offset) {
+        char[] chars = new char[4];
+        for (int i = 0; i < 4; i++) {
+            chars[i] = (char) (buffer.get(offset + i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    //null at a clean end of stream
+    private static Header header(DataInputStream input, boolean first) throws IOException {
+        byte[] header = input.readNBytes(HEADER_SIZE);
+        if (header.length == 0) {
+            return null;
+        }
+        if (header.length < HEADER_SIZE) {
+            throw new Mp4FormatException("Unexpected end of file in a box header");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(header);
+        long size = buffer.getInt(0) & 0xFFFFFFFFL;
+        String type = fourCC(buffer, 4);
+        int headerSize = HEADER_SIZE;
+        if (size == 1) {
+            size = input.readLong();
+            headerSize += 8;
+        } else if (size == 0) {
+            //runs to the end of the file, only ever mdat, nothing after it
+            size = Long.MAX_VALUE;
+        }
+        if (size < headerSize) {
+            throw new Mp4FormatException(first ? "Not an MP4 / QuickTime file" : "Box " + type + " has an invalid size");
+        }
+        return new Header(type, headerSize, size == Long.MAX_VALUE ? Long.MAX_VALUE : size - headerSize);
+    }
+
+    //the first length bytes of the body, the rest of it is skipped
+    private static byte[] body(DataInputStream input, Header box, long length) throws IOException {
+        int read = (int) Math.min(length, box.bodySize);
+        byte[] body = new byte[read];
+        input.readFully(body);
+        skip(input, box.bodySize - read);
+        return body;
+    }
+
+    //skip() on a file backed stream moves the file position, the skipped payload is not read
+    private static void skip(DataInputStream input, long bytes) throws IOException {
+        if (bytes == Long.MAX_VALUE) {
+            return;
+        }
+        try {
+            input.skipNBytes(bytes);
+        } catch (EOFException e) {
+            throw new Mp4FormatException("Unexpected end of file");
+        }
+    }
+
+    private record Header(String type, int headerSize, long bodySize) {
+    }
+
+    //a box inside an in memory buffer: type, where its body starts and how long it is
+    private record Slice(String type, int start, int size) {
+    }
+}
@@ -0,0 +1,118 @@
+package com.realshield.platform.service.media.mp4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//sample tables of one trak, enough to turn a sample number into a byte range of the file
+//sample numbers are 1 based, chunk numbers in stsc are 1 based, like in the file
+
+public final class Mp4Track {
+
+    private final String handlerType;
+    private final long timescale;
+    private final long duration;
+    private final int sampleCount;
+    private final int constantSampleSize;
+    private final int[] sampleSizes;
+    private final long[] chunkOffsets;
+    private final int[] stscFirstChunk;
+    private final int[] stscSamplesPerChunk;
+    private final int[] syncSamples;
+
+    Mp4Track(String handlerType, long timescale, long duration, int sampleCount, int constantSampleSize, int[] sampleSizes,
+             long[] chunkOffsets, int[] stscFirstChunk, int[] stscSamplesPerChunk, int[] syncSamples) {
+        this.handlerType = handlerType;
+        this.timescale = timescale;
+        this.duration = duration;
+        this.sampleCount = sampleCount;
+        this.constantSampleSize = constantSampleSize;
+        this.sampleSizes = sampleSizes;
+        this.chunkOffsets = chunkOffsets;
+        this.stscFirstChunk = stscFirstChunk;
+        this.stscSamplesPerChunk = stscSamplesPerChunk;
+        this.syncSamples = syncSamples;
+    }
+
+    //vide, soun, hint, meta ...
+    public String getHandlerType() {
+        return handlerType;
+    }
+
+    public boolean isVideo() {
+        return "vide".equals(handlerType);
+    }
+
+    public double getDurationSeconds() {
+        return timescale > 0 ? duration / (double) timescale : 0;
+    }
+
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    //without stss every sample is a sync sample
+    public int getSyncSampleCount() {
+        return syncSamples != null ? syncSamples.length : sampleCount;
+    }
+
+    public int sampleSize(int sampleNumber) {
+        return constantSampleSize != 0 ? constantSampleSize : sampleSizes[sampleNumber - 1];
+    }
+
+    //at most maxSamples sync samples spread evenly over the whole track, in file order
+    public List<SampleRange> sampledSyncSamples(int maxSamples) {
+        int syncCount = getSyncSampleCount();
+        int count = Math.min(maxSamples, syncCount);
+        int[] sampleNumbers = new int[count];
+        for (int i = 0; i < count; i++) {
+            //pick the middle of each of count equal slices, so the first and last second are not over represented
+            int index = (int) (((2L * i + 1) * syncCount) / (2L * count));
+            sampleNumbers[i] = syncSamples != null ? syncSamples[index] : index + 1;
+        }
+        return ranges(sampleNumbers);
+    }
+
+    //byte ranges of the given sample numbers, which must be ascending
+    //one walk over the chunks: for each chunk stsc gives how many samples it holds,
+    //the sample offset is the chunk offset plus the sizes of the samples before it in the same chunk
+    public List<SampleRange> ranges(int[] sampleNumbers) {
+        List<SampleRange> ranges = new ArrayList<>(sampleNumbers.length);
+        if (stscFirstChunk.length == 0) {
+            return ranges;
+        }
+        int entry = 0;
+        int chunk = 1;
+        int firstSampleInChunk = 1;
+
+        for (int sampleNumber : sampleNumbers) {
+            if (sampleNumber < 1 || sampleNumber > sampleCount) {
+                continue;
+            }
+            while (chunk <= chunkOffsets.length) {
+                while (entry + 1 < stscFirstChunk.length && chunk >= stscFirstChunk[entry + 1]) {
+                    entry++;
+                }
+                int samplesInChunk = stscSamplesPerChunk[entry];
+                if (sampleNumber < firstSampleInChunk + samplesInChunk) {
+                    break;
+                }
+                firstSampleInChunk += samplesInChunk;
+                chunk++;
+            }
+            if (chunk > chunkOffsets.length) {
+                break;
+            }
+
+            long offset = chunkOffsets[chunk - 1];
+            if (constantSampleSize != 0) {
+                offset += (long) constantSampleSize * (sampleNumber - firstSampleInChunk);
+            } else {
+                for (int sample = firstSampleInChunk; sample < sampleNumber; sample++) {
+                    offset += sampleSizes[sample - 1];
+                }
+            }
+            ranges.add(new SampleRange(sampleNumber, offset, sampleSize(sampleNumber)));
+        }
+        return ranges;
+    }
+}
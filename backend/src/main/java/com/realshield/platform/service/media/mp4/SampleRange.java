@@ -0,0 +1,5 @@
+package com.realshield.platform.service.media.mp4;
+
+//byte range of one sample (frame) inside the file, sampleNumber is 1 based like in the stbl tables
+public record SampleRange(int sampleNumber, long offset, int size) {
+}
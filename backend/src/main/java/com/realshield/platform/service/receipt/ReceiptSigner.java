@@ -0,0 +1,261 @@
+package com.realshield.platform.service.receipt;
+
+import com.realshield.platform.dto.receipt.ReceiptDTO;
+import com.realshield.platform.dto.receipt.ReceiptKeyDTO;
+import com.realshield.platform.dto.receipt.ReceiptVerificationDTO;
+import com.realshield.platform.utils.FileHashUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.security.interfaces.EdECPrivateKey;
+import java.security.spec.NamedParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+//signs analysis receipts so a partner can prove later that a verdict came from us: one line with the file hash,
+//verdict, confidence and time, signed with our Ed25519 key
+//
+//  realshield-receipt/1|<key id>|<sha256>|<REAL / FAKE / INCONCLUSIVE>|<confidence>|<issued at, ISO-8601 UTC>
+//
+//the signature (64 bytes, base64url) is over the UTF-8 bytes of that line exactly as it is returned, a verifier never
+//rebuilds it; checking a receipt offline needs nothing but the public key from GET /api/v1/receipts/keys
+//the key id is the first 8 bytes of the SHA-256 of the public key (X.509 encoded) in hex, so a new key gets a new id
+//
+//the private key is read once at startup and every Signature is initialised with it once and then reused,
+//a receipt costs one Ed25519 signature and nothing else
+
+@Component
+public class ReceiptSigner {
+
+    public static final String VERSION = "realshield-receipt/1";
+    public static final String ALGORITHM = "ED25519";
+
+    private static final String SEPARATOR = "|";
+    private static final int FIELDS = 6;
+
+    private final PrivateKey privateKey;
+    private final String keyId;
+
+    //current key first, then the retired keys old receipts were signed with
+    private final Map<String, PublicKey> publicKeys = new LinkedHashMap<>();
+
+    //Signature objects are not thread safe; a signer stays initialised with the key after sign(), so one taken
+    //from here is ready to use (a pool rather than a ThreadLocal, request threads may be virtual)
+    private final Queue<Signature> signers = new ConcurrentLinkedQueue<>();
+
+    public ReceiptSigner(@Value("${realshield.receipts.key-file:}") String keyFile,
+                         @Value("${realshield.receipts.previous-public-keys:}") String[] previousPublicKeys) {
+        KeyPair keyPair = loadOrCreate(keyFile);
+        this.privateKey = keyPair.getPrivate();
+        this.keyId = keyId(keyPair.getPublic());
+        publicKeys.put(keyId, keyPair.getPublic());
+        for (String encoded : previousPublicKeys) {
+            if (!encoded.isBlank()) {
+                PublicKey previous = parsePublicKey(encoded);
+                publicKeys.putIfAbsent(keyId(previous), previous);
+            }
+        }
+        System.out.println("Receipt signing key " + keyId + " loaded, " + (publicKeys.size() - 1) + " previous keys");
+    }
+
+    public String getKeyId() {
+        return keyId;
+    }
+
+    public ReceiptDTO sign(String sha256, String verdict, Double confidence) {
+        String payload = String.join(SEPARATOR, VERSION, keyId, sha256, verdict, String.valueOf(confidence),
+                Instant.now().truncatedTo(ChronoUnit.MILLIS).toString());
+
+        Signature signer = signers.poll();
+        try {
+            if (signer == null) {
+                signer = Signature.getInstance("Ed25519");
+                signer.initSign(privateKey);
+            }
+            signer.update(payload.getBytes(StandardCharsets.UTF_8));
+            String signature = Base64.getUrlEncoder().withoutPadding().encodeToString(signer.sign());
+            signers.offer(signer);
+            return new ReceiptDTO(payload, signature);
+        } catch (GeneralSecurityException e) {
+            //a signer that failed is dropped rather than returned to the pool
+            throw new IllegalStateException("Could not sign receipt", e);
+        }
+    }
+
+    //a receipt that does not check out is reported as not valid, not as an error
+    public ReceiptVerificationDTO verify(ReceiptDTO receipt) {
+        String[] fields = receipt.getPayload().split("\\" + SEPARATOR, -1);
+        if (fields.length != FIELDS || !VERSION.equals(fields[0])) {
+            return invalid(null, "Not a " + VERSION + " receipt");
+        }
+        String receiptKeyId = fields[1];
+        PublicKey publicKey = publicKeys.get(receiptKeyId);
+        if (publicKey == null) {
+            return invalid(receiptKeyId, "Unknown signing key " + receiptKeyId);
+        }
+        byte[] signature = decodeBase64(receipt.getSignature());
+        if (signature == null) {
+            return invalid(receiptKeyId, "Signature is not base64");
+        }
+
+        boolean valid;
+        try {
+            Signature verifier = Signature.getInstance("Ed25519");
+            verifier.initVerify(publicKey);
+            verifier.update(receipt.getPayload().getBytes(StandardCharsets.UTF_8));
+            valid = verifier.verify(signature);
+        } catch (GeneralSecurityException e) {
+            valid = false;
+        }
+        if (!valid) {
+            return invalid(receiptKeyId, "Signature does not match the receipt");
+        }
+
+        Double confidence;
+        try {
+            confidence = "null".equals(fields[4]) ? null : Double.valueOf(fields[4]);
+        } catch (NumberFormatException e) {
+            confidence = null;
+        }
+        return ReceiptVerificationDTO.builder()
+                .valid(true)
+                .keyId(receiptKeyId)
+                .sha256(fields[2])
+                .verdict(fields[3])
+                .confidence(confidence)
+                .issuedAt(fields[5])
+                .details(receiptKeyId.equals(keyId) ? "Signed with the current key" : "Signed with a previous key")
+                .build();
+    }
+
+    public List<ReceiptKeyDTO> publicKeys() {
+        List<ReceiptKeyDTO> keys = new ArrayList<>();
+        for (Map.Entry<String, PublicKey> entry : publicKeys.entrySet()) {
+            keys.add(ReceiptKeyDTO.builder()
+                    .keyId(entry.getKey())
+                    .algorithm(ALGORITHM)
+                    .publicKey(pem("PUBLIC KEY", entry.getValue().getEncoded()))
+                    .current(entry.getKey().equals(keyId))
+                    .build());
+        }
+        return keys;
+    }
+
+    private static ReceiptVerificationDTO invalid(String keyId, String details) {
+        return ReceiptVerificationDTO.builder().valid(false).keyId(keyId).details(details).build();
+    }
+
+    //PKCS#8 PEM (openssl genpkey -algorithm ed25519); a missing file is created with a new key so receipts stay
+    //verifiable across restarts, no file configured at all means a throwaway key for this run only
+    private static KeyPair loadOrCreate(String keyFile) {
+        try {
+            if (keyFile == null || keyFile.isBlank()) {
+                System.out.println("WARNING: realshield.receipts.key-file is not set, receipts are signed with a temporary key");
+                return fromSeed(newSeed());
+            }
+            Path path = Path.of(keyFile);
+            if (Files.exists(path)) {
+                byte[] pkcs8 = decodeBase64(Files.readString(path).replaceAll("-----(BEGIN|END) PRIVATE KEY-----", ""));
+                if (pkcs8 == null) {
+                    throw new IllegalStateException("Receipt key file " + path + " is not a PEM private key");
+                }
+                EdECPrivateKey key = (EdECPrivateKey) KeyFactory.getInstance("Ed25519").generatePrivate(new PKCS8EncodedKeySpec(pkcs8));
+                return fromSeed(key.getBytes().orElseThrow(() -> new IllegalStateException("Receipt key " + path + " has no key bytes")));
+            }
+
+            KeyPair keyPair = fromSeed(newSeed());
+            if (path.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(path.toAbsolutePath().getParent());
+            }
+            Files.writeString(path, pem("PRIVATE KEY", keyPair.getPrivate().getEncoded()));
+            try {
+                Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException e) {
+                //not a POSIX file system
+            }
+            System.out.println("Created receipt signing key " + path.toAbsolutePath());
+            return keyPair;
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Could not load receipt signing key " + keyFile, e);
+        }
+    }
+
+    private static byte[] newSeed() {
+        byte[] seed = new byte[32];
+        new SecureRandom().nextBytes(seed);
+        return seed;
+    }
+
+    //Java 17 has no call that derives an Ed25519 public key from the private one, but key generation is exactly
+    //that derivation from 32 random bytes, so the generator is handed the private key as its randomness
+    private static KeyPair fromSeed(byte[] seed) throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("Ed25519");
+        generator.initialize(NamedParameterSpec.ED25519, new SecureRandom() {
+            @Override
+            public void nextBytes(byte[] bytes) {
+                System.arraycopy(seed, 0, bytes, 0, Math.min(seed.length, bytes.length));
+            }
+        });
+        return generator.generateKeyPair();
+    }
+
+    private static PublicKey parsePublicKey(String encoded) {
+        byte[] bytes = decodeBase64(encoded.replaceAll("-----(BEGIN|END) PUBLIC KEY-----", ""));
+        if (bytes == null) {
+            throw new IllegalStateException("realshield.receipts.previous-public-keys has a key that is not base64 or PEM");
+        }
+        try {
+            return KeyFactory.getInstance("Ed25519").generatePublic(new X509EncodedKeySpec(bytes));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("realshield.receipts.previous-public-keys has an invalid Ed25519 key", e);
+        }
+    }
+
+    private static String keyId(PublicKey publicKey) {
+        return FileHashUtil.toHex(Arrays.copyOf(FileHashUtil.newSha256().digest(publicKey.getEncoded()), 8));
+    }
+
+    private static String pem(String type, byte[] der) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(der)
+                + "\n-----END " + type + "-----\n";
+    }
+
+    //standard or URL safe alphabet, whitespace and line breaks ignored
+    private static byte[] decodeBase64(String value) {
+        if (value == null) {
+            return null;
+        }
+        String compact = value.replaceAll("\\s", "");
+        try {
+            return compact.indexOf('-') >= 0 || compact.indexOf('_') >= 0
+                    ? Base64.getUrlDecoder().decode(compact)
+                    : Base64.getDecoder().decode(compact);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.realshield.platform.service.upload;
+
+import com.realshield.platform.dto.analyze.AnalyzeResultDTO;
+import com.realshield.platform.dto.upload.CreateUploadRequestDTO;
+import com.realshield.platform.dto.upload.UploadSessionDTO;
+
+import java.io.InputStream;
+
+public interface ChunkedUploadService {
+
+    //opens a session, the client then sends the file in chunks starting at offset 0
+    UploadSessionDTO create(CreateUploadRequestDTO request);
+
+    //appends the chunk at the given offset, returns the session with the new offset
+    //an offset behind the server (a retried chunk) skips what is already stored, an offset ahead of it is rejected
+    UploadSessionDTO writeChunk(String uploadId, long offset, InputStream chunk);
+
+    //current offset, so a client that lost its connection knows where to resume
+    UploadSessionDTO getSession(String uploadId);
+
+    //runs the assembled file through detect / verify with the hash computed while the chunks arrived
+    AnalyzeResultDTO complete(String uploadId);
+
+    void cancel(String uploadId);
+}
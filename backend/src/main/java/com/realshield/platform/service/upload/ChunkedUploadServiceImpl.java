@@ -0,0 +1,375 @@
+package com.realshield.platform.service.upload;
+
+import com.realshield.platform.dto.analyze.AnalyzeResultDTO;
+import com.realshield.platform.dto.upload.CreateUploadRequestDTO;
+import com.realshield.platform.dto.upload.UploadSessionDTO;
+import com.realshield.platform.exception.InvalidUploadException;
+import com.realshield.platform.exception.UploadOffsetMismatchException;
+import com.realshield.platform.exception.UploadSessionNotFoundException;
+import com.realshield.platform.model.UploadSession;
+import com.realshield.platform.model.UploadSessionStatus;
+import com.realshield.platform.repository.UploadSessionRepository;
+import com.realshield.platform.service.analyze.AnalyzeService;
+import com.realshield.platform.service.media.MediaContext;
+import com.realshield.platform.utils.FileHashUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.realshield.platform.utils.FileValidationUtil.SNIFF_LENGTH;
+import static com.realshield.platform.utils.FileValidationUtil.mediaTypeOf;
+import static com.realshield.platform.utils.FileValidationUtil.sniffContentType;
+
+//resumable upload for files too large to send in one multipart request
+//every chunk is written straight into <spool-dir>/<uploadId> and fed into a running SHA-256 as it arrives,
+//so when the last byte is in the hash is already known and the file is never read again just to hash it
+//
+//the session row keeps the offset, the digest itself only lives in memory
+//after a restart (or on another instance) the digest is rebuilt once from the bytes already on disk
+
+@Service
+public class ChunkedUploadServiceImpl implements ChunkedUploadService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final AnalyzeService analyzeService;
+    private final Path spoolDirectory;
+    private final long maxChunkSize;
+    private final long maxFileSize;
+    private final long sessionTtlHours;
+
+    private final Map<String, SessionState> states = new ConcurrentHashMap<>();
+
+    public ChunkedUploadServiceImpl(UploadSessionRepository uploadSessionRepository,
+                                    AnalyzeService analyzeService,
+                                    @Value("${realshield.upload.spool-dir:${java.io.tmpdir}/realshield-uploads}") String spoolDirectory,
+                                    @Value("${realshield.upload.max-chunk-size-mb:16}") long maxChunkSizeMb,
+                                    @Value("${realshield.upload.max-file-size-mb:4096}") long maxFileSizeMb,
+                                    @Value("${realshield.upload.session-ttl-hours:24}") long sessionTtlHours) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.analyzeService = analyzeService;
+        this.spoolDirectory = Paths.get(spoolDirectory);
+        this.maxChunkSize = maxChunkSizeMb * 1024 * 1024;
+        this.maxFileSize = maxFileSizeMb * 1024 * 1024;
+        this.sessionTtlHours = sessionTtlHours;
+    }
+
+    @Override
+    public UploadSessionDTO create(CreateUploadRequestDTO request) {
+        String mediaType = mediaTypeOf(request.getContentType());
+        if (mediaType == null) {
+            throw new InvalidUploadException("Only image, video and audio files can be uploaded");
+        }
+        if (request.getTotalSize() > maxFileSize) {
+            throw new InvalidUploadException("File is larger than " + (maxFileSize / (1024 * 1024)) + "MB");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        UploadSession session = UploadSession.builder()
+                .id(UUID.randomUUID().toString())
+                .fileName(request.getFileName())
+                .contentType(request.getContentType())
+                .mediaType(mediaType)
+                .totalSize(request.getTotalSize())
+                .receivedBytes(0)
+                .status(UploadSessionStatus.ACTIVE)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+
+        try {
+            Files.createDirectories(spoolDirectory);
+            Files.deleteIfExists(pathOf(session.getId()));
+            Files.createFile(pathOf(session.getId()));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create upload file");
+        }
+        return toDTO(uploadSessionRepository.save(session));
+    }
+
+    @Override
+    public UploadSessionDTO writeChunk(String uploadId, long offset, InputStream chunk) {
+        SessionState state = stateOf(uploadId);
+        //two requests writing the same session at once would interleave their bytes
+        if (!state.lock.tryLock()) {
+            throw new UploadOffsetMismatchException("Another chunk of this upload is still being written");
+        }
+        try {
+            UploadSession session = findActive(uploadId);
+            long received = session.getReceivedBytes();
+            long receivedBefore = received;
+            if (offset > received) {
+                throw new UploadOffsetMismatchException("Expected offset " + received + " but got " + offset);
+            }
+            if (offset < 0) {
+                throw new InvalidUploadException("Offset must not be negative");
+            }
+
+            try (FileChannel channel = FileChannel.open(pathOf(uploadId), StandardOpenOption.WRITE)) {
+                restoreDigest(state, session, channel);
+
+                //a retried chunk: the first bytes are already stored, only the rest is new
+                long toSkip = received - offset;
+                long chunkBytes = 0;
+                byte[] buffer = new byte[BUFFER_SIZE];
+                try {
+                    int read;
+                    while ((read = chunk.read(buffer)) != -1) {
+                        chunkBytes += read;
+                        if (chunkBytes > maxChunkSize) {
+                            throw new InvalidUploadException("Chunk is larger than " + (maxChunkSize / (1024 * 1024)) + "MB");
+                        }
+
+                        int start = 0;
+                        if (toSkip > 0) {
+                            start = (int) Math.min(toSkip, read);
+                            toSkip -= start;
+                        }
+                        int length = read - start;
+                        if (length == 0) {
+                            continue;
+                        }
+                        if (received + length > session.getTotalSize()) {
+                            throw new InvalidUploadException("Chunk goes past the announced size of " + session.getTotalSize() + " bytes");
+                        }
+
+                        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, start, length);
+                        long position = received;
+                        while (byteBuffer.hasRemaining()) {
+                            position += channel.write(byteBuffer, position);
+                        }
+                        state.digest.update(buffer, start, length);
+                        received += length;
+                        state.hashedBytes = received;
+                    }
+                } finally {
+                    //whatever arrived before a dropped connection still counts, the client resumes from here
+                    session.setReceivedBytes(received);
+                    session.setUpdatedAt(LocalDateTime.now());
+                    uploadSessionRepository.save(session);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to store upload chunk");
+            }
+
+            //the chunk that completes the header decides whether the rest of the file is worth receiving
+            long headerBytes = Math.min(SNIFF_LENGTH, session.getTotalSize());
+            if (receivedBefore < headerBytes && session.getReceivedBytes() >= headerBytes) {
+                checkContentType(session, (int) headerBytes);
+            }
+            return toDTO(session);
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    @Override
+    public UploadSessionDTO getSession(String uploadId) {
+        return uploadSessionRepository.findById(uploadId)
+                .map(this::toDTO)
+                .orElseThrow(() -> notFound(uploadId));
+    }
+
+    @Override
+    public AnalyzeResultDTO complete(String uploadId) {
+        SessionState state = stateOf(uploadId);
+        if (!state.lock.tryLock()) {
+            throw new UploadOffsetMismatchException("A chunk of this upload is still being written");
+        }
+        try {
+            UploadSession session = findActive(uploadId);
+            if (session.getReceivedBytes() != session.getTotalSize()) {
+                throw new InvalidUploadException("Upload is incomplete, " + session.getReceivedBytes()
+                        + " of " + session.getTotalSize() + " bytes received");
+            }
+
+            Path path = pathOf(uploadId);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                restoreDigest(state, session, channel);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read upload file");
+            }
+            //digest() resets the digest, so it has to be rebuilt if the analysis below fails and the client retries
+            String sha256 = FileHashUtil.toHex(state.digest.digest());
+            state.digest = null;
+
+            MediaContext media = MediaContext.of(path, session.getFileName(), session.getContentType(), sha256);
+            AnalyzeResultDTO result = analyzeService.analyzeAndStore(media, session.getMediaType());
+
+            deleteQuietly(path);
+            session.setStatus(UploadSessionStatus.COMPLETED);
+            session.setFileHash(sha256);
+            session.setUpdatedAt(LocalDateTime.now());
+            uploadSessionRepository.save(session);
+            states.remove(uploadId);
+            return result;
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    @Override
+    public void cancel(String uploadId) {
+        SessionState state = stateOf(uploadId);
+        state.lock.lock();
+        try {
+            UploadSession session = uploadSessionRepository.findById(uploadId).orElseThrow(() -> notFound(uploadId));
+            deleteQuietly(pathOf(uploadId));
+            uploadSessionRepository.delete(session);
+        } finally {
+            states.remove(uploadId);
+            state.lock.unlock();
+        }
+    }
+
+    //drops sessions that were abandoned half way, together with their partial file
+    @Scheduled(fixedDelayString = "${realshield.upload.cleanup-interval-ms:3600000}")
+    public void removeExpiredSessions() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(sessionTtlHours);
+        for (UploadSessionStatus status : UploadSessionStatus.values()) {
+            for (UploadSession session : uploadSessionRepository.findByStatusAndUpdatedAtBefore(status, cutoff)) {
+                SessionState state = states.computeIfAbsent(session.getId(), id -> new SessionState());
+                //a session that is being written right now is not expired
+                if (!state.lock.tryLock()) {
+                    continue;
+                }
+                try {
+                    deleteQuietly(pathOf(session.getId()));
+                    uploadSessionRepository.delete(session);
+                } finally {
+                    states.remove(session.getId());
+                    state.lock.unlock();
+                }
+            }
+        }
+    }
+
+    //sniffs the stored header and drops the session when it is not the kind of media that was announced
+    private void checkContentType(UploadSession session, int headerBytes) {
+        Path path = pathOf(session.getId());
+        byte[] header = new byte[headerBytes];
+        try (FileChannel reader = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.wrap(header);
+            while (buffer.hasRemaining()) {
+                if (reader.read(buffer, buffer.position()) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read upload file");
+        }
+
+        String sniffed = sniffContentType(header, headerBytes);
+        if (!session.getMediaType().equals(mediaTypeOf(sniffed))) {
+            deleteQuietly(path);
+            uploadSessionRepository.delete(session);
+            states.remove(session.getId());
+            throw new InvalidUploadException("File content does not match " + session.getContentType()
+                    + " (found " + (sniffed != null ? sniffed : "unknown content") + "), the upload was cancelled");
+        }
+    }
+
+    //makes the in memory digest cover exactly the bytes the session row says were received
+    //bytes past that offset come from a write that never got recorded and are cut off
+    private void restoreDigest(SessionState state, UploadSession session, FileChannel channel) throws IOException {
+        long received = session.getReceivedBytes();
+        if (channel.size() > received) {
+            channel.truncate(received);
+        } else if (channel.size() < received) {
+            throw new InvalidUploadException("Upload file is shorter than the recorded offset, please start a new upload");
+        }
+        if (state.digest != null && state.hashedBytes == received) {
+            return;
+        }
+
+        MessageDigest digest = FileHashUtil.newSha256();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = 0;
+        try (FileChannel reader = FileChannel.open(pathOf(session.getId()), StandardOpenOption.READ)) {
+            while (position < received) {
+                buffer.clear();
+                buffer.limit((int) Math.min(BUFFER_SIZE, received - position));
+                int read = reader.read(buffer, position);
+                if (read < 0) {
+                    break;
+                }
+                buffer.flip();
+                digest.update(buffer);
+                position += read;
+            }
+        }
+        state.digest = digest;
+        state.hashedBytes = received;
+    }
+
+    //only ids that exist get an entry, so unknown ids cannot fill the map
+    private SessionState stateOf(String uploadId) {
+        if (!uploadSessionRepository.existsById(uploadId)) {
+            throw notFound(uploadId);
+        }
+        return states.computeIfAbsent(uploadId, id -> new SessionState());
+    }
+
+    private UploadSession findActive(String uploadId) {
+        UploadSession session = uploadSessionRepository.findById(uploadId).orElseThrow(() -> notFound(uploadId));
+        if (session.getStatus() != UploadSessionStatus.ACTIVE) {
+            throw new InvalidUploadException("Upload " + uploadId + " is already completed");
+        }
+        return session;
+    }
+
+    private UploadSessionNotFoundException notFound(String uploadId) {
+        return new UploadSessionNotFoundException("No upload session with id " + uploadId);
+    }
+
+    private Path pathOf(String uploadId) {
+        return spoolDirectory.resolve(uploadId + ".part");
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private UploadSessionDTO toDTO(UploadSession session) {
+        return new UploadSessionDTO(
+                session.getId(),
+                session.getFileName(),
+                session.getContentType(),
+                session.getMediaType(),
+                session.getStatus().name(),
+                session.getTotalSize(),
+                session.getReceivedBytes(),
+                maxChunkSize,
+                session.getFileHash(),
+                session.getCreatedAt(),
+                session.getUpdatedAt()
+        );
+    }
+
+    //running digest of one session, guarded by its lock
+    private static final class SessionState {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private MessageDigest digest;
+        private long hashedBytes;
+    }
+}
@@ -0,0 +1,59 @@
+package com.realshield.platform.service.verify;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//Bloom filter over SHA-256 digests in front of the DigestTable
+//the digest is already uniformly random, so its first two words are the two hashes of the
+//Kirsch-Mitzenmacher scheme (bit i = h1 + i * h2) and nothing has to be hashed again
+//bits live in an AtomicLongArray, so new digests can be added while other threads query
+
+final class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashes;
+
+    private BloomFilter(long bitCount, int hashes) {
+        this.bitCount = bitCount;
+        this.hashes = hashes;
+        this.bits = new AtomicLongArray((int) ((bitCount + 63) / 64));
+    }
+
+    //m = -n ln p / (ln 2)^2 bits and k = m / n ln 2 hashes for n expected digests at false positive rate p
+    static BloomFilter forCapacity(long expected, double falsePositiveRate) {
+        long n = Math.max(1, expected);
+        long bitCount = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        int hashes = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+        return new BloomFilter(bitCount, hashes);
+    }
+
+    void add(Digest digest) {
+        add(digest.w0(), digest.w1());
+    }
+
+    void add(long h1, long h2) {
+        long combined = h1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = (combined & Long.MAX_VALUE) % bitCount;
+            bits.getAndAccumulate((int) (bit >>> 6), 1L << bit, (word, mask) -> word | mask);
+            combined += h2;
+        }
+    }
+
+    //false means the digest was never added, true means it probably was
+    boolean mightContain(Digest digest) {
+        long combined = digest.w0();
+        for (int i = 0; i < hashes; i++) {
+            long bit = (combined & Long.MAX_VALUE) % bitCount;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+            combined += digest.w1();
+        }
+        return true;
+    }
+
+    long bytes() {
+        return bits.length() * 8L;
+    }
+}
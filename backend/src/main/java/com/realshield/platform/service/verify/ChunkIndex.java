@@ -0,0 +1,89 @@
+package com.realshield.platform.service.verify;
+
+//chunk key (first 8 bytes of a chunk hash) -> id of the verified_media row the chunk belongs to
+//open addressing with linear probing over two primitive arrays, 16 bytes a slot and no object per chunk;
+//a key shared by several originals (same intro, same silence) simply occupies several slots
+//not thread safe, ManifestIndex guards it
+
+final class ChunkIndex {
+
+    //key 0 marks an empty slot, a real key of 0 is stored as this instead (one in 2^64, a harmless merge)
+    private static final long EMPTY = 0;
+    private static final long ZERO_KEY = 1;
+
+    private long[] keys;
+    private long[] ids;
+    private int size;
+
+    ChunkIndex(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.ids = new long[capacity];
+    }
+
+    void add(long key, long id) {
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        if (insert(key == EMPTY ? ZERO_KEY : key, id)) {
+            size++;
+        }
+    }
+
+    //calls consumer for every id stored under key
+    void forEach(long key, IdConsumer consumer) {
+        long stored = key == EMPTY ? ZERO_KEY : key;
+        int mask = keys.length - 1;
+        for (int slot = slot(stored, mask); keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == stored) {
+                consumer.accept(ids[slot]);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    //heap bytes of the two arrays
+    long bytes() {
+        return keys.length * 16L;
+    }
+
+    //false if the pair is already there, the same chunk twice in one original is kept once
+    private boolean insert(long key, long id) {
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key && ids[slot] == id) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        ids[slot] = id;
+        return true;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldIds = ids;
+        keys = new long[oldKeys.length * 2];
+        ids = new long[oldIds.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                insert(oldKeys[i], oldIds[i]);
+            }
+        }
+    }
+
+    //the keys are already SHA-256 bits, no further mixing needed
+    private static int slot(long key, int mask) {
+        return (int) (key >>> 32 ^ key) & mask;
+    }
+
+    @FunctionalInterface
+    interface IdConsumer {
+        void accept(long id);
+    }
+}
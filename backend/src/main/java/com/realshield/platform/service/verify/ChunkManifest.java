@@ -0,0 +1,180 @@
+package com.realshield.platform.service.verify;
+
+import com.realshield.platform.utils.FileHashUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+//Merkle manifest of a media file: the file is cut into chunks, every chunk is hashed, and a Merkle root is
+//computed over the chunk hashes
+//
+//chunk boundaries are content defined (gear rolling hash, 16 KB .. 256 KB, about 64 KB on average) rather than
+//at fixed offsets: a clip cut out of a verified video starts at an arbitrary byte, fixed size chunks of it would
+//never line up with the original's again, content defined boundaries fall back in step after the first chunk
+//
+//stored form: chunk count, then per chunk the first 16 bytes of its SHA-256 and its length, 20 bytes per chunk
+//(a 1 GB video is about 320 KB); the root is SHA-256 over pairs of nodes with the leaves as they are stored,
+//so a stored manifest can be checked against its root without the original file
+
+public final class ChunkManifest {
+
+    static final int LEAF_SIZE = 16;
+    private static final int ENTRY_SIZE = LEAF_SIZE + 4;
+
+    private static final int MIN_CHUNK = 16 * 1024;
+    private static final int MAX_CHUNK = 256 * 1024;
+
+    //a boundary where the low 16 bits of the rolling hash are zero, so about every 64 KB past the minimum
+    private static final long BOUNDARY_MASK = (1L << 16) - 1;
+
+    //fixed seed: boundaries must land in the same places in every process that ever built a manifest
+    private static final long[] GEAR = new SplittableRandom(0x5EED_C4A1_2024L).longs(256).toArray();
+
+    private final byte[] leaves;
+    private final int[] lengths;
+    private final long totalBytes;
+
+    private ChunkManifest(byte[] leaves, int[] lengths) {
+        this.leaves = leaves;
+        this.lengths = lengths;
+        long total = 0;
+        for (int length : lengths) {
+            total += length;
+        }
+        this.totalBytes = total;
+    }
+
+    //one pass over the stream, a chunk is hashed while it is read, the file is never held in memory
+    public static ChunkManifest build(InputStream inputStream) throws IOException {
+        return build(inputStream, null);
+    }
+
+    //fileDigest, when given, is fed every byte as well, so the SHA-256 of the whole file comes out of the same pass
+    public static ChunkManifest build(InputStream inputStream, MessageDigest fileDigest) throws IOException {
+        byte[] leaves = new byte[64 * LEAF_SIZE];
+        int[] lengths = new int[64];
+        int count = 0;
+
+        MessageDigest digest = FileHashUtil.newSha256();
+        byte[] buffer = new byte[64 * 1024];
+        long hash = 0;
+        int length = 0;
+
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            //a source check cancelled by a FAKE verdict stops here instead of reading the rest of a large file
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Chunk manifest build interrupted");
+            }
+            if (fileDigest != null) {
+                fileDigest.update(buffer, 0, read);
+            }
+            int start = 0;
+            for (int i = 0; i < read; i++) {
+                hash = (hash << 1) + GEAR[buffer[i] & 0xff];
+                length++;
+                if (length >= MAX_CHUNK || (length >= MIN_CHUNK && (hash & BOUNDARY_MASK) == 0)) {
+                    digest.update(buffer, start, i + 1 - start);
+                    start = i + 1;
+                    if (count == lengths.length) {
+                        lengths = Arrays.copyOf(lengths, count * 2);
+                        leaves = Arrays.copyOf(leaves, count * 2 * LEAF_SIZE);
+                    }
+                    System.arraycopy(digest.digest(), 0, leaves, count * LEAF_SIZE, LEAF_SIZE);
+                    lengths[count++] = length;
+                    hash = 0;
+                    length = 0;
+                }
+            }
+            digest.update(buffer, start, read - start);
+        }
+        if (length > 0) {
+            if (count == lengths.length) {
+                lengths = Arrays.copyOf(lengths, count + 1);
+                leaves = Arrays.copyOf(leaves, (count + 1) * LEAF_SIZE);
+            }
+            System.arraycopy(digest.digest(), 0, leaves, count * LEAF_SIZE, LEAF_SIZE);
+            lengths[count++] = length;
+        }
+        return new ChunkManifest(Arrays.copyOf(leaves, count * LEAF_SIZE), Arrays.copyOf(lengths, count));
+    }
+
+    public static ChunkManifest decode(byte[] encoded) {
+        ByteBuffer buffer = ByteBuffer.wrap(encoded);
+        int count = buffer.getInt();
+        if (count < 0 || encoded.length != 4 + (long) count * ENTRY_SIZE) {
+            throw new IllegalArgumentException("Corrupt chunk manifest");
+        }
+        byte[] leaves = new byte[count * LEAF_SIZE];
+        int[] lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            buffer.get(leaves, i * LEAF_SIZE, LEAF_SIZE);
+            lengths[i] = buffer.getInt();
+        }
+        return new ChunkManifest(leaves, lengths);
+    }
+
+    public byte[] encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + lengths.length * ENTRY_SIZE);
+        buffer.putInt(lengths.length);
+        for (int i = 0; i < lengths.length; i++) {
+            buffer.put(leaves, i * LEAF_SIZE, LEAF_SIZE);
+            buffer.putInt(lengths[i]);
+        }
+        return buffer.array();
+    }
+
+    //pairs of nodes are hashed level by level, an odd node at the end of a level moves up as it is
+    //leaves and inner nodes are prefixed with 0 / 1 so a leaf can never pass for an inner node
+    public String merkleRoot() {
+        MessageDigest digest = FileHashUtil.newSha256();
+        if (lengths.length == 0) {
+            return FileHashUtil.toHex(digest.digest());
+        }
+
+        byte[][] level = new byte[lengths.length][];
+        for (int i = 0; i < level.length; i++) {
+            digest.update((byte) 0);
+            digest.update(leaves, i * LEAF_SIZE, LEAF_SIZE);
+            level[i] = digest.digest();
+        }
+        int size = level.length;
+        while (size > 1) {
+            int next = 0;
+            for (int i = 0; i < size; i += 2) {
+                if (i + 1 == size) {
+                    level[next++] = level[i];
+                    continue;
+                }
+                digest.update((byte) 1);
+                digest.update(level[i]);
+                digest.update(level[i + 1]);
+                level[next++] = digest.digest();
+            }
+            size = next;
+        }
+        return FileHashUtil.toHex(level[0]);
+    }
+
+    public int chunkCount() {
+        return lengths.length;
+    }
+
+    public long totalBytes() {
+        return totalBytes;
+    }
+
+    public int length(int chunk) {
+        return lengths[chunk];
+    }
+
+    //first 8 bytes of the chunk hash, the key of the chunk index
+    long key(int chunk) {
+        return ByteBuffer.wrap(leaves, chunk * LEAF_SIZE, 8).getLong();
+    }
+}
@@ -0,0 +1,49 @@
+package com.realshield.platform.service.verify;
+
+import java.util.HexFormat;
+
+//a SHA-256 as four big endian longs, compared unsigned so the order is the byte order of the digest
+
+record Digest(long w0, long w1, long w2, long w3) implements Comparable<Digest> {
+
+    static final int SIZE = 32;
+
+    //null for anything that is not 64 hex characters
+    static Digest parse(String hex) {
+        if (hex == null || hex.length() != 64) {
+            return null;
+        }
+        for (int i = 0; i < 64; i++) {
+            if (!HexFormat.isHexDigit(hex.charAt(i))) {
+                return null;
+            }
+        }
+        return new Digest(
+                HexFormat.fromHexDigitsToLong(hex, 0, 16),
+                HexFormat.fromHexDigitsToLong(hex, 16, 32),
+                HexFormat.fromHexDigitsToLong(hex, 32, 48),
+                HexFormat.fromHexDigitsToLong(hex, 48, 64)
+        );
+    }
+
+    @Override
+    public int compareTo(Digest other) {
+        int compare = Long.compareUnsigned(w0, other.w0);
+        if (compare == 0) {
+            compare = Long.compareUnsigned(w1, other.w1);
+        }
+        if (compare == 0) {
+            compare = Long.compareUnsigned(w2, other.w2);
+        }
+        if (compare == 0) {
+            compare = Long.compareUnsigned(w3, other.w3);
+        }
+        return compare;
+    }
+
+    @Override
+    public String toString() {
+        HexFormat hex = HexFormat.of();
+        return hex.toHexDigits(w0) + hex.toHexDigits(w1) + hex.toHexDigits(w2) + hex.toHexDigits(w3);
+    }
+}
@@ -0,0 +1,196 @@
+package com.realshield.platform.service.verify;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+//sorted, duplicate free SHA-256 digests packed 32 bytes each into one direct buffer
+//millions of digests cost their raw size outside the heap and no objects, so the GC never scans them
+//lookups are a binary search over the packed records, nothing is allocated
+//a table is never changed once built, new digests produce a new table through merge
+
+final class DigestTable {
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    static final DigestTable EMPTY = new DigestTable(ByteBuffer.allocateDirect(0), 0);
+
+    private final ByteBuffer digests;
+    private final int size;
+
+    private DigestTable(ByteBuffer digests, int size) {
+        this.digests = digests;
+        this.size = size;
+    }
+
+    //sorts count packed digests in place and drops duplicates, the table takes over the buffer
+    static DigestTable build(ByteBuffer digests, int count) {
+        quickSort(digests, 0, count - 1);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || compare(digests, unique - 1, digests, i) != 0) {
+                if (unique != i) {
+                    copy(digests, i, digests, unique);
+                }
+                unique++;
+            }
+        }
+        return new DigestTable(digests, unique);
+    }
+
+    //this table plus extra (sorted), one pass over both
+    DigestTable merge(List<Digest> extra) {
+        ByteBuffer merged = ByteBuffer.allocateDirect((size + extra.size()) * Digest.SIZE);
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < size || j < extra.size()) {
+            int compare = i == size ? 1 : j == extra.size() ? -1 : compare(digests, i, extra.get(j));
+            if (compare <= 0) {
+                copy(digests, i++, merged, count++);
+                if (compare == 0) {
+                    j++;
+                }
+            } else {
+                put(merged, count++, extra.get(j++));
+            }
+        }
+        return new DigestTable(merged, count);
+    }
+
+    boolean contains(Digest digest) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int compare = compare(digests, middle, digest);
+            if (compare < 0) {
+                low = middle + 1;
+            } else if (compare > 0) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    Digest get(int index) {
+        return get(digests, index);
+    }
+
+    long word(int index, int word) {
+        return digests.getLong(index * Digest.SIZE + word * 8);
+    }
+
+    //off-heap bytes held by this table
+    long bytes() {
+        return digests.capacity();
+    }
+
+    static void put(ByteBuffer buffer, int index, Digest digest) {
+        int offset = index * Digest.SIZE;
+        buffer.putLong(offset, digest.w0());
+        buffer.putLong(offset + 8, digest.w1());
+        buffer.putLong(offset + 16, digest.w2());
+        buffer.putLong(offset + 24, digest.w3());
+    }
+
+    private static int compare(ByteBuffer buffer, int index, Digest digest) {
+        int offset = index * Digest.SIZE;
+        int compare = Long.compareUnsigned(buffer.getLong(offset), digest.w0());
+        if (compare == 0) {
+            compare = Long.compareUnsigned(buffer.getLong(offset + 8), digest.w1());
+        }
+        if (compare == 0) {
+            compare = Long.compareUnsigned(buffer.getLong(offset + 16), digest.w2());
+        }
+        if (compare == 0) {
+            compare = Long.compareUnsigned(buffer.getLong(offset + 24), digest.w3());
+        }
+        return compare;
+    }
+
+    private static int compare(ByteBuffer a, int i, ByteBuffer b, int j) {
+        int offsetA = i * Digest.SIZE;
+        int offsetB = j * Digest.SIZE;
+        for (int word = 0; word < 4; word++) {
+            int compare = Long.compareUnsigned(a.getLong(offsetA + word * 8), b.getLong(offsetB + word * 8));
+            if (compare != 0) {
+                return compare;
+            }
+        }
+        return 0;
+    }
+
+    private static void copy(ByteBuffer from, int i, ByteBuffer to, int j) {
+        for (int word = 0; word < 4; word++) {
+            to.putLong(j * Digest.SIZE + word * 8, from.getLong(i * Digest.SIZE + word * 8));
+        }
+    }
+
+    private static void swap(ByteBuffer buffer, int i, int j) {
+        for (int word = 0; word < 4; word++) {
+            int a = i * Digest.SIZE + word * 8;
+            int b = j * Digest.SIZE + word * 8;
+            long t = buffer.getLong(a);
+            buffer.putLong(a, buffer.getLong(b));
+            buffer.putLong(b, t);
+        }
+    }
+
+    //in place quicksort of the 32 byte records, recursing into the smaller side so the stack stays O(log n)
+    //three way partition: records equal to the pivot end up in the middle and are never looked at again,
+    //so an import full of repeated digests stays O(n log n)
+    private static void quickSort(ByteBuffer buffer, int low, int high) {
+        while (high - low > INSERTION_SORT_THRESHOLD) {
+            Digest pivot = medianOfThree(buffer, low, (low + high) >>> 1, high);
+            int less = low;
+            int greater = high;
+            int i = low;
+            while (i <= greater) {
+                int compare = compare(buffer, i, pivot);
+                if (compare < 0) {
+                    swap(buffer, i++, less++);
+                } else if (compare > 0) {
+                    swap(buffer, i, greater--);
+                } else {
+                    i++;
+                }
+            }
+
+            if (less - low < high - greater) {
+                quickSort(buffer, low, less - 1);
+                low = greater + 1;
+            } else {
+                quickSort(buffer, greater + 1, high);
+                high = less - 1;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && compare(buffer, j, buffer, j - 1) < 0; j--) {
+                swap(buffer, j, j - 1);
+            }
+        }
+    }
+
+    private static Digest medianOfThree(ByteBuffer buffer, int a, int b, int c) {
+        if (compare(buffer, a, buffer, b) > 0) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        if (compare(buffer, b, buffer, c) > 0) {
+            b = compare(buffer, a, buffer, c) > 0 ? a : c;
+        }
+        return get(buffer, b);
+    }
+
+    private static Digest get(ByteBuffer buffer, int index) {
+        int offset = index * Digest.SIZE;
+        return new Digest(buffer.getLong(offset), buffer.getLong(offset + 8), buffer.getLong(offset + 16), buffer.getLong(offset + 24));
+    }
+}
@@ -0,0 +1,142 @@
+package com.realshield.platform.service.verify;
+
+import com.realshield.platform.repository.VerifiedMediaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//every chunk of every verified_media manifest, keyed by chunk hash, so an upload that is not a trusted file
+//as a whole can still be matched chunk by chunk against the originals
+//
+//a match looks up each chunk of the upload once: the cost follows the size of the upload, not the number of
+//originals or chunks held; loaded when the application is ready, new rows are picked up like the trusted hashes
+
+@Component
+public class ManifestIndex {
+
+    //upload chunks matched against one original
+    public record Match(long mediaId, int matchedChunks, long matchedBytes, int uploadChunks, long uploadBytes, long originalBytes) {
+
+        //share of the upload that comes from the original
+        public double fraction() {
+            return uploadBytes == 0 ? 0 : (double) matchedBytes / uploadBytes;
+        }
+    }
+
+    private final VerifiedMediaRepository verifiedMediaRepository;
+    private final int pageSize;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ChunkIndex index = new ChunkIndex(1024);
+
+    //verified_media id -> size of the original, for the coverage of a match
+    private final Map<Long, Long> originalBytes = new HashMap<>();
+
+    //highest verified_media id already loaded
+    private long lastLoadedId;
+
+    public ManifestIndex(VerifiedMediaRepository verifiedMediaRepository,
+                         @Value("${realshield.verify.manifests.page-size:100}") int pageSize) {
+        this.verifiedMediaRepository = verifiedMediaRepository;
+        this.pageSize = pageSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        int corrupt = refreshPages();
+        lock.readLock().lock();
+        try {
+            System.out.println("Manifest index loaded " + originalBytes.size() + " originals, " + index.size() + " chunks ("
+                    + corrupt + " corrupt manifests skipped) in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                    + " ms, " + (index.bytes() / 1024) + " KB");
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${realshield.verify.trusted-hashes.refresh-interval-ms:60000}",
+            initialDelayString = "${realshield.verify.trusted-hashes.refresh-interval-ms:60000}")
+    public void refresh() {
+        refreshPages();
+    }
+
+    //adding an original twice is harmless, the same (chunk, id) pair is only stored once
+    public void add(long mediaId, ChunkManifest manifest) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < manifest.chunkCount(); i++) {
+                index.add(manifest.key(i), mediaId);
+            }
+            originalBytes.put(mediaId, manifest.totalBytes());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        lock.readLock().lock();
+        try {
+            return originalBytes.isEmpty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //the original sharing the most bytes with the upload, empty if no chunk matched
+    public Optional<Match> match(ChunkManifest upload) {
+        Map<Long, long[]> matched = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < upload.chunkCount(); i++) {
+                int length = upload.length(i);
+                index.forEach(upload.key(i), id -> {
+                    long[] counts = matched.computeIfAbsent(id, key -> new long[2]);
+                    counts[0]++;
+                    counts[1] += length;
+                });
+            }
+
+            Match best = null;
+            for (Map.Entry<Long, long[]> entry : matched.entrySet()) {
+                long[] counts = entry.getValue();
+                if (best == null || counts[1] > best.matchedBytes()) {
+                    best = new Match(entry.getKey(), (int) counts[0], counts[1], upload.chunkCount(), upload.totalBytes(),
+                            originalBytes.getOrDefault(entry.getKey(), 0L));
+                }
+            }
+            return Optional.ofNullable(best);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //manifests are decoded outside the lock, only adding them to the index blocks readers
+    private synchronized int refreshPages() {
+        int corrupt = 0;
+        List<VerifiedMediaRepository.ManifestView> page;
+        do {
+            page = verifiedMediaRepository.findManifestsAfter(lastLoadedId, PageRequest.of(0, pageSize));
+            for (VerifiedMediaRepository.ManifestView row : page) {
+                lastLoadedId = row.getId();
+                try {
+                    add(row.getId(), ChunkManifest.decode(row.getManifest()));
+                } catch (RuntimeException e) {
+                    corrupt++;
+                }
+            }
+        } while (page.size() == pageSize);
+        return corrupt;
+    }
+}
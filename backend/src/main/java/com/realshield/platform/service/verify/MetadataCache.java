@@ -0,0 +1,67 @@
+package com.realshield.platform.service.verify;
+
+import com.realshield.platform.utils.MetadataUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+//metadata selections by SHA-256 and rule
+//the same bytes always hold the same metadata, so verifying a file again is a lookup instead of a parse
+//the parse runs outside the lock, two requests for the same new file may both parse it once
+//callers only look up by a hash that is already known: hashing a large video just to find its key would cost far
+//more than the header-only parse it saves, so a file nobody hashed is parsed and cached once its hash shows up
+
+@Component
+public class MetadataCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+
+    //access ordered, so the eldest entry is always the least recently used one
+    private final LinkedHashMap<String, Entry> entries;
+
+    public MetadataCache(@Value("${realshield.verify.metadata-cache.max-size:10000}") int maxSize,
+                         @Value("${realshield.verify.metadata-cache.ttl-minutes:60}") long ttlMinutes) {
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MINUTES.toNanos(ttlMinutes);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > MetadataCache.this.maxSize;
+            }
+        };
+    }
+
+    //sha256 may be null when the file has not been hashed, the selection is then extracted without a lookup and
+    //cached under knownSha256 afterwards if that has become available in the meantime
+    public MetadataUtil.Selection get(String sha256, String rule, Supplier<MetadataUtil.Selection> extract, Supplier<String> knownSha256) {
+        if (sha256 != null) {
+            String key = sha256 + ":" + rule;
+            synchronized (this) {
+                Entry entry = entries.get(key);
+                if (entry != null) {
+                    if (entry.expiresAt - System.nanoTime() > 0) {
+                        return entry.selection;
+                    }
+                    entries.remove(key);
+                }
+            }
+        }
+
+        MetadataUtil.Selection selection = extract.get();
+        String hash = sha256 != null ? sha256 : knownSha256.get();
+        if (hash != null) {
+            synchronized (this) {
+                entries.put(hash + ":" + rule, new Entry(selection, System.nanoTime() + ttlNanos));
+            }
+        }
+        return selection;
+    }
+
+    private record Entry(MetadataUtil.Selection selection, long expiresAt) {
+    }
+}
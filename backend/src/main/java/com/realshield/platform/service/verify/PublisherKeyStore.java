@@ -0,0 +1,206 @@
+package com.realshield.platform.service.verify;
+
+import com.realshield.platform.dto.verify.PublisherKeyDTO;
+import com.realshield.platform.dto.verify.PublisherKeyRequestDTO;
+import com.realshield.platform.exception.InvalidPublicKeyException;
+import com.realshield.platform.exception.PublisherKeyNotFoundException;
+import com.realshield.platform.model.PublisherKey;
+import com.realshield.platform.repository.PublisherKeyRepository;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+//publisher keys by keyId, parsed once into a PublicKey and kept in memory; a repeat check with the same key is a map
+//lookup, the database and the key factory are only hit the first time a key is used (or after a restart)
+//
+//what a publisher signs is the 32 byte SHA-256 of the file, not the file itself, so checking a signature never reads
+//the upload again and a batch can be checked from digests alone:
+//  ED25519  Ed25519 signature over the digest (64 bytes)
+//  ECDSA    NONEwithECDSA over the digest, which is exactly a SHA256withECDSA signature over the file
+//           (openssl dgst -sha256 -sign), DER encoded or raw r || s
+
+@Component
+public class PublisherKeyStore {
+
+    public static final String ED25519 = "ED25519";
+    public static final String ECDSA = "ECDSA";
+
+    //SubjectPublicKeyInfo header of an Ed25519 key, followed by the 32 raw key bytes
+    private static final byte[] ED25519_X509_PREFIX = HexFormat.of().parseHex("302a300506032b6570032100");
+
+    //Signature objects are not thread safe but cheap to reuse, one per thread and scheme
+    private static final ThreadLocal<Signature> ED25519_SIGNATURE = signature("Ed25519");
+    private static final ThreadLocal<Signature> ECDSA_DER_SIGNATURE = signature("NONEwithECDSA");
+    private static final ThreadLocal<Signature> ECDSA_RAW_SIGNATURE = signature("NONEwithECDSAinP1363Format");
+
+    public enum Outcome { VALID, INVALID, MALFORMED }
+
+    //a parsed, active key
+    public record CachedKey(String keyId, String publisher, String algorithm, PublicKey publicKey) {
+    }
+
+    private final PublisherKeyRepository publisherKeyRepository;
+
+    //only active keys are cached, a revoked key is removed right away
+    private final Map<String, CachedKey> keys = new ConcurrentHashMap<>();
+
+    public PublisherKeyStore(PublisherKeyRepository publisherKeyRepository) {
+        this.publisherKeyRepository = publisherKeyRepository;
+    }
+
+    public PublisherKeyDTO register(PublisherKeyRequestDTO request) {
+        String algorithm = algorithm(request.getAlgorithm());
+        PublicKey publicKey = parse(algorithm, request.getPublicKey());
+        if (publisherKeyRepository.existsByKeyId(request.getKeyId())) {
+            throw new InvalidPublicKeyException("Key id " + request.getKeyId() + " is already registered");
+        }
+
+        PublisherKey saved = publisherKeyRepository.save(PublisherKey.builder()
+                .keyId(request.getKeyId())
+                .publisher(request.getPublisher())
+                .algorithm(algorithm)
+                .publicKey(Base64.getEncoder().encodeToString(publicKey.getEncoded()))
+                .active(true)
+                .createdAt(LocalDateTime.now())
+                .build());
+        keys.put(saved.getKeyId(), new CachedKey(saved.getKeyId(), saved.getPublisher(), algorithm, publicKey));
+        return toDTO(saved);
+    }
+
+    public PublisherKeyDTO revoke(String keyId) {
+        PublisherKey key = publisherKeyRepository.findByKeyId(keyId)
+                .orElseThrow(() -> new PublisherKeyNotFoundException("No publisher key with id " + keyId));
+        key.setActive(false);
+        key.setRevokedAt(LocalDateTime.now());
+        PublisherKey saved = publisherKeyRepository.save(key);
+        keys.remove(keyId);
+        return toDTO(saved);
+    }
+
+    //empty for an unknown or revoked key
+    public Optional<CachedKey> find(String keyId) {
+        if (keyId == null || keyId.isBlank()) {
+            return Optional.empty();
+        }
+        CachedKey cached = keys.get(keyId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<CachedKey> loaded = publisherKeyRepository.findByKeyId(keyId)
+                .filter(PublisherKey::isActive)
+                .map(key -> new CachedKey(key.getKeyId(), key.getPublisher(), key.getAlgorithm(), parse(key.getAlgorithm(), key.getPublicKey())));
+        loaded.ifPresent(key -> keys.put(keyId, key));
+        return loaded;
+    }
+
+    //checks a base64 detached signature over the raw SHA-256 digest of the file
+    public Outcome verify(CachedKey key, byte[] sha256, String signature) {
+        byte[] signatureBytes = decodeBase64(signature);
+        if (signatureBytes == null || signatureBytes.length == 0) {
+            return Outcome.MALFORMED;
+        }
+        try {
+            if (ED25519.equals(key.algorithm())) {
+                return check(ED25519_SIGNATURE.get(), key, sha256, signatureBytes) ? Outcome.VALID : Outcome.INVALID;
+            }
+            //raw r || s is exactly twice the field size, a DER sequence of that length is rare but possible
+            int fieldBytes = (((ECPublicKey) key.publicKey()).getParams().getCurve().getField().getFieldSize() + 7) / 8;
+            if (signatureBytes.length == 2 * fieldBytes) {
+                if (check(ECDSA_RAW_SIGNATURE.get(), key, sha256, signatureBytes)) {
+                    return Outcome.VALID;
+                }
+                try {
+                    return check(ECDSA_DER_SIGNATURE.get(), key, sha256, signatureBytes) ? Outcome.VALID : Outcome.INVALID;
+                } catch (GeneralSecurityException e) {
+                    return Outcome.INVALID;
+                }
+            }
+            return check(ECDSA_DER_SIGNATURE.get(), key, sha256, signatureBytes) ? Outcome.VALID : Outcome.INVALID;
+        } catch (GeneralSecurityException e) {
+            //a badly encoded signature, not a wrong one
+            return Outcome.MALFORMED;
+        }
+    }
+
+    private static boolean check(Signature verifier, CachedKey key, byte[] sha256, byte[] signature) throws GeneralSecurityException {
+        verifier.initVerify(key.publicKey());
+        verifier.update(sha256);
+        return verifier.verify(signature);
+    }
+
+    private static String algorithm(String algorithm) {
+        return switch (algorithm.trim().toUpperCase(Locale.ROOT)) {
+            case "ED25519", "EDDSA" -> ED25519;
+            case "ECDSA", "EC" -> ECDSA;
+            default -> throw new InvalidPublicKeyException("Unsupported algorithm " + algorithm + " (expected ED25519 or ECDSA)");
+        };
+    }
+
+    //PEM or base64 X.509 SubjectPublicKeyInfo; for Ed25519 also the 32 raw key bytes
+    private static PublicKey parse(String algorithm, String encoded) {
+        String base64 = encoded.replaceAll("-----(BEGIN|END) PUBLIC KEY-----", "");
+        byte[] bytes = decodeBase64(base64);
+        if (bytes == null) {
+            throw new InvalidPublicKeyException("Public key is not base64 or PEM");
+        }
+        if (ED25519.equals(algorithm) && bytes.length == 32) {
+            byte[] x509 = new byte[ED25519_X509_PREFIX.length + 32];
+            System.arraycopy(ED25519_X509_PREFIX, 0, x509, 0, ED25519_X509_PREFIX.length);
+            System.arraycopy(bytes, 0, x509, ED25519_X509_PREFIX.length, 32);
+            bytes = x509;
+        }
+        try {
+            return KeyFactory.getInstance(ED25519.equals(algorithm) ? "Ed25519" : "EC").generatePublic(new X509EncodedKeySpec(bytes));
+        } catch (GeneralSecurityException e) {
+            throw new InvalidPublicKeyException("Public key is not a valid " + algorithm + " key");
+        }
+    }
+
+    //standard or URL safe alphabet, whitespace and line breaks ignored
+    private static byte[] decodeBase64(String value) {
+        if (value == null) {
+            return null;
+        }
+        String compact = value.replaceAll("\\s", "");
+        try {
+            return compact.indexOf('-') >= 0 || compact.indexOf('_') >= 0
+                    ? Base64.getUrlDecoder().decode(compact)
+                    : Base64.getDecoder().decode(compact);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static ThreadLocal<Signature> signature(String algorithm) {
+        return ThreadLocal.withInitial(() -> {
+            try {
+                return Signature.getInstance(algorithm);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(algorithm + " is not available", e);
+            }
+        });
+    }
+
+    private static PublisherKeyDTO toDTO(PublisherKey key) {
+        return PublisherKeyDTO.builder()
+                .keyId(key.getKeyId())
+                .publisher(key.getPublisher())
+                .algorithm(key.getAlgorithm())
+                .active(key.isActive())
+                .createdAt(key.getCreatedAt())
+                .revokedAt(key.getRevokedAt())
+                .build();
+    }
+}
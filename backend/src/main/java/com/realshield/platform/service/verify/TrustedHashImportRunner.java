@@ -0,0 +1,66 @@
+package com.realshield.platform.service.verify;
+
+import com.realshield.platform.dto.verify.TrustedHashImportDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+//command line import of a trusted hash file, for partner lists too large to upload, the application exits when done:
+//  java -jar realshield-platform.jar --spring.main.web-application-type=none \
+//      --realshield.verify.trusted-hashes.import-file=/data/partner.csv \
+//      --realshield.verify.trusted-hashes.import-source=partner [--realshield.verify.trusted-hashes.import-format=ndjson]
+//progress is printed after every chunk, the exit code is 0 on success and 1 on failure
+//runners go before ApplicationReadyEvent, so the registry is loaded here for the duplicate check, and not
+//rebuilt after the import since the application exits; a running server picks the rows up on its next refresh
+
+@Component
+@ConditionalOnProperty("realshield.verify.trusted-hashes.import-file")
+public class TrustedHashImportRunner implements ApplicationRunner {
+
+    private final TrustedHashImporter trustedHashImporter;
+    private final TrustedHashRegistry trustedHashRegistry;
+    private final ConfigurableApplicationContext context;
+    private final Path file;
+    private final String format;
+    private final String source;
+
+    public TrustedHashImportRunner(TrustedHashImporter trustedHashImporter,
+                                   TrustedHashRegistry trustedHashRegistry,
+                                   ConfigurableApplicationContext context,
+                                   @Value("${realshield.verify.trusted-hashes.import-file}") Path file,
+                                   @Value("${realshield.verify.trusted-hashes.import-format:}") String format,
+                                   @Value("${realshield.verify.trusted-hashes.import-source:}") String source) {
+        this.trustedHashImporter = trustedHashImporter;
+        this.trustedHashRegistry = trustedHashRegistry;
+        this.context = context;
+        this.file = file;
+        this.format = format;
+        this.source = source;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int exitCode = 0;
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            TrustedHashImporter.Format importFormat = TrustedHashImporter.Format.of(format, file.getFileName().toString());
+            trustedHashRegistry.reload();
+            TrustedHashImportDTO report = trustedHashImporter.importHashes(inputStream, importFormat,
+                    source.isBlank() ? file.getFileName().toString() : source, false);
+            System.out.println("Trusted hash import finished in " + report.getElapsedMs() + " ms, " + report.getRegistrySize()
+                    + " trusted hashes" + (report.getInvalid() > 0 ? ", first invalid lines: " + report.getInvalidLines() : ""));
+        } catch (Exception e) {
+            System.out.println("Trusted hash import of " + file + " failed: " + e.getMessage());
+            exitCode = 1;
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+}
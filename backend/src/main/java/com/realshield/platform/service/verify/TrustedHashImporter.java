@@ -0,0 +1,269 @@
+package com.realshield.platform.service.verify;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.realshield.platform.dto.verify.TrustedHashImportDTO;
+import com.realshield.platform.exception.InvalidUploadException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+//bulk import of partner supplied SHA-256 digests into verified_media
+//
+//the file is streamed line by line, never held in memory: every chunk of valid rows goes in as one JDBC batch
+//in its own transaction (with rewriteBatchedStatements MySQL turns it into a few multi row inserts),
+//and the trusted hash registry is rebuilt once at the end instead of once per row
+//
+//CSV: a header naming a hash / sha256 / digest column (and optionally file_name), or no header and the hash
+//in the first column, the file name in the second
+//NDJSON: one object per line, {"hash": "...", "fileName": "..."} (sha256 / file_name are accepted too)
+//
+//digests the registry already trusts and repeats within a chunk are skipped before they reach the database;
+//everything else (a digest repeated in two chunks, one stored since the registry was loaded) is left to the unique
+//index on verified_media.hash, insert ignore drops those rows and they are counted as duplicates
+
+@Component
+public class TrustedHashImporter {
+
+    public enum Format {
+        CSV, NDJSON;
+
+        //the explicit format wins, otherwise the file extension decides
+        public static Format of(String format, String fileName) {
+            String name = format != null && !format.isBlank() ? format : extension(fileName);
+            return switch (name.toLowerCase(Locale.ROOT)) {
+                case "csv", "txt" -> CSV;
+                case "ndjson", "jsonl" -> NDJSON;
+                default -> throw new InvalidUploadException("Unsupported import format: " + name + " (expected csv or ndjson)");
+            };
+        }
+
+        private static String extension(String fileName) {
+            int dot = fileName == null ? -1 : fileName.lastIndexOf('.');
+            return dot < 0 ? "" : fileName.substring(dot + 1);
+        }
+    }
+
+    private static final String INSERT_SQL = "insert ignore into verified_media (file_name, hash, source, verified_at) values (?, ?, ?, ?)";
+
+    private static final Set<String> HASH_COLUMNS = Set.of("hash", "sha256", "sha-256", "digest");
+    private static final Set<String> NAME_COLUMNS = Set.of("file_name", "filename", "file", "name");
+
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private static final int MAX_FILE_NAME = 255;
+    private static final int MAX_SOURCE = 100;
+    private static final int MAX_INVALID_LINES = 20;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final TrustedHashRegistry trustedHashRegistry;
+    private final int chunkSize;
+
+    public TrustedHashImporter(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper,
+                               TrustedHashRegistry trustedHashRegistry,
+                               @Value("${realshield.verify.trusted-hashes.import-chunk-size:5000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.trustedHashRegistry = trustedHashRegistry;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public TrustedHashImportDTO importHashes(InputStream inputStream, Format format, String source) {
+        return importHashes(inputStream, format, source, true);
+    }
+
+    //reloadRegistry false leaves the in-memory registry as it was, for a command line import that exits right after
+    public TrustedHashImportDTO importHashes(InputStream inputStream, Format format, String source, boolean reloadRegistry) {
+        long start = System.nanoTime();
+        String trimmedSource = source == null || source.isBlank() ? null : truncate(source.trim(), MAX_SOURCE);
+        TrustedHashImportDTO report = TrustedHashImportDTO.builder()
+                .source(trimmedSource)
+                .format(format.name())
+                .invalidLines(new ArrayList<>())
+                .build();
+
+        Map<Digest, String> chunk = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8), 1 << 16)) {
+            //CSV column positions, decided by the first line
+            int hashColumn = 0;
+            int nameColumn = 1;
+            boolean firstLine = true;
+            long lineNumber = 0;
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (firstLine && !line.isEmpty() && line.charAt(0) == BYTE_ORDER_MARK) {
+                    line = line.substring(1);
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                String hash;
+                String fileName;
+                if (format == Format.CSV) {
+                    List<String> fields = csvFields(line);
+                    if (firstLine && Digest.parse(fields.get(0).trim()) == null) {
+                        firstLine = false;
+                        hashColumn = column(fields, HASH_COLUMNS);
+                        nameColumn = column(fields, NAME_COLUMNS);
+                        if (hashColumn >= 0) {
+                            continue;
+                        }
+                        //not a header after all, an invalid first row of a headerless file
+                        hashColumn = 0;
+                        nameColumn = 1;
+                    }
+                    hash = hashColumn < fields.size() ? fields.get(hashColumn) : null;
+                    fileName = nameColumn >= 0 && nameColumn < fields.size() ? fields.get(nameColumn) : null;
+                } else {
+                    JsonNode node = json(line);
+                    hash = node == null ? null : text(node, "hash", "sha256");
+                    fileName = node == null ? null : text(node, "fileName", "file_name");
+                }
+                firstLine = false;
+                report.setLines(report.getLines() + 1);
+
+                Digest digest = hash == null ? null : Digest.parse(hash.trim());
+                if (digest == null) {
+                    report.setInvalid(report.getInvalid() + 1);
+                    if (report.getInvalidLines().size() < MAX_INVALID_LINES) {
+                        report.getInvalidLines().add(lineNumber);
+                    }
+                    continue;
+                }
+                if (trustedHashRegistry.contains(digest) || chunk.containsKey(digest)) {
+                    report.setDuplicates(report.getDuplicates() + 1);
+                    continue;
+                }
+                chunk.put(digest, fileName == null || fileName.isBlank() ? null : truncate(fileName.trim(), MAX_FILE_NAME));
+
+                if (chunk.size() == chunkSize) {
+                    insert(chunk, trimmedSource, report);
+                    chunk.clear();
+                    progress(report, start);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Trusted hash import failed after " + report.getImported() + " rows", e);
+        }
+
+        if (!chunk.isEmpty()) {
+            insert(chunk, trimmedSource, report);
+        }
+        if (!reloadRegistry) {
+            report.setRegistrySize(trustedHashRegistry.size() + (int) report.getImported());
+        } else {
+            if (report.getImported() > 0) {
+                trustedHashRegistry.reload();
+            }
+            report.setRegistrySize(trustedHashRegistry.size());
+        }
+        report.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        progress(report, start);
+        return report;
+    }
+
+    private void insert(Map<Digest, String> chunk, String source, TrustedHashImportDTO report) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(chunk.size());
+        chunk.forEach((digest, fileName) -> rows.add(new Object[]{fileName, digest.toString(), source, now}));
+        int[] counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(INSERT_SQL, rows));
+
+        //0 for a row the unique index ignored; a rewritten batch may only report SUCCESS_NO_INFO, counted as inserted
+        long inserted = 0;
+        for (int count : counts) {
+            inserted += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+        }
+        report.setImported(report.getImported() + inserted);
+        report.setDuplicates(report.getDuplicates() + chunk.size() - inserted);
+    }
+
+    private static void progress(TrustedHashImportDTO report, long start) {
+        long elapsed = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        System.out.println("Trusted hash import" + (report.getSource() != null ? " (" + report.getSource() + ")" : "") + ": "
+                + report.getLines() + " lines, " + report.getImported() + " imported, " + report.getDuplicates() + " duplicates, "
+                + report.getInvalid() + " invalid, " + (report.getLines() * 1000 / elapsed) + " lines/s");
+    }
+
+    private JsonNode json(String line) {
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            return node != null && node.isObject() ? node : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String text(JsonNode node, String name, String alternative) {
+        JsonNode value = node.has(name) ? node.get(name) : node.get(alternative);
+        return value != null && value.isTextual() ? value.asText() : null;
+    }
+
+    private static int column(List<String> header, Set<String> names) {
+        for (int i = 0; i < header.size(); i++) {
+            if (names.contains(header.get(i).trim().toLowerCase(Locale.ROOT))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    //RFC 4180 fields of one line: commas inside double quotes, "" for a quote
+    private static List<String> csvFields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String truncate(String value, int length) {
+        return value.length() <= length ? value : value.substring(0, length);
+    }
+}
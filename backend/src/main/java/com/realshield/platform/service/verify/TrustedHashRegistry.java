@@ -0,0 +1,165 @@
+package com.realshield.platform.service.verify;
+
+import com.realshield.platform.repository.VerifiedMediaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+//every SHA-256 in verified_media, held in memory so verifySource never queries the database per upload
+//
+//lookup: Bloom filter (a few bit reads, answers most unknown files) -> binary search in the off-heap DigestTable
+//-> the small set of digests added since the table was built
+//the table is loaded from verified_media once the application is ready, then rows with a higher id are picked up
+//every refresh interval; once enough have piled up they are merged into a new table and Bloom filter
+//readers never lock, writers (load / refresh / add) are serialized
+
+@Component
+public class TrustedHashRegistry {
+
+    private final VerifiedMediaRepository verifiedMediaRepository;
+    private final int pageSize;
+    private final double falsePositiveRate;
+
+    private volatile Snapshot snapshot;
+
+    //highest verified_media id already loaded
+    private long lastLoadedId;
+
+    public TrustedHashRegistry(VerifiedMediaRepository verifiedMediaRepository,
+                               @Value("${realshield.verify.trusted-hashes.page-size:10000}") int pageSize,
+                               @Value("${realshield.verify.trusted-hashes.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.verifiedMediaRepository = verifiedMediaRepository;
+        this.pageSize = pageSize;
+        this.falsePositiveRate = falsePositiveRate;
+        this.snapshot = snapshot(DigestTable.EMPTY);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    //rebuilds everything from verified_media, pages through it by id so no entities are loaded
+    public synchronized void reload() {
+        long start = System.nanoTime();
+        int capacity = (int) Math.min(Integer.MAX_VALUE / Digest.SIZE, Math.max(1024, verifiedMediaRepository.count()));
+        ByteBuffer digests = ByteBuffer.allocateDirect(capacity * Digest.SIZE);
+        int count = 0;
+        int invalid = 0;
+        long afterId = 0;
+
+        List<VerifiedMediaRepository.HashView> page;
+        do {
+            page = verifiedMediaRepository.findHashesAfter(afterId, PageRequest.of(0, pageSize));
+            for (VerifiedMediaRepository.HashView row : page) {
+                afterId = row.getId();
+                Digest digest = Digest.parse(row.getHash());
+                if (digest == null) {
+                    invalid++;
+                    continue;
+                }
+                //rows added between count() and now
+                if (count == capacity) {
+                    capacity = (int) Math.min(Integer.MAX_VALUE / Digest.SIZE, capacity * 2L);
+                    ByteBuffer grown = ByteBuffer.allocateDirect(capacity * Digest.SIZE);
+                    grown.put(digests.clear().limit(count * Digest.SIZE));
+                    digests = grown;
+                }
+                DigestTable.put(digests, count++, digest);
+            }
+        } while (page.size() == pageSize);
+
+        DigestTable table = DigestTable.build(digests, count);
+        snapshot = snapshot(table);
+        lastLoadedId = afterId;
+
+        System.out.println("Trusted hash registry loaded " + table.size() + " hashes (" + invalid + " invalid rows skipped) in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms, "
+                + (table.bytes() / 1024) + " KB off-heap");
+    }
+
+    //picks up verified_media rows inserted since the last load or refresh
+    @Scheduled(fixedDelayString = "${realshield.verify.trusted-hashes.refresh-interval-ms:60000}",
+            initialDelayString = "${realshield.verify.trusted-hashes.refresh-interval-ms:60000}")
+    public synchronized void refresh() {
+        List<VerifiedMediaRepository.HashView> page;
+        do {
+            page = verifiedMediaRepository.findHashesAfter(lastLoadedId, PageRequest.of(0, pageSize));
+            for (VerifiedMediaRepository.HashView row : page) {
+                lastLoadedId = row.getId();
+                Digest digest = Digest.parse(row.getHash());
+                if (digest != null) {
+                    addLocked(digest);
+                }
+            }
+        } while (page.size() == pageSize);
+    }
+
+    //a hash trusted right away, for code that has just stored a VerifiedMedia row
+    public synchronized void add(String sha256) {
+        Digest digest = Digest.parse(sha256);
+        if (digest != null) {
+            addLocked(digest);
+        }
+    }
+
+    public boolean contains(String sha256) {
+        Digest digest = Digest.parse(sha256);
+        return digest != null && contains(digest);
+    }
+
+    boolean contains(Digest digest) {
+        Snapshot current = snapshot;
+        if (!current.bloom.mightContain(digest)) {
+            return false;
+        }
+        return current.table.contains(digest) || current.pending.contains(digest);
+    }
+
+    public int size() {
+        Snapshot current = snapshot;
+        return current.table.size() + current.pending.size();
+    }
+
+    private void addLocked(Digest digest) {
+        Snapshot current = snapshot;
+        if (current.table.contains(digest) || !current.pending.add(digest)) {
+            return;
+        }
+        current.bloom.add(digest);
+
+        //the Bloom filter was sized with room for this many additions, past that its false positive rate climbs
+        //a reader still on the old snapshot keeps seeing its pending set, so nothing goes missing during the swap
+        if (current.pending.size() > headroom(current.table.size())) {
+            List<Digest> sorted = new ArrayList<>(current.pending);
+            sorted.sort(null);
+            snapshot = snapshot(current.table.merge(sorted));
+        }
+    }
+
+    private Snapshot snapshot(DigestTable table) {
+        BloomFilter bloom = BloomFilter.forCapacity((long) table.size() + headroom(table.size()), falsePositiveRate);
+        for (int i = 0; i < table.size(); i++) {
+            bloom.add(table.word(i, 0), table.word(i, 1));
+        }
+        return new Snapshot(table, bloom, ConcurrentHashMap.newKeySet());
+    }
+
+    private static int headroom(int size) {
+        return Math.max(4096, size / 4);
+    }
+
+    //pending: added after the table was built, merged into the next snapshot
+    private record Snapshot(DigestTable table, BloomFilter bloom, Set<Digest> pending) {
+    }
+}
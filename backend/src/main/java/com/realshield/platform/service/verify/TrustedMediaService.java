@@ -0,0 +1,57 @@
+package com.realshield.platform.service.verify;
+
+import com.realshield.platform.dto.verify.TrustedMediaDTO;
+import com.realshield.platform.model.VerifiedMedia;
+import com.realshield.platform.repository.VerifiedMediaRepository;
+import com.realshield.platform.service.media.MediaContext;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+//registers an original file as trusted: its SHA-256 for exact matches and its chunk manifest for clipped copies
+//both in-memory indexes learn about it right away, without waiting for their refresh
+
+@Service
+public class TrustedMediaService {
+
+    private final VerifiedMediaRepository verifiedMediaRepository;
+    private final TrustedHashRegistry trustedHashRegistry;
+    private final ManifestIndex manifestIndex;
+
+    public TrustedMediaService(VerifiedMediaRepository verifiedMediaRepository,
+                               TrustedHashRegistry trustedHashRegistry,
+                               ManifestIndex manifestIndex) {
+        this.verifiedMediaRepository = verifiedMediaRepository;
+        this.trustedHashRegistry = trustedHashRegistry;
+        this.manifestIndex = manifestIndex;
+    }
+
+    public TrustedMediaDTO register(MediaContext media, String source) {
+        //before the hash, so both come from one read of the file
+        ChunkManifest manifest = media.getChunkManifest();
+
+        //hashes are unique, a file that is already trusted (e.g. from a bulk import without manifest) gets its row updated
+        VerifiedMedia row = verifiedMediaRepository.findByHash(media.getSha256())
+                .orElseGet(() -> VerifiedMedia.builder().hash(media.getSha256()).build());
+        row.setFileName(media.getFileName());
+        row.setSource(source);
+        row.setVerifiedAt(LocalDateTime.now());
+        row.setManifest(manifest.encode());
+        row.setMerkleRoot(manifest.merkleRoot());
+        row.setSizeBytes(manifest.totalBytes());
+        VerifiedMedia saved = verifiedMediaRepository.save(row);
+
+        trustedHashRegistry.add(saved.getHash());
+        manifestIndex.add(saved.getId(), manifest);
+
+        return TrustedMediaDTO.builder()
+                .id(saved.getId())
+                .fileName(saved.getFileName())
+                .hash(saved.getHash())
+                .merkleRoot(saved.getMerkleRoot())
+                .chunkCount(manifest.chunkCount())
+                .sizeBytes(manifest.totalBytes())
+                .source(saved.getSource())
+                .build();
+    }
+}
@@ -0,0 +1,65 @@
+package com.realshield.platform.service.verify;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+//ddl-auto=update never alters an existing column or adds an index over duplicate rows, so a verified_media table
+//created by an earlier version keeps its sequence fed id and non-unique hash; inserts then fail at runtime with
+//"Field 'id' doesn't have a default value". Checked once at startup (after the schema update, before any runner)
+//so the fix is named up front: db/migration/verified_media_identity_mysql.sql
+
+@Component
+public class VerifiedMediaSchemaCheck implements SmartInitializingSingleton {
+
+    private static final String MIGRATION = "src/main/resources/db/migration/verified_media_identity_mysql.sql";
+
+    private final DataSource dataSource;
+
+    public VerifiedMediaSchemaCheck(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String table = metaData.storesUpperCaseIdentifiers() ? "VERIFIED_MEDIA" : "verified_media";
+            String idColumn = metaData.storesUpperCaseIdentifiers() ? "ID" : "id";
+            String hashColumn = metaData.storesUpperCaseIdentifiers() ? "HASH" : "hash";
+
+            Boolean generatedId = null;
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, table, idColumn)) {
+                if (columns.next()) {
+                    generatedId = "YES".equalsIgnoreCase(columns.getString("IS_AUTOINCREMENT"));
+                }
+            }
+            if (generatedId == null) {
+                //no table yet, nothing to check
+                return;
+            }
+
+            boolean uniqueHash = false;
+            try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), null, table, true, false)) {
+                while (indexes.next()) {
+                    uniqueHash |= hashColumn.equalsIgnoreCase(indexes.getString("COLUMN_NAME"));
+                }
+            }
+
+            if (!generatedId || !uniqueHash) {
+                System.out.println("WARNING: verified_media was created by an older version ("
+                        + (!generatedId ? "id is not generated by the database" : "")
+                        + (!generatedId && !uniqueHash ? ", " : "")
+                        + (!uniqueHash ? "hash is not unique" : "")
+                        + "), registering trusted media and bulk imports will fail until " + MIGRATION + " has been run");
+            }
+        } catch (SQLException e) {
+            System.out.println("WARNING: could not check the verified_media schema: " + e.getMessage());
+        }
+    }
+}
@@ -1,14 +1,34 @@
 package com.realshield.platform.service.verify;
 
 
+import com.realshield.platform.dto.verify.SignatureCheckRequestDTO;
 import com.realshield.platform.dto.verify.VerifyResultDTO;
+import com.realshield.platform.service.media.MediaContext;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
+
 public interface VerifyService {
 
-    VerifyResultDTO verifySource(MultipartFile file);
+    VerifyResultDTO verifySource(MediaContext media);
+
+    //detached signature over the file's SHA-256, made with the publisher key keyId (see PublisherKeyStore)
+    VerifyResultDTO verifySignature(MediaContext media, String keyId, String signature);
+
+    //many signatures in one call, checked from the SHA-256 of each file without the files themselves
+    List<VerifyResultDTO> verifySignatures(List<SignatureCheckRequestDTO> checks);
+
+    VerifyResultDTO verifyMetadata(MediaContext media);
+
+    default VerifyResultDTO verifySource(MultipartFile file) {
+        return verifySource(MediaContext.of(file));
+    }
 
-    VerifyResultDTO verifySignature(MultipartFile file);
+    default VerifyResultDTO verifySignature(MultipartFile file, String keyId, String signature) {
+        return verifySignature(MediaContext.of(file), keyId, signature);
+    }
 
-    VerifyResultDTO verifyMetadata(MultipartFile file);
+    default VerifyResultDTO verifyMetadata(MultipartFile file) {
+        return verifyMetadata(MediaContext.of(file));
+    }
 }
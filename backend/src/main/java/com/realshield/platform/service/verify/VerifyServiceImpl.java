@@ -1,31 +1,79 @@
 package com.realshield.platform.service.verify;
 
 
+import com.realshield.platform.dto.verify.SignatureCheckRequestDTO;
 import com.realshield.platform.dto.verify.VerifyResultDTO;
+import com.realshield.platform.exception.InvalidSignatureRequestException;
+import com.realshield.platform.repository.VerifiedMediaRepository;
+import com.realshield.platform.service.media.MediaContext;
 import com.realshield.platform.utils.MetadataUtil;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
-import java.util.Map;
-import com.realshield.platform.utils.FileHashUtil;
-
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class VerifyServiceImpl implements VerifyService {
 
+    //the editing rule only needs these tags, so only the segments / boxes / chunks that can hold them are parsed
+    private static final String EDITING_RULE = "editing";
+    private static final Set<String> EDITING_TAGS = Set.of("Software", "Encoder");
+
+    private final MetadataCache metadataCache;
+    private final TrustedHashRegistry trustedHashRegistry;
+    private final ManifestIndex manifestIndex;
+    private final VerifiedMediaRepository verifiedMediaRepository;
+    private final PublisherKeyStore publisherKeyStore;
+    private final double minMatchFraction;
+    private final int maxSignatureBatch;
+
+    public VerifyServiceImpl(MetadataCache metadataCache,
+                             TrustedHashRegistry trustedHashRegistry,
+                             ManifestIndex manifestIndex,
+                             VerifiedMediaRepository verifiedMediaRepository,
+                             PublisherKeyStore publisherKeyStore,
+                             @Value("${realshield.verify.manifests.min-match-fraction:0.05}") double minMatchFraction,
+                             @Value("${realshield.verify.signature.max-batch:1000}") int maxSignatureBatch) {
+        this.metadataCache = metadataCache;
+        this.trustedHashRegistry = trustedHashRegistry;
+        this.manifestIndex = manifestIndex;
+        this.verifiedMediaRepository = verifiedMediaRepository;
+        this.publisherKeyStore = publisherKeyStore;
+        this.minMatchFraction = minMatchFraction;
+        this.maxSignatureBatch = maxSignatureBatch;
+    }
+
     @Override
-    public VerifyResultDTO verifySource(MultipartFile file) {
+    public VerifyResultDTO verifySource(MediaContext media) {
 
-        String uploadedHash = FileHashUtil.generateSHA256(file);
+        //with manifests to match against, the manifest and the file hash come out of one read of the upload
+        ChunkManifest manifest = manifestIndex.isEmpty() ? null : media.getChunkManifest();
 
-        // TEMP trusted hash (later from DB)
-        String trustedHash = "abc123xyz";
+        //in memory lookup against every hash in verified_media, no query per upload
+        boolean verified = trustedHashRegistry.contains(media.getSha256());
 
-        boolean verified = uploadedHash.equals(trustedHash);
+        //not a trusted file as a whole, maybe a clip of one: match its chunks against the originals' manifests
+        Optional<ManifestIndex.Match> match = verified || manifest == null ? Optional.empty() : manifestIndex.match(manifest);
+        if (match.isPresent() && match.get().fraction() >= minMatchFraction) {
+            ManifestIndex.Match best = match.get();
+            String original = verifiedMediaRepository.findFileNameById(best.mediaId()).orElse("#" + best.mediaId());
+            return new VerifyResultDTO(
+                    media.getFileName(),
+                    "SOURCE",
+                    "PARTIALLY VERIFIED",
+                    String.format("%.1f%% of the content (%d of %d chunks) comes from the trusted original %s",
+                            best.fraction() * 100, best.matchedChunks(), best.uploadChunks(), original)
+            );
+        }
 
         return new VerifyResultDTO(
-                file.getOriginalFilename(),
+                media.getFileName(),
                 "SOURCE",
                 verified ? "VERIFIED" : "NOT VERIFIED",
                 verified ? "Trusted source confirmed" : "Source mismatch"
@@ -33,43 +81,98 @@ public class VerifyServiceImpl implements VerifyService {
     }
 
     @Override
-    public VerifyResultDTO verifySignature(MultipartFile file) {
+    public VerifyResultDTO verifySignature(MediaContext media, String keyId, String signature) {
+        if (isBlank(keyId) || isBlank(signature)) {
+            return new VerifyResultDTO(
+                    media.getFileName(),
+                    "SIGNATURE",
+                    "NOT VERIFIED",
+                    "No detached signature supplied, SHA-256: " + media.getSha256()
+            );
+        }
+        return checkSignature(media.getFileName(), HexFormat.of().parseHex(media.getSha256()), keyId, signature, publisherKeyStore.find(keyId));
+    }
 
-        String fileHash = FileHashUtil.generateSHA256(file);
+    @Override
+    public List<VerifyResultDTO> verifySignatures(List<SignatureCheckRequestDTO> checks) {
+        if (checks.size() > maxSignatureBatch) {
+            throw new InvalidSignatureRequestException("At most " + maxSignatureBatch + " signatures per batch, got " + checks.size());
+        }
 
-        return new VerifyResultDTO(
-                file.getOriginalFilename(),
-                "SIGNATURE",
-                "VERIFIED",
-                "SHA-256 hash generated: " + fileHash
-        );
+        //every key is looked up once per batch, however many entries name it
+        Map<String, Optional<PublisherKeyStore.CachedKey>> keys = new HashMap<>();
+        List<VerifyResultDTO> results = new ArrayList<>(checks.size());
+        for (SignatureCheckRequestDTO check : checks) {
+            String name = check.getFileName() != null ? check.getFileName() : check.getSha256();
+            Digest digest = Digest.parse(check.getSha256());
+            if (digest == null || isBlank(check.getKeyId()) || isBlank(check.getSignature())) {
+                results.add(new VerifyResultDTO(name, "SIGNATURE", "NOT VERIFIED",
+                        digest == null ? "Not a SHA-256: " + check.getSha256() : "No detached signature supplied"));
+                continue;
+            }
+            Optional<PublisherKeyStore.CachedKey> key = keys.computeIfAbsent(check.getKeyId(), publisherKeyStore::find);
+            results.add(checkSignature(name, HexFormat.of().parseHex(digest.toString()), check.getKeyId(), check.getSignature(), key));
+        }
+        return results;
+    }
+
+    private VerifyResultDTO checkSignature(String fileName, byte[] sha256, String keyId, String signature, Optional<PublisherKeyStore.CachedKey> key) {
+        if (key.isEmpty()) {
+            return new VerifyResultDTO(fileName, "SIGNATURE", "NOT VERIFIED", "Unknown or revoked publisher key " + keyId);
+        }
+        PublisherKeyStore.CachedKey publisherKey = key.get();
+        return switch (publisherKeyStore.verify(publisherKey, sha256, signature)) {
+            case VALID -> new VerifyResultDTO(fileName, "SIGNATURE", "VERIFIED",
+                    "Signed by " + publisherKey.publisher() + " (key " + keyId + ", " + publisherKey.algorithm() + ")");
+            case INVALID -> new VerifyResultDTO(fileName, "SIGNATURE", "NOT VERIFIED",
+                    "Signature does not match this file for key " + keyId);
+            case MALFORMED -> new VerifyResultDTO(fileName, "SIGNATURE", "NOT VERIFIED",
+                    "Signature is not a base64 " + publisherKey.algorithm() + " signature");
+        };
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
     }
 
     @Override
-    public VerifyResultDTO verifyMetadata(MultipartFile file) {
+    public VerifyResultDTO verifyMetadata(MediaContext media) {
 
-        Map<String, String> metadata = MetadataUtil.extractImageMetadata(file);
+        //the cache is only keyed by a hash something else already paid for, the parse itself reads just the headers
+        MetadataUtil.Selection metadata = metadataCache.get(media.getKnownSha256(), EDITING_RULE,
+                () -> MetadataUtil.extractMetadata(media.getFile(), media.getSniffedType(), EDITING_TAGS),
+                media::getKnownSha256);
 
         if (metadata.isEmpty()) {
             return new VerifyResultDTO(
-                    file.getOriginalFilename(),
+                    media.getFileName(),
                     "METADATA",
                     "NOT VERIFIED",
                     "No metadata found — possible manipulation"
             );
         }
 
-        if (metadata.containsKey("Software")) {
+        if (metadata.tags().containsKey("Software")) {
+            return new VerifyResultDTO(
+                    media.getFileName(),
+                    "METADATA",
+                    "WARNING",
+                    "Media edited using: " + metadata.tags().get("Software")
+            );
+        }
+
+        //video written by a transcoder (ffmpeg, HandBrake ...) rather than by the camera
+        if (metadata.tags().containsKey("Encoder")) {
             return new VerifyResultDTO(
-                    file.getOriginalFilename(),
+                    media.getFileName(),
                     "METADATA",
                     "WARNING",
-                    "Media edited using: " + metadata.get("Software")
+                    "Media re-encoded using: " + metadata.tags().get("Encoder")
             );
         }
 
         return new VerifyResultDTO(
-                file.getOriginalFilename(),
+                media.getFileName(),
                 "METADATA",
                 "VERIFIED",
                 "Metadata appears consistent and original"
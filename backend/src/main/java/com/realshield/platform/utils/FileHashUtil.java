@@ -1,25 +1,155 @@
 package com.realshield.platform.utils;
 import org.springframework.web.multipart.MultipartFile;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 
 //this is the class which convert any file into a unique hashcode
+//the file is never loaded on the heap as a whole, it is read in fixed size chunks
+//so a 500 MB video costs the same memory to hash as a 5 KB image
 
 public class FileHashUtil {
 
-    public static String generateSHA256(MultipartFile file) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = digest.digest(file.getBytes());
+    //size of one read from a stream
+    private static final int CHUNK_SIZE = 64 * 1024;
 
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hashBytes) {
-                hexString.append(String.format("%02x", b));
-            }
-            return hexString.toString();
+    //size of one memory mapped window over a file on disk
+    private static final long MAP_REGION_SIZE = 64L * 1024 * 1024;
+
+    //below this size mapping the file costs more than just reading it
+    private static final long MAP_THRESHOLD = 1024 * 1024;
+
+    //segment of the tree hash, part of its definition: the same file hashed with another segment size gives another root
+    public static final long TREE_SEGMENT_SIZE = 16L * 1024 * 1024;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    public static String generateSHA256(MultipartFile file) {
+        try (InputStream inputStream = file.getInputStream()) {
+            return toHex(digest(inputStream));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to generate file hash");
+        }
+    }
 
+    public static String generateSHA256(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return toHex(digest(channel));
         } catch (Exception e) {
             throw new RuntimeException("Failed to generate file hash");
         }
     }
+
+    //hashes a stream chunk by chunk, if the stream is backed by a file we hash the channel directly
+    public static byte[] digest(InputStream inputStream) throws IOException {
+        if (inputStream instanceof FileInputStream fileInputStream) {
+            return digest(fileInputStream.getChannel());
+        }
+
+        MessageDigest digest = newSha256();
+        byte[] buffer = new byte[CHUNK_SIZE];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return digest.digest();
+    }
+
+    //hashes the channel from its current position to the end using memory mapped windows
+    public static byte[] digest(FileChannel channel) throws IOException {
+        MessageDigest digest = newSha256();
+        long position = channel.position();
+        long size = channel.size();
+
+        if (size - position < MAP_THRESHOLD) {
+            byte[] buffer = new byte[CHUNK_SIZE];
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+            while (channel.read(byteBuffer) != -1) {
+                digest.update(buffer, 0, byteBuffer.position());
+                byteBuffer.clear();
+            }
+            return digest.digest();
+        }
+
+        while (position < size) {
+            long length = Math.min(MAP_REGION_SIZE, size - position);
+            MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            digest.update(region);
+            position += length;
+        }
+        channel.position(size);
+        return digest.digest();
+    }
+
+    //tree hash: every 16 MB segment is hashed on its own over a memory mapped region, the segments in parallel on
+    //the executor, and the root is SHA-256 over the segment size and the segment hashes in order
+    //  leaf = SHA-256(0x00 || segment), root = SHA-256(0x01 || segment size (8 bytes) || leaf 0 || leaf 1 ...)
+    //plain SHA-256 is one sequential chain over the whole file, this spreads a multi gigabyte file over every core
+    public static String treeHash(Path path, ExecutorService executor) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int segments = (int) Math.max(1, (size + TREE_SEGMENT_SIZE - 1) / TREE_SEGMENT_SIZE);
+
+            List<Callable<byte[]>> leaves = new ArrayList<>(segments);
+            for (int i = 0; i < segments; i++) {
+                long position = i * TREE_SEGMENT_SIZE;
+                long length = Math.min(TREE_SEGMENT_SIZE, size - position);
+                leaves.add(() -> {
+                    MessageDigest digest = newSha256();
+                    digest.update((byte) 0);
+                    //FileChannel.map is positional, the tasks share the channel
+                    digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+                    return digest.digest();
+                });
+            }
+
+            MessageDigest root = newSha256();
+            root.update((byte) 1);
+            root.update(ByteBuffer.allocate(8).putLong(0, TREE_SEGMENT_SIZE));
+            for (Future<byte[]> leaf : executor.invokeAll(leaves)) {
+                root.update(leaf.get());
+            }
+            return toHex(root.digest());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Tree hash interrupted");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException("Tree hash failed", e.getCause());
+        }
+    }
+
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    //lowercase hex without String.format, one char array per digest
+    public static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int value = bytes[i] & 0xff;
+            chars[i * 2] = HEX[value >>> 4];
+            chars[i * 2 + 1] = HEX[value & 0x0f];
+        }
+        return new String(chars);
+    }
 }
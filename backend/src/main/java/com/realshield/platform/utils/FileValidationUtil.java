@@ -4,10 +4,21 @@ package com.realshield.platform.utils;
 import com.realshield.platform.exception.InvalidFileTypeException;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Set;
+import java.util.function.Supplier;
 
 public class FileValidationUtil {
 
+    //every signature we check sits in the first few hundred bytes
+    public static final int SNIFF_LENGTH = 4096;
+
+    private static final Set<String> HEIF_BRANDS = Set.of("heic", "heix", "hevc", "mif1", "msf1", "avif", "avis");
+
+    private static final Set<String> QUICKTIME_ATOMS = Set.of("moov", "mdat", "wide", "free", "skip", "pnot");
+
     private static final Set<String> IMAGE_TYPES = Set.of(
             "image/jpeg",
             "image/png",
@@ -29,40 +40,142 @@ public class FileValidationUtil {
 
     // 🖼️ IMAGE VALIDATION
     public static void validateImage(MultipartFile file) {
-        if (file == null || file.isEmpty()) {
-            throw new InvalidFileTypeException("Image file is missing");
-        }
-
-        String contentType = file.getContentType();
+        validateImage(file, () -> sniffContentType(file));
+    }
 
-        if (contentType == null || !IMAGE_TYPES.contains(contentType)) {
-            throw new InvalidFileTypeException("Only image files are allowed");
-        }
+    public static void validateImage(MultipartFile file, Supplier<String> sniffedType) {
+        validate(file, sniffedType, IMAGE_TYPES, "Image", "image");
     }
 
     // 🎥 VIDEO VALIDATION
     public static void validateVideo(MultipartFile file) {
+        validateVideo(file, () -> sniffContentType(file));
+    }
+
+    public static void validateVideo(MultipartFile file, Supplier<String> sniffedType) {
+        validate(file, sniffedType, VIDEO_TYPES, "Video", "video");
+    }
+
+    // 🎧 AUDIO VALIDATION
+    public static void validateAudio(MultipartFile file) {
+        validateAudio(file, () -> sniffContentType(file));
+    }
+
+    public static void validateAudio(MultipartFile file, Supplier<String> sniffedType) {
+        validate(file, sniffedType, AUDIO_TYPES, "Audio", "audio");
+    }
+
+    //the declared content type is checked first (free), then the first bytes of the file
+    //only the header is read, so a mislabelled upload is rejected before it is hashed, decoded or parsed
+    //a different type of the same kind (PNG sent as image/jpeg) is accepted, the pipeline works from the sniffed type
+    private static void validate(MultipartFile file, Supplier<String> sniffedType, Set<String> allowed, String label, String kind) {
         if (file == null || file.isEmpty()) {
-            throw new InvalidFileTypeException("Video file is missing");
+            throw new InvalidFileTypeException(label + " file is missing");
         }
 
         String contentType = file.getContentType();
 
-        if (contentType == null || !VIDEO_TYPES.contains(contentType)) {
-            throw new InvalidFileTypeException("Only video files are allowed");
+        if (contentType == null || !allowed.contains(contentType)) {
+            throw new InvalidFileTypeException("Only " + kind + " files are allowed");
+        }
+
+        String sniffed = sniffedType.get();
+        if (sniffed == null || !allowed.contains(sniffed)) {
+            throw new InvalidFileTypeException("File content is not a supported " + kind + " (declared " + contentType
+                    + ", found " + (sniffed != null ? sniffed : "unknown content") + ")");
         }
     }
 
-    // 🎧 AUDIO VALIDATION
-    public static void validateAudio(MultipartFile file) {
-        if (file == null || file.isEmpty()) {
-            throw new InvalidFileTypeException("Audio file is missing");
+    //content type from the magic bytes of the file, null when the format is not one we know
+    public static String sniffContentType(MultipartFile file) {
+        try (InputStream inputStream = file.getInputStream()) {
+            byte[] header = inputStream.readNBytes(SNIFF_LENGTH);
+            return sniffContentType(header, header.length);
+        } catch (IOException e) {
+            return null;
         }
+    }
 
-        String contentType = file.getContentType();
+    public static String sniffContentType(byte[] header, int length) {
+        if (startsWith(header, length, 0, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(header, length, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "image/png";
+        }
+
+        //RIFF / RF64 containers: WebP images and WAVE audio
+        if (startsWith(header, length, 0, 'R', 'I', 'F', 'F') || startsWith(header, length, 0, 'R', 'F', '6', '4')) {
+            if (startsWith(header, length, 8, 'W', 'E', 'B', 'P')) {
+                return "image/webp";
+            }
+            if (startsWith(header, length, 8, 'W', 'A', 'V', 'E')) {
+                return "audio/wav";
+            }
+            return null;
+        }
+
+        //ISO base media: the ftyp brand tells QuickTime from MP4, HEIF / AVIF images share the container
+        if (startsWith(header, length, 4, 'f', 't', 'y', 'p') && length >= 12) {
+            String brand = new String(header, 8, 4, StandardCharsets.ISO_8859_1);
+            if (brand.equals("qt  ")) {
+                return "video/quicktime";
+            }
+            if (HEIF_BRANDS.contains(brand)) {
+                return null;
+            }
+            return brand.startsWith("M4A") ? "audio/mp4" : "video/mp4";
+        }
+        //older QuickTime files start straight with a movie atom
+        if (length >= 8 && QUICKTIME_ATOMS.contains(new String(header, 4, 4, StandardCharsets.ISO_8859_1))) {
+            return "video/quicktime";
+        }
+
+        //MPEG program stream / elementary video stream, transport stream packets every 188 bytes
+        if (startsWith(header, length, 0, 0x00, 0x00, 0x01, 0xBA) || startsWith(header, length, 0, 0x00, 0x00, 0x01, 0xB3)) {
+            return "video/mpeg";
+        }
+        if (length > 2 * 188 && header[0] == 0x47 && header[188] == 0x47 && header[2 * 188] == 0x47) {
+            return "video/mpeg";
+        }
 
-        if (contentType == null || !AUDIO_TYPES.contains(contentType)) {
-            throw new InvalidFileTypeException("Only audio files are allowed");
+        //MP3: an ID3v2 tag or a frame sync with a valid MPEG version and layer (ADTS AAC has layer 00)
+        if (startsWith(header, length, 0, 'I', 'D', '3')) {
+            return "audio/mpeg";
+        }
+        if (length >= 2 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xE0) == 0xE0
+                && (header[1] & 0x18) != 0x08 && (header[1] & 0x06) != 0) {
+            return "audio/mpeg";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] header, int length, int offset, int... signature) {
+        if (length < offset + signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((header[offset + i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //IMAGE / VIDEO / AUDIO for a content type, null for anything else
+    public static String mediaTypeOf(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        if (contentType.startsWith("image/")) {
+            return "IMAGE";
+        }
+        if (contentType.startsWith("video/")) {
+            return "VIDEO";
+        }
+        if (contentType.startsWith("audio/")) {
+            return "AUDIO";
         }
+        return null;
     }
 }
@@ -0,0 +1,77 @@
+package com.realshield.platform.utils;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.function.IntBinaryOperator;
+
+//decodes images straight to (about) the resolution the caller needs
+//the size is read from the header first and ImageReadParam source subsampling skips the pixels that would be
+//thrown away by downscaling anyway, so a 48 MP JPEG needed at 224x224 never exists as a 48 MP BufferedImage
+
+public class ImageDecodeUtil {
+
+    //images announcing more pixels than this are refused before decoding (decompression bombs)
+    private static final long MAX_PIXELS = 250_000_000L;
+
+    //decoded image together with the size in the file and the subsampling that was used
+    public record Decoded(BufferedImage image, int sourceWidth, int sourceHeight, int subsampling) {
+    }
+
+    //decodes with the largest subsampling that still leaves at least minWidth x minHeight pixels
+    //returns null when no ImageIO reader understands the format
+    public static BufferedImage readSubsampled(InputStream inputStream, int minWidth, int minHeight) throws IOException {
+        Decoded decoded = decode(inputStream, minWidth, minHeight);
+        return decoded != null ? decoded.image() : null;
+    }
+
+    public static Decoded decode(InputStream inputStream, int minWidth, int minHeight) throws IOException {
+        return decode(inputStream, (width, height) -> subsampling(width, height, minWidth, minHeight));
+    }
+
+    //full resolution up to maxPixels, larger images are subsampled just enough to fit
+    public static Decoded decodeAtMost(InputStream inputStream, long maxPixels) throws IOException {
+        return decode(inputStream, (width, height) -> (int) Math.max(1, Math.ceil(Math.sqrt((double) width * height / maxPixels))));
+    }
+
+    private static Decoded decode(InputStream inputStream, IntBinaryOperator subsamplingFor) throws IOException {
+        try (ImageInputStream imageInput = ImageIO.createImageInputStream(inputStream)) {
+            if (imageInput == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInput);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInput, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_PIXELS) {
+                    throw new IOException("Image is too large (" + width + "x" + height + ")");
+                }
+
+                int subsampling = subsamplingFor.applyAsInt(width, height);
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return new Decoded(reader.read(0, param), width, height, subsampling);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    //largest whole step that keeps both sides at or above the minimum
+    public static int subsampling(int width, int height, int minWidth, int minHeight) {
+        return Math.max(1, Math.min(width / Math.max(1, minWidth), height / Math.max(1, minHeight)));
+    }
+}
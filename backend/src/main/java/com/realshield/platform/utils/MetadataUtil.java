@@ -1,17 +1,42 @@
 package com.realshield.platform.utils;
 
 import com.drew.imaging.ImageMetadataReader;
+import com.drew.imaging.jpeg.JpegMetadataReader;
+import com.drew.imaging.png.PngChunk;
+import com.drew.imaging.png.PngChunkReader;
+import com.drew.imaging.png.PngChunkType;
+import com.drew.lang.ByteArrayReader;
+import com.drew.lang.StreamReader;
 import com.drew.metadata.Metadata;
 import com.drew.metadata.Directory;
 import com.drew.metadata.Tag;
+import com.drew.metadata.exif.ExifReader;
+import com.realshield.platform.service.media.audio.WavMetadata;
+import com.realshield.platform.service.media.mp4.Mp4Metadata;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class MetadataUtil {
 
+    private static final Set<String> MP4_TYPES = Set.of("video/mp4", "video/quicktime");
+
+    //the PNG chunks that carry Exif and textual key / value metadata
+    private static final Set<PngChunkType> PNG_METADATA_CHUNKS = Set.of(PngChunkType.eXIf, PngChunkType.tEXt, PngChunkType.iTXt);
+
+    //the tags a rule asked for, and how many metadata tags the parsed segments held in total
+    public record Selection(int tagCount, Map<String, String> tags) {
+
+        public boolean isEmpty() {
+            return tagCount == 0;
+        }
+    }
+
     public static Map<String, String> extractImageMetadata(MultipartFile file) {
         try (InputStream inputStream = file.getInputStream()) {
 
@@ -29,4 +54,108 @@ public class MetadataUtil {
             throw new RuntimeException("Failed to extract metadata");
         }
     }
+
+    //only the metadata an editing / provenance rule can use, for images, MP4 / MOV and WAV
+    //JPEG: only APP1 segments are kept and reading stops at the start of scan, the compressed image is never read
+    //PNG: only eXIf / tEXt / iTXt chunks are read, IDAT bodies are skipped
+    //MP4 / MOV: mvhd, udta and meta inside moov, mdat and the sample tables are skipped (see Mp4Metadata)
+    //WAV: LIST/INFO and bext chunks, the sample data is skipped (see WavMetadata)
+    //other images go through the full reader and are filtered afterwards, other media have no metadata we read
+    public static Selection extractMetadata(MultipartFile file, String sniffedType, Set<String> tagNames) {
+        boolean wav = "audio/wav".equals(sniffedType);
+        if (sniffedType == null || !(sniffedType.startsWith("image/") || MP4_TYPES.contains(sniffedType) || wav)) {
+            return new Selection(0, Map.of());
+        }
+        try (InputStream inputStream = file.getInputStream()) {
+            if (wav) {
+                return select(WavMetadata.read(inputStream), tagNames);
+            }
+            if (MP4_TYPES.contains(sniffedType)) {
+                return select(Mp4Metadata.read(inputStream), tagNames);
+            }
+
+            Metadata metadata;
+            Map<String, String> textual = Map.of();
+            if ("image/jpeg".equals(sniffedType)) {
+                metadata = JpegMetadataReader.readMetadata(inputStream, List.of(new ExifReader()));
+            } else if ("image/png".equals(sniffedType)) {
+                metadata = new Metadata();
+                textual = readPngChunks(inputStream, metadata);
+            } else {
+                metadata = ImageMetadataReader.readMetadata(inputStream);
+            }
+
+            int tagCount = textual.size();
+            Map<String, String> selected = new HashMap<>();
+            textual.forEach((key, value) -> {
+                if (tagNames.contains(key)) {
+                    selected.put(key, value);
+                }
+            });
+            for (Directory directory : metadata.getDirectories()) {
+                tagCount += directory.getTagCount();
+                for (Tag tag : directory.getTags()) {
+                    if (tagNames.contains(tag.getTagName())) {
+                        selected.putIfAbsent(tag.getTagName(), tag.getDescription());
+                    }
+                }
+            }
+            return new Selection(tagCount, Map.copyOf(selected));
+
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to extract metadata");
+        }
+    }
+
+    private static Selection select(Map<String, String> tags, Set<String> tagNames) {
+        Map<String, String> selected = new HashMap<>();
+        tags.forEach((key, value) -> {
+            if (tagNames.contains(key)) {
+                selected.put(key, value);
+            }
+        });
+        return new Selection(tags.size(), Map.copyOf(selected));
+    }
+
+    //Exif goes into metadata, tEXt and uncompressed iTXt come back as keyword -> text (PNG's "Software" is one of them)
+    private static Map<String, String> readPngChunks(InputStream inputStream, Metadata metadata) throws Exception {
+        Map<String, String> textual = new HashMap<>();
+        for (PngChunk chunk : new PngChunkReader().extract(new StreamReader(inputStream), PNG_METADATA_CHUNKS)) {
+            byte[] bytes = chunk.getBytes();
+            if (chunk.getType().equals(PngChunkType.eXIf)) {
+                new ExifReader().extract(new ByteArrayReader(bytes), metadata);
+                continue;
+            }
+
+            int keywordEnd = indexOf(bytes, 0);
+            if (keywordEnd <= 0) {
+                continue;
+            }
+            String keyword = new String(bytes, 0, keywordEnd, StandardCharsets.ISO_8859_1);
+            if (chunk.getType().equals(PngChunkType.tEXt)) {
+                textual.put(keyword, new String(bytes, keywordEnd + 1, bytes.length - keywordEnd - 1, StandardCharsets.ISO_8859_1));
+                continue;
+            }
+
+            //iTXt: keyword, compression flag, compression method, language tag, translated keyword, UTF-8 text
+            if (keywordEnd + 2 >= bytes.length || bytes[keywordEnd + 1] != 0) {
+                continue;
+            }
+            int languageEnd = indexOf(bytes, keywordEnd + 3);
+            int translatedEnd = languageEnd < 0 ? -1 : indexOf(bytes, languageEnd + 1);
+            if (translatedEnd >= 0) {
+                textual.put(keyword, new String(bytes, translatedEnd + 1, bytes.length - translatedEnd - 1, StandardCharsets.UTF_8));
+            }
+        }
+        return textual;
+    }
+
+    private static int indexOf(byte[] bytes, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
 }
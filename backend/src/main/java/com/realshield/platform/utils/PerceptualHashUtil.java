@@ -0,0 +1,83 @@
+package com.realshield.platform.utils;
+
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+
+//perceptual hash (dHash) of an image
+//unlike SHA-256 it stays the same, or changes by only a few bits, when the image is resized, re-encoded or re-compressed
+//two images are near duplicates when the Hamming distance between their hashes is small
+
+public class PerceptualHashUtil {
+
+    //the image is reduced to a 9x8 grid, each row gives 8 "left brighter than right" bits
+    private static final int GRID_WIDTH = 9;
+    private static final int GRID_HEIGHT = 8;
+
+    //the decode keeps at least this many pixels per grid cell, so the cell averages barely move
+    private static final int DECODE_PIXELS_PER_CELL = 8;
+
+    //returns the 64 bit dHash, or null when the image cannot be decoded
+    public static Long dHash(InputStream inputStream) {
+        try {
+            BufferedImage image = ImageDecodeUtil.readSubsampled(inputStream,
+                    GRID_WIDTH * DECODE_PIXELS_PER_CELL, GRID_HEIGHT * DECODE_PIXELS_PER_CELL);
+            if (image == null) {
+                return null;
+            }
+            return dHash(image);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public static long dHash(BufferedImage image) {
+        double[] cells = averageLuminance(image);
+
+        long hash = 0;
+        for (int row = 0; row < GRID_HEIGHT; row++) {
+            for (int col = 0; col < GRID_WIDTH - 1; col++) {
+                hash <<= 1;
+                if (cells[row * GRID_WIDTH + col] > cells[row * GRID_WIDTH + col + 1]) {
+                    hash |= 1;
+                }
+            }
+        }
+        return hash;
+    }
+
+    public static int distance(long first, long second) {
+        return Long.bitCount(first ^ second);
+    }
+
+    public static String toHex(long hash) {
+        String hex = Long.toHexString(hash);
+        return "0".repeat(16 - hex.length()) + hex;
+    }
+
+    //area average of every grid cell, one row of pixels is read at a time into the same buffer
+    private static double[] averageLuminance(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double[] sums = new double[GRID_WIDTH * GRID_HEIGHT];
+        long[] counts = new long[GRID_WIDTH * GRID_HEIGHT];
+        int[] row = new int[width];
+
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            int cellRow = (int) ((long) y * GRID_HEIGHT / height) * GRID_WIDTH;
+            for (int x = 0; x < width; x++) {
+                int rgb = row[x];
+                int cell = cellRow + (int) ((long) x * GRID_WIDTH / width);
+                sums[cell] += 0.299 * ((rgb >> 16) & 0xff) + 0.587 * ((rgb >> 8) & 0xff) + 0.114 * (rgb & 0xff);
+                counts[cell]++;
+            }
+        }
+
+        for (int i = 0; i < sums.length; i++) {
+            if (counts[i] > 0) {
+                sums[i] /= counts[i];
+            }
+        }
+        return sums;
+    }
+}
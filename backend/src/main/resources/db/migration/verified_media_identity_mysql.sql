@@ -0,0 +1,20 @@
+-- verified_media on a database created before the trusted hash registry (MySQL)
+--
+-- spring.jpa.hibernate.ddl-auto=update adds new columns but never changes existing ones, so a table created by the
+-- first VerifiedMedia entity keeps a plain id column fed from the verified_media_seq table. Trusted media
+-- registration and the bulk importer now let the database generate ids (IDENTITY) and rely on one row per hash.
+-- Run this once, with the application stopped, before starting the new version. New databases do not need it.
+
+-- 1. ids generated by the database; AUTO_INCREMENT continues after the highest existing id
+ALTER TABLE verified_media MODIFY id BIGINT NOT NULL AUTO_INCREMENT;
+
+-- 2. one row per hash: duplicates are removed, the oldest row (lowest id) of each hash is kept
+DELETE newer FROM verified_media newer
+    JOIN verified_media older ON older.hash = newer.hash AND older.id < newer.id;
+
+CREATE UNIQUE INDEX uk_verified_media_hash ON verified_media (hash);
+
+-- 3. optional: the non-unique index created by earlier versions is covered by the unique one
+-- DROP INDEX idx_verified_media_hash ON verified_media;
+
+-- verified_media_seq is no longer used and can be dropped once the application runs on the new version
@@ -0,0 +1,125 @@
+package com.realshield.platform.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+//closed loop load test against a running backend, prints throughput and latency percentiles
+//compare the thread modes by starting the backend twice on a Java 21 runtime:
+//  java -jar realshield-backend.jar --spring.threads.virtual.enabled=false
+//  java -jar realshield-backend.jar --spring.threads.virtual.enabled=true
+//and running each time:
+//  mvn test-compile exec:java -Dexec.classpathScope=test \
+//      -Dexec.mainClass=com.realshield.platform.benchmark.AnalyzeLoadBenchmark \
+//      -Dexec.args="http://localhost:8080/api/v1/analyze/image sample.jpg 800 60"
+//arguments: url, image file, concurrent clients, seconds
+//every upload gets random trailing bytes after the JPEG end marker, so the result cache never answers it
+
+public class AnalyzeLoadBenchmark {
+
+    private static final String BOUNDARY = "----realshield-load-boundary";
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args.length > 0 ? args[0] : "http://localhost:8080/api/v1/analyze/image");
+        byte[] image = Files.readAllBytes(Path.of(args.length > 1 ? args[1] : "sample.jpg"));
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        long warmupEnd = System.nanoTime() + Duration.ofSeconds(Math.min(10, seconds / 3)).toNanos();
+        long end = warmupEnd + Duration.ofSeconds(seconds).toNanos();
+        AtomicLong errors = new AtomicLong();
+        long[][] perClientLatencies = new long[clients][];
+        List<Thread> threads = new ArrayList<>();
+        int[] counts = new int[clients];
+
+        for (int client = 0; client < clients; client++) {
+            int index = client;
+            Thread thread = new Thread(() -> {
+                long[] latencies = new long[1024];
+                while (System.nanoTime() < end) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = httpClient.send(request(uri, image), HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                        continue;
+                    }
+                    long finished = System.nanoTime();
+                    if (start >= warmupEnd) {
+                        if (counts[index] == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, latencies.length * 2);
+                        }
+                        latencies[counts[index]++] = finished - start;
+                    }
+                }
+                perClientLatencies[index] = latencies;
+            }, "load-client-" + client);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int offset = 0;
+        for (int client = 0; client < clients; client++) {
+            System.arraycopy(perClientLatencies[client], 0, all, offset, counts[client]);
+            offset += counts[client];
+        }
+        Arrays.sort(all);
+
+        System.out.printf("clients=%d seconds=%d requests=%d errors=%d%n", clients, seconds, total, errors.get());
+        System.out.printf("throughput=%.1f req/s%n", total / (double) seconds);
+        System.out.printf("p50=%.1f ms p90=%.1f ms p99=%.1f ms max=%.1f ms%n",
+                percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), percentile(all, 1.0));
+    }
+
+    private static HttpRequest request(URI uri, byte[] image) {
+        byte[] salt = new byte[16];
+        ThreadLocalRandom.current().nextBytes(salt);
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(image.length + 512);
+        body.writeBytes(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"load.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        body.writeBytes(image);
+        body.writeBytes(salt);
+        body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+
+        return HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,75 @@
+package com.realshield.platform.benchmark;
+
+import com.realshield.platform.service.detect.engine.ElaImageEngine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//Error Level Analysis of one 12 MP image with 1, 2, 4 and 8 ForkJoin threads
+//run with: mvn test-compile exec:java -Dexec.mainClass=com.realshield.platform.benchmark.ElaBenchmark -Dexec.classpathScope=test
+//the time per image should drop with the parallelism until it reaches the number of cores of the machine
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ElaBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    @Param({"4000x3000"})
+    private String size;
+
+    private BufferedImage image;
+    private ElaImageEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] dimensions = size.split("x");
+        int width = Integer.parseInt(dimensions[0]);
+        int height = Integer.parseInt(dimensions[1]);
+
+        //smooth gradients with noise, compresses like a photo rather than like flat colour
+        image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        Random random = new Random(42);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int r = (x * 255 / width + random.nextInt(16)) & 0xff;
+                int g = (y * 255 / height + random.nextInt(16)) & 0xff;
+                int b = ((x + y) * 255 / (width + height) + random.nextInt(16)) & 0xff;
+                row[x] = r << 16 | g << 8 | b;
+            }
+            image.setRGB(0, y, width, 1, row, 0, width);
+        }
+
+        engine = new ElaImageEngine(parallelism, 90, 128, Long.MAX_VALUE, 2.0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    public float errorLevels() {
+        return engine.errorLevels(image)[0];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ElaBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
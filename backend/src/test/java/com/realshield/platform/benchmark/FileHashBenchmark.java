@@ -0,0 +1,139 @@
+package com.realshield.platform.benchmark;
+
+import com.realshield.platform.utils.FileHashUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//compares the old getBytes() + String.format hashing with the streaming and memory mapped modes
+//run with: mvn test-compile exec:java -Dexec.mainClass=com.realshield.platform.benchmark.FileHashBenchmark -Dexec.classpathScope=test
+//or start main() from the IDE, the gc profiler shows the bytes allocated per hash
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FileHashBenchmark {
+
+    @Param({"1048576", "67108864", "536870912"})
+    private int fileSize;
+
+    private Path path;
+    private MultipartFile file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        path = Files.createTempFile("realshield-hash-", ".bin");
+        byte[] block = new byte[1024 * 1024];
+        new Random(42).nextBytes(block);
+        try (var out = Files.newOutputStream(path)) {
+            for (int written = 0; written < fileSize; written += block.length) {
+                out.write(block, 0, Math.min(block.length, fileSize - written));
+            }
+        }
+        file = new SpooledMultipartFile(path);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Benchmark
+    public String legacyGetBytes() throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] hashBytes = digest.digest(file.getBytes());
+
+        StringBuilder hexString = new StringBuilder();
+        for (byte b : hashBytes) {
+            hexString.append(String.format("%02x", b));
+        }
+        return hexString.toString();
+    }
+
+    @Benchmark
+    public String streamingMultipart() {
+        return FileHashUtil.generateSHA256(file);
+    }
+
+    @Benchmark
+    public String mappedPath() {
+        return FileHashUtil.generateSHA256(path);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(FileHashBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+
+    //behaves like Tomcat's disk backed part: getBytes() reads the whole spool file, getInputStream() streams it
+    private static final class SpooledMultipartFile implements MultipartFile {
+
+        private final Path path;
+
+        private SpooledMultipartFile(Path path) {
+            this.path = path;
+        }
+
+        @Override
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return path.getFileName().toString();
+        }
+
+        @Override
+        public String getContentType() {
+            return "video/mp4";
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return getSize() == 0;
+        }
+
+        @Override
+        public long getSize() {
+            try {
+                return Files.size(path);
+            } catch (IOException e) {
+                return 0;
+            }
+        }
+
+        @Override
+        public byte[] getBytes() throws IOException {
+            return Files.readAllBytes(path);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return Files.newInputStream(path);
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            Files.copy(path, dest.toPath());
+        }
+    }
+}
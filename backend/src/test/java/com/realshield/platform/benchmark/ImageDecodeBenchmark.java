@@ -0,0 +1,104 @@
+package com.realshield.platform.benchmark;
+
+import com.realshield.platform.service.media.image.ImageTensor;
+import com.realshield.platform.service.media.image.ImageTensorDecoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//full ImageIO.read + scale compared with the subsampled decode into a pooled 224x224 tensor
+//run with: mvn test-compile exec:java -Dexec.mainClass=com.realshield.platform.benchmark.ImageDecodeBenchmark -Dexec.classpathScope=test
+//the gc profiler (gc.alloc.rate.norm) shows the bytes allocated per decoded image
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ImageDecodeBenchmark {
+
+    private static final int INPUT_SIZE = 224;
+
+    //12 MP and 48 MP camera sizes
+    @Param({"4000x3000", "8000x6000"})
+    private String size;
+
+    private byte[] jpeg;
+    private ImageTensorDecoder decoder;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String[] dimensions = size.split("x");
+        int width = Integer.parseInt(dimensions[0]);
+        int height = Integer.parseInt(dimensions[1]);
+
+        //smooth gradients with noise, compresses like a photo rather than like flat colour
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        Random random = new Random(42);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int r = (x * 255 / width + random.nextInt(16)) & 0xff;
+                int g = (y * 255 / height + random.nextInt(16)) & 0xff;
+                int b = ((x + y) * 255 / (width + height) + random.nextInt(16)) & 0xff;
+                row[x] = r << 16 | g << 8 | b;
+            }
+            image.setRGB(0, y, width, 1, row, 0, width);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        jpeg = out.toByteArray();
+
+        decoder = new ImageTensorDecoder(INPUT_SIZE, INPUT_SIZE, 1);
+    }
+
+    @Benchmark
+    public float fullDecodeThenScale() throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(jpeg));
+        BufferedImage scaled = new BufferedImage(INPUT_SIZE, INPUT_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(image, 0, 0, INPUT_SIZE, INPUT_SIZE, null);
+        graphics.dispose();
+
+        float[] tensor = new float[3 * INPUT_SIZE * INPUT_SIZE];
+        int plane = INPUT_SIZE * INPUT_SIZE;
+        for (int y = 0; y < INPUT_SIZE; y++) {
+            for (int x = 0; x < INPUT_SIZE; x++) {
+                int rgb = scaled.getRGB(x, y);
+                tensor[y * INPUT_SIZE + x] = ((rgb >> 16) & 0xff) / 255f;
+                tensor[plane + y * INPUT_SIZE + x] = ((rgb >> 8) & 0xff) / 255f;
+                tensor[2 * plane + y * INPUT_SIZE + x] = (rgb & 0xff) / 255f;
+            }
+        }
+        return tensor[0];
+    }
+
+    @Benchmark
+    public float subsampledPooled() throws IOException {
+        try (ImageTensor tensor = decoder.decode(new ByteArrayInputStream(jpeg))) {
+            return tensor.getData()[0];
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ImageDecodeBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
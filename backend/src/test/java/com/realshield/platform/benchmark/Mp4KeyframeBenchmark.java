@@ -0,0 +1,180 @@
+package com.realshield.platform.benchmark;
+
+import com.realshield.platform.service.media.mp4.KeyframeReader;
+import com.realshield.platform.service.media.mp4.Mp4Index;
+import com.realshield.platform.service.media.mp4.Mp4Track;
+import com.realshield.platform.service.media.mp4.SampleRange;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+//bytes read by keyframe sampling compared with the file size, and with a full sequential read
+//  mvn test-compile exec:java -Dexec.classpathScope=test \
+//      -Dexec.mainClass=com.realshield.platform.benchmark.Mp4KeyframeBenchmark \
+//      -Dexec.args="8 16"
+//arguments: a size in GB to generate a synthetic file (or the path of a real .mp4 / .mov), keyframes to sample
+//the synthetic file is sparse: 1 MB/s of 30 fps video with a keyframe every 2 s, moov written after mdat
+//like a camera recording, so the index has to seek past the whole mdat to find it
+
+public class Mp4KeyframeBenchmark {
+
+    private static final int FPS = 30;
+    private static final int GOP = 60;
+    private static final int BYTES_PER_SECOND = 1024 * 1024;
+    private static final int KEYFRAME_SIZE = 256 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        String source = args.length > 0 ? args[0] : "4";
+        int maxKeyframes = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+
+        Path file;
+        boolean generated = source.matches("\\d+(\\.\\d+)?");
+        if (generated) {
+            file = Files.createTempFile("realshield-bench-", ".mp4");
+            generate(file, (long) (Double.parseDouble(source) * 1024 * 1024 * 1024));
+        } else {
+            file = Path.of(source);
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int run = 0; run < 5; run++) {
+                long start = System.nanoTime();
+                Mp4Index index = Mp4Index.read(channel);
+                Mp4Track track = index.videoTrack().orElseThrow();
+                List<SampleRange> keyframes = track.sampledSyncSamples(maxKeyframes);
+                long frameBytes = KeyframeReader.read(channel, keyframes, (range, frame) -> {
+                });
+                long elapsed = System.nanoTime() - start;
+
+                long bytesRead = index.getBytesRead() + frameBytes;
+                System.out.printf("run %d: file=%,d bytes samples=%d sync=%d keyframes=%d index=%,d bytes frames=%,d bytes "
+                                + "total=%,d bytes (%.4f%% of file) %.1f ms%n",
+                        run, index.getFileSize(), track.getSampleCount(), track.getSyncSampleCount(), keyframes.size(),
+                        index.getBytesRead(), frameBytes, bytesRead, 100.0 * bytesRead / index.getFileSize(), elapsed / 1e6);
+            }
+
+            //what decoding everything would at least cost: reading every byte once
+            ByteBuffer buffer = ByteBuffer.allocateDirect(8 * 1024 * 1024);
+            long start = System.nanoTime();
+            long total = 0;
+            long position = 0;
+            int read;
+            while ((read = channel.read(buffer.clear(), position)) > 0) {
+                position += read;
+                total += read;
+            }
+            System.out.printf("full read: %,d bytes %.1f ms%n", total, (System.nanoTime() - start) / 1e6);
+        } finally {
+            if (generated) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    //ftyp, an mdat of the requested size (holes only) and a moov with one video trak at the end
+    private static void generate(Path file, long mdatSize) throws IOException {
+        int seconds = (int) Math.max(1, mdatSize / BYTES_PER_SECOND);
+        int sampleCount = seconds * FPS;
+        long mdatStart = 24 + 16;
+
+        int[] sizes = new int[sampleCount];
+        for (int second = 0; second < seconds; second++) {
+            boolean keySecond = (second * FPS) % GOP == 0;
+            int first = second * FPS;
+            if (keySecond) {
+                sizes[first] = KEYFRAME_SIZE;
+                int rest = (BYTES_PER_SECOND - KEYFRAME_SIZE) / (FPS - 1);
+                for (int i = 1; i < FPS; i++) {
+                    sizes[first + i] = rest;
+                }
+            } else {
+                for (int i = 0; i < FPS; i++) {
+                    sizes[first + i] = BYTES_PER_SECOND / FPS;
+                }
+            }
+        }
+
+        //one chunk per second of video
+        long[] chunkOffsets = new long[seconds];
+        long offset = mdatStart;
+        for (int second = 0; second < seconds; second++) {
+            chunkOffsets[second] = offset;
+            for (int i = 0; i < FPS; i++) {
+                offset += sizes[second * FPS + i];
+            }
+        }
+        long mdatEnd = offset;
+
+        int syncCount = (sampleCount + GOP - 1) / GOP;
+        ByteBuffer stss = fullBox("stss", 4 + syncCount * 4);
+        stss.putInt(syncCount);
+        for (int i = 0; i < syncCount; i++) {
+            stss.putInt(i * GOP + 1);
+        }
+        ByteBuffer stsc = fullBox("stsc", 4 + 12);
+        stsc.putInt(1).putInt(1).putInt(FPS).putInt(1);
+        ByteBuffer stsz = fullBox("stsz", 8 + sampleCount * 4);
+        stsz.putInt(0).putInt(sampleCount);
+        for (int size : sizes) {
+            stsz.putInt(size);
+        }
+        ByteBuffer co64 = fullBox("co64", 4 + seconds * 8);
+        co64.putInt(seconds);
+        for (long chunkOffset : chunkOffsets) {
+            co64.putLong(chunkOffset);
+        }
+        ByteBuffer stsd = fullBox("stsd", 4).putInt(0);
+        ByteBuffer stts = fullBox("stts", 12).putInt(1).putInt(sampleCount).putInt(1);
+
+        ByteBuffer stbl = container("stbl", stsd, stts, stss, stsc, stsz, co64);
+        ByteBuffer minf = container("minf", stbl);
+        ByteBuffer mdhd = fullBox("mdhd", 20).putInt(0).putInt(0).putInt(FPS).putInt(sampleCount).putInt(0);
+        ByteBuffer hdlr = fullBox("hdlr", 20).putInt(0).put(ascii("vide")).putInt(0).putInt(0).putInt(0);
+        ByteBuffer mdia = container("mdia", mdhd, hdlr, minf);
+        ByteBuffer trak = container("trak", mdia);
+        ByteBuffer moov = container("moov", trak);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer head = ByteBuffer.allocate((int) mdatStart);
+            head.putInt(24).put(ascii("ftyp")).put(ascii("isom")).putInt(512).put(ascii("isom")).put(ascii("mp41"));
+            head.putInt(1).put(ascii("mdat")).putLong(mdatEnd - 24);
+            writeFully(channel, head.flip(), 0);
+            writeFully(channel, moov, mdatEnd);
+        }
+    }
+
+    private static ByteBuffer fullBox(String type, int payloadSize) {
+        ByteBuffer box = ByteBuffer.allocate(12 + payloadSize);
+        box.putInt(12 + payloadSize).put(ascii(type)).putInt(0);
+        return box;
+    }
+
+    private static ByteBuffer container(String type, ByteBuffer... children) {
+        int size = 8;
+        for (ByteBuffer child : children) {
+            size += child.capacity();
+        }
+        ByteBuffer box = ByteBuffer.allocate(size);
+        box.putInt(size).put(ascii(type));
+        for (ByteBuffer child : children) {
+            box.put(child.array());
+        }
+        return box.flip();
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.realshield.platform.benchmark;
+
+import com.realshield.platform.dto.receipt.ReceiptDTO;
+import com.realshield.platform.service.receipt.ReceiptSigner;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.Signature;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+//cost of one analysis receipt: ReceiptSigner (key parsed once, pooled Signature) compared with parsing the key
+//file and setting up a Signature for every receipt
+//run with: mvn test-compile exec:java -Dexec.mainClass=com.realshield.platform.benchmark.ReceiptSignerBenchmark -Dexec.classpathScope=test
+//both are dominated by the Ed25519 signature itself (about 1 ms on one core with the JDK's pure Java EdDSA),
+//parsing the key once only removes the small setup part
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReceiptSignerBenchmark {
+
+    private static final String SHA256 = "6c6e5c15b6be08acb6bd44c05d630bc74b01373263dd58a302849e0176f88796";
+
+    private Path keyFile;
+    private ReceiptSigner signer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        keyFile = Files.createTempFile("realshield-receipt-", ".pem");
+        Files.delete(keyFile);
+        signer = new ReceiptSigner(keyFile.toString(), new String[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(keyFile);
+    }
+
+    @Benchmark
+    public ReceiptDTO receiptSigner() {
+        return signer.sign(SHA256, "REAL", 91.5);
+    }
+
+    @Benchmark
+    public byte[] keyPerReceipt() throws IOException, GeneralSecurityException {
+        String pem = Files.readString(keyFile).replaceAll("-----(BEGIN|END) PRIVATE KEY-----", "").replaceAll("\\s", "");
+        Signature signature = Signature.getInstance("Ed25519");
+        signature.initSign(KeyFactory.getInstance("Ed25519").generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(pem))));
+        signature.update(("realshield-receipt/1|" + SHA256 + "|REAL|91.5").getBytes(StandardCharsets.UTF_8));
+        return signature.sign();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ReceiptSignerBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
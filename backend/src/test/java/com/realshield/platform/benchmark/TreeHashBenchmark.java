@@ -0,0 +1,78 @@
+package com.realshield.platform.benchmark;
+
+import com.realshield.platform.utils.FileHashUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+//wall clock time to hash one spooled file: plain SHA-256 (one sequential chain) compared with the tree hash
+//on 1, 2, 4 and 8 ForkJoin threads
+//run with: mvn test-compile exec:java -Dexec.mainClass=com.realshield.platform.benchmark.TreeHashBenchmark -Dexec.classpathScope=test
+//the file is written once per trial and sits in the page cache, so this measures hashing rather than the disk;
+//the tree hash should scale with the thread count up to the number of cores, sha256 stays where it is
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class TreeHashBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    @Param({"1024"})
+    private int sizeMb;
+
+    private Path file;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("realshield-treehash-", ".bin");
+        byte[] block = new byte[1024 * 1024];
+        Random random = new Random(42);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (int i = 0; i < sizeMb; i++) {
+                random.nextBytes(block);
+                out.write(block);
+            }
+        }
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public String sha256() {
+        return FileHashUtil.generateSHA256(file);
+    }
+
+    @Benchmark
+    public String treeHash() throws IOException {
+        return FileHashUtil.treeHash(file, pool);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TreeHashBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
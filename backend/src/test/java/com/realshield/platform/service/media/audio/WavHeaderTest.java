@@ -0,0 +1,160 @@
+package com.realshield.platform.service.media.audio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WavHeaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsPcmHeaderAndSkipsOtherChunks() throws IOException {
+        //an odd sized chunk followed by its pad byte
+        byte[] list = concat(chunk("LIST", new byte[13]), new byte[1]);
+        WavHeader wav = read(wave(list, fmt(WavHeader.FORMAT_PCM, 2, 44100, 16, 4), chunk("data", new byte[44100 * 4])));
+
+        assertEquals(WavHeader.FORMAT_PCM, wav.format());
+        assertEquals(2, wav.channels());
+        assertEquals(44100, wav.sampleRate());
+        assertEquals(12 + list.length + 24 + 8, wav.dataOffset());
+        assertEquals(44100, wav.frameCount());
+        assertEquals(1.0, wav.durationSeconds());
+    }
+
+    @Test
+    void dataSizeZeroRunsToEndOfFile() throws IOException {
+        byte[] data = concat(chunk("data", new byte[0]), new byte[16000 * 2]);
+
+        WavHeader wav = read(wave(fmt(WavHeader.FORMAT_PCM, 1, 16000, 16, 2), data));
+
+        assertEquals(16000 * 2, wav.dataSize());
+        assertEquals(1.0, wav.durationSeconds());
+    }
+
+    @Test
+    void dataSizePastEndOfFileIsClamped() throws IOException {
+        byte[] data = concat(le(0x61746164, -1), new byte[800]);
+
+        WavHeader wav = read(wave(fmt(WavHeader.FORMAT_IEEE_FLOAT, 1, 8000, 32, 4), data));
+
+        assertEquals(800, wav.dataSize());
+    }
+
+    @Test
+    void rejectsSampleRateAboveLimit() {
+        byte[] file = wave(fmt(WavHeader.FORMAT_PCM, 1, WavHeader.MAX_SAMPLE_RATE + 1, 16, 2), chunk("data", new byte[4]));
+
+        WavFormatException e = assertThrows(WavFormatException.class, () -> read(file));
+        assertEquals("Unsupported WAV sample rate of 384001 Hz", e.getMessage());
+    }
+
+    @Test
+    void rejectsCraftedSampleRate() {
+        byte[] file = wave(fmt(WavHeader.FORMAT_PCM, 1, Integer.MAX_VALUE, 16, 2), chunk("data", new byte[4]));
+
+        assertThrows(WavFormatException.class, () -> read(file));
+    }
+
+    @Test
+    void rejectsBlockAlignNotMatchingChannels() {
+        //a zero blockAlign would divide by zero in frameCount
+        for (int blockAlign : new int[]{0, 2, 6}) {
+            byte[] file = wave(fmt(WavHeader.FORMAT_PCM, 2, 44100, 16, blockAlign), chunk("data", new byte[16]));
+
+            WavFormatException e = assertThrows(WavFormatException.class, () -> read(file));
+            assertEquals("Inconsistent WAV fmt chunk", e.getMessage());
+        }
+    }
+
+    @Test
+    void rejectsUnsupportedEncodingAndSampleSize() {
+        byte[] adpcm = wave(fmt(2, 1, 8000, 4, 1), chunk("data", new byte[4]));
+        byte[] float16 = wave(fmt(WavHeader.FORMAT_IEEE_FLOAT, 1, 8000, 16, 2), chunk("data", new byte[4]));
+
+        assertThrows(WavFormatException.class, () -> read(adpcm));
+        assertThrows(WavFormatException.class, () -> read(float16));
+    }
+
+    @Test
+    void rejectsMalformedFiles() {
+        byte[] fmt = fmt(WavHeader.FORMAT_PCM, 1, 8000, 16, 2);
+
+        assertEquals("Not a RIFF/WAVE file",
+                assertThrows(WavFormatException.class, () -> read(ascii("RIFF\0\0\0\0AVI LIST"))).getMessage());
+        assertEquals("data chunk before fmt chunk",
+                assertThrows(WavFormatException.class, () -> read(wave(chunk("data", new byte[4]), fmt))).getMessage());
+        assertEquals("WAV file has no data chunk",
+                assertThrows(WavFormatException.class, () -> read(wave(fmt))).getMessage());
+        assertEquals("fmt chunk is too short",
+                assertThrows(WavFormatException.class, () -> read(wave(chunk("fmt ", new byte[8])))).getMessage());
+        //fmt chunk header claims 16 bytes but the file ends after 4
+        byte[] truncated = wave(concat(ascii("fmt "), le(16), new byte[4]));
+        assertThrows(WavFormatException.class, () -> read(truncated));
+    }
+
+    @Test
+    void spectralPlanCachesOnlyCommonRates() {
+        assertSame(SpectralPlan.of(16000, 25, 10, 64), SpectralPlan.of(16000, 25, 10, 64));
+        assertNotSame(SpectralPlan.of(12345, 25, 10, 64), SpectralPlan.of(12345, 25, 10, 64));
+        assertEquals(12345, SpectralPlan.of(12345, 25, 10, 64).getSampleRate());
+    }
+
+    private WavHeader read(byte[] content) throws IOException {
+        Path file = Files.write(dir.resolve("test.wav"), content);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return WavHeader.read(channel);
+        }
+    }
+
+    private static byte[] wave(byte[]... chunks) {
+        byte[] body = concat(chunks);
+        return concat(ascii("RIFF"), le(4 + body.length), ascii("WAVE"), body);
+    }
+
+    private static byte[] fmt(int format, int channels, int sampleRate, int bitsPerSample, int blockAlign) {
+        ByteBuffer fmt = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        fmt.putShort((short) format).putShort((short) channels).putInt(sampleRate)
+                .putInt(sampleRate * blockAlign).putShort((short) blockAlign).putShort((short) bitsPerSample);
+        return chunk("fmt ", fmt.array());
+    }
+
+    private static byte[] chunk(String id, byte[] body) {
+        return concat(ascii(id), le(body.length), body);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] le(int... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,111 @@
+package com.realshield.platform.service.media.image;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+//the raster byte path and the getRGB path must produce the same tensor as a plain area average over getRGB
+
+class ImageTensorDecoderTest {
+
+    private final ImageTensorDecoder decoder = new ImageTensorDecoder(8, 6, 2);
+
+    @Test
+    void colourJpegMatchesGetRgb() throws IOException {
+        assertMatchesReference(encode(image(BufferedImage.TYPE_3BYTE_BGR, 61, 47), "jpg"));
+    }
+
+    @Test
+    void rgbaPngMatchesGetRgb() throws IOException {
+        assertMatchesReference(encode(image(BufferedImage.TYPE_4BYTE_ABGR, 40, 30), "png"));
+    }
+
+    @Test
+    void grayPngMatchesGetRgb() throws IOException {
+        assertMatchesReference(encode(image(BufferedImage.TYPE_BYTE_GRAY, 33, 20), "png"));
+    }
+
+    @Test
+    void smallImageIsUpscaled() throws IOException {
+        assertMatchesReference(encode(image(BufferedImage.TYPE_INT_RGB, 3, 2), "png"));
+    }
+
+    @Test
+    void largeImageIsSubsampled() throws IOException {
+        byte[] png = encode(image(BufferedImage.TYPE_INT_RGB, 200, 120), "png");
+        try (ImageTensor tensor = decoder.decode(new ByteArrayInputStream(png))) {
+            assertEquals(200, tensor.getSourceWidth());
+            assertEquals(20, tensor.getSubsampling());
+        }
+        assertMatchesReference(png);
+    }
+
+    @Test
+    void unknownFormatIsNull() throws IOException {
+        assertNull(decoder.decode(new ByteArrayInputStream("RIFF....WEBPVP8 ".getBytes())));
+    }
+
+    private void assertMatchesReference(byte[] encoded) throws IOException {
+        try (ImageTensor tensor = decoder.decode(new ByteArrayInputStream(encoded))) {
+            int subsampling = tensor.getSubsampling();
+            BufferedImage full = ImageIO.read(new ByteArrayInputStream(encoded));
+            assertArrayEquals(reference(full, subsampling), tensor.getData(), 1e-6f);
+        }
+    }
+
+    //area average over getRGB of every subsampling-th pixel, R, G and B planes scaled to 0..1
+    private static float[] reference(BufferedImage image, int subsampling) {
+        int sourceWidth = (image.getWidth() + subsampling - 1) / subsampling;
+        int sourceHeight = (image.getHeight() + subsampling - 1) / subsampling;
+        int width = 8;
+        int height = 6;
+        float[] data = new float[3 * width * height];
+        for (int ty = 0; ty < height; ty++) {
+            int y0 = ty * sourceHeight / height;
+            int y1 = Math.max(y0 + 1, (ty + 1) * sourceHeight / height);
+            for (int tx = 0; tx < width; tx++) {
+                int x0 = tx * sourceWidth / width;
+                int x1 = Math.max(x0 + 1, (tx + 1) * sourceWidth / width);
+                float[] sum = new float[3];
+                for (int y = y0; y < y1; y++) {
+                    for (int x = x0; x < x1; x++) {
+                        int rgb = image.getRGB(x * subsampling, y * subsampling);
+                        sum[0] += (rgb >> 16) & 0xff;
+                        sum[1] += (rgb >> 8) & 0xff;
+                        sum[2] += rgb & 0xff;
+                    }
+                }
+                for (int c = 0; c < 3; c++) {
+                    data[c * width * height + ty * width + tx] = sum[c] / (255f * (x1 - x0) * (y1 - y0));
+                }
+            }
+        }
+        return data;
+    }
+
+    private static BufferedImage image(int type, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Random random = new Random(width * 31L + height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        return image;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,180 @@
+package com.realshield.platform.service.media.mp4;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//box index of small hand built files: one video trak of 6 samples in 2 chunks, keyframes at samples 1 and 4
+
+class Mp4IndexTest {
+
+    private static final int[] SAMPLE_SIZES = {100, 10, 20, 200, 30, 40};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsTrackWithCo64AfterMdat() throws IOException {
+        byte[] ftyp = box("ftyp", ascii("isom"), ints(512), ascii("isom"));
+        //64 bit largesize mdat, like a long camera recording
+        int mdatBody = 400;
+        long mdatStart = ftyp.length + 16;
+        byte[] mdat = concat(ints(1), ascii("mdat"), longs(16 + mdatBody), new byte[mdatBody]);
+        byte[] moov = moov(mdhd(0, 1000, 6000), co64(mdatStart, mdatStart + 130));
+
+        Mp4Index index = index(concat(ftyp, mdat, moov));
+        Mp4Track track = index.videoTrack().orElseThrow();
+
+        assertEquals(1, index.getTracks().size());
+        assertEquals(6, track.getSampleCount());
+        assertEquals(2, track.getSyncSampleCount());
+        assertEquals(6.0, track.getDurationSeconds());
+        List<SampleRange> keyframes = track.sampledSyncSamples(16);
+        assertEquals(List.of(new SampleRange(1, mdatStart, 100), new SampleRange(4, mdatStart + 130, 200)), keyframes);
+        //the mdat body is skipped, not read
+        assertTrue(index.getBytesRead() < mdatBody);
+    }
+
+    @Test
+    void readsTrackWithStcoAndVersion1Mdhd() throws IOException {
+        byte[] ftyp = box("ftyp", ascii("qt  "), ints(0));
+        byte[] mdhd = box("mdhd", ints(1 << 24), longs(0), longs(0), ints(600), longs(1200));
+        byte[] stco = box("stco", ints(0), ints(2), ints(1000), ints(2000));
+
+        Mp4Track track = index(concat(ftyp, moov(mdhd, stco))).videoTrack().orElseThrow();
+
+        assertEquals(2.0, track.getDurationSeconds());
+        assertEquals(List.of(new SampleRange(3, 1110, 20), new SampleRange(5, 2200, 30)), track.ranges(new int[]{3, 5}));
+    }
+
+    @Test
+    void rejectsZeroLengthMdhd() {
+        byte[] file = concat(box("ftyp", ascii("isom")), moov(box("mdhd"), co64(0, 0)));
+
+        Mp4FormatException e = assertThrows(Mp4FormatException.class, () -> index(file));
+        assertEquals("Box mdhd is too short", e.getMessage());
+    }
+
+    @Test
+    void rejectsVersion1MdhdWithVersion0Length() {
+        byte[] file = concat(box("ftyp", ascii("isom")), moov(mdhd(1, 1000, 6000), co64(0, 0)));
+
+        assertThrows(Mp4FormatException.class, () -> index(file));
+    }
+
+    @Test
+    void rejectsTruncatedMoov() {
+        byte[] file = concat(box("ftyp", ascii("isom")), moov(mdhd(0, 1000, 6000), co64(0, 0)));
+        byte[] truncated = Arrays.copyOf(file, file.length - 10);
+
+        assertThrows(Mp4FormatException.class, () -> index(truncated));
+    }
+
+    @Test
+    void rejectsChildLargerThanParent() {
+        byte[] ftyp = box("ftyp", ascii("isom"));
+        byte[] moov = moov(mdhd(0, 1000, 6000), co64(0, 0));
+        //the trak header right after the moov header claims more bytes than the moov holds
+        ByteBuffer.wrap(moov).putInt(8, moov.length);
+
+        Mp4FormatException e = assertThrows(Mp4FormatException.class, () -> index(concat(ftyp, moov)));
+        assertTrue(e.getMessage().contains("invalid size"), e.getMessage());
+    }
+
+    @Test
+    void rejectsEntryCountBeyondTable() {
+        byte[] ftyp = box("ftyp", ascii("isom"));
+        byte[] co64 = box("co64", ints(0), ints(1000), longs(0));
+
+        Mp4FormatException e = assertThrows(Mp4FormatException.class, () -> index(concat(ftyp, moov(mdhd(0, 1000, 6000), co64))));
+        assertEquals("Box co64 is shorter than its entry count", e.getMessage());
+    }
+
+    @Test
+    void rejectsFileWithoutMoov() {
+        Mp4FormatException e = assertThrows(Mp4FormatException.class,
+                () -> index(concat(box("ftyp", ascii("isom")), box("mdat", new byte[64]))));
+        assertEquals("MP4 file has no moov box", e.getMessage());
+    }
+
+    @Test
+    void rejectsNonMp4() {
+        Mp4FormatException e = assertThrows(Mp4FormatException.class,
+                () -> index(ascii("RIFF....WAVEfmt ")));
+        assertEquals("Not an MP4 / QuickTime file", e.getMessage());
+    }
+
+    private Mp4Index index(byte[] content) throws IOException {
+        Path file = Files.write(dir.resolve("test.mp4"), content);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return Mp4Index.read(channel);
+        }
+    }
+
+    //moov / trak / mdia with the given mdhd and chunk offset box, 3 samples per chunk
+    private static byte[] moov(byte[] mdhd, byte[] chunkOffsets) {
+        byte[] hdlr = box("hdlr", ints(0, 0), ascii("vide"), new byte[12]);
+        byte[] stss = box("stss", ints(0, 2, 1, 4));
+        byte[] stsc = box("stsc", ints(0, 1, 1, 3, 1));
+        ByteArrayOutputStream stsz = new ByteArrayOutputStream();
+        stsz.writeBytes(ints(0, 0, SAMPLE_SIZES.length));
+        stsz.writeBytes(ints(SAMPLE_SIZES));
+        byte[] stbl = box("stbl", stss, stsc, box("stsz", stsz.toByteArray()), chunkOffsets);
+        return box("moov", box("trak", box("mdia", mdhd, hdlr, box("minf", stbl))));
+    }
+
+    private static byte[] mdhd(int version, int timescale, int duration) {
+        return box("mdhd", ints(version << 24, 0, 0, timescale, duration));
+    }
+
+    private static byte[] co64(long... offsets) {
+        return box("co64", ints(0, offsets.length), longs(offsets));
+    }
+
+    private static byte[] box(String type, byte[]... payload) {
+        byte[] body = concat(payload);
+        return concat(ints(8 + body.length), ascii(type), body);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] ints(int... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4);
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+
+    private static byte[] longs(long... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 8);
+        for (long value : values) {
+            buffer.putLong(value);
+        }
+        return buffer.array();
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
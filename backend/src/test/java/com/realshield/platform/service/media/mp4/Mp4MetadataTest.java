@@ -0,0 +1,159 @@
+package com.realshield.platform.service.media.mp4;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Mp4MetadataTest {
+
+    //2024-01-01T00:00:00Z in seconds since 1904
+    private static final int CREATED = (int) (1704067200L + 2082844800L);
+
+    @Test
+    void readsMvhdAndQuickTimeUserData() throws IOException {
+        byte[] mvhd = box("mvhd", ints(0, CREATED, 0), new byte[88]);
+        byte[] udta = box("udta", userData("©too", "Lavf60.16.100"), userData("©mak", "Apple"));
+        byte[] file = concat(ftyp(), box("mdat", new byte[256]), box("moov", mvhd, box("trak", new byte[64]), udta));
+
+        Map<String, String> tags = Mp4Metadata.read(new ByteArrayInputStream(file));
+
+        assertEquals("2024-01-01T00:00:00Z", tags.get("Creation Time"));
+        //a zero modification time means unknown
+        assertFalse(tags.containsKey("Modification Time"));
+        assertEquals("Lavf60.16.100", tags.get("Encoder"));
+        assertEquals("Apple", tags.get("Make"));
+    }
+
+    @Test
+    void readsVersion1Mvhd() throws IOException {
+        byte[] mvhd = box("mvhd", ints(1 << 24), longs(CREATED & 0xFFFFFFFFL, (CREATED & 0xFFFFFFFFL) + 60), new byte[96]);
+
+        Map<String, String> tags = Mp4Metadata.read(new ByteArrayInputStream(concat(ftyp(), box("moov", mvhd))));
+
+        assertEquals("2024-01-01T00:01:00Z", tags.get("Modification Time"));
+    }
+
+    @Test
+    void readsItunesAndMdtaMetadata() throws IOException {
+        //iTunes style: udta / meta (full box) / hdlr + ilst / ©nam / data
+        byte[] itunes = box("meta", ints(0), box("hdlr", new byte[25]), box("ilst", box("©nam", data("Holiday"))));
+        //QuickTime mdta: moov / meta (plain container) / keys + ilst items numbered by key index
+        byte[] keys = box("keys", ints(0, 2), key("com.apple.quicktime.model"), key("com.apple.quicktime.software"));
+        byte[] ilst = box("ilst", item(1, "iPhone 15 Pro"), item(2, "17.1"));
+        byte[] mdta = box("meta", box("hdlr", new byte[25]), keys, ilst);
+
+        Map<String, String> tags = Mp4Metadata.read(new ByteArrayInputStream(concat(ftyp(), box("moov", box("udta", itunes), mdta))));
+
+        assertEquals("Holiday", tags.get("Title"));
+        assertEquals("iPhone 15 Pro", tags.get("Model"));
+        assertEquals("17.1", tags.get("Software"));
+    }
+
+    @Test
+    void stopsAfterMoov() throws IOException {
+        //bytes after moov are never read, not even their box header
+        byte[] file = concat(ftyp(), box("moov", box("udta", userData("©swr", "HandBrake"))), new byte[]{0, 0, 0, 1});
+
+        assertEquals(Map.of("Software", "HandBrake"), Mp4Metadata.read(new ByteArrayInputStream(file)));
+    }
+
+    @Test
+    void mdatRunningToEndOfFileEndsTheRead() throws IOException {
+        byte[] mdat = concat(ints(0), ascii("mdat"), new byte[32]);
+
+        assertEquals(Map.of(), Mp4Metadata.read(new ByteArrayInputStream(concat(ftyp(), mdat))));
+    }
+
+    @Test
+    void rejectsMalformedFiles() {
+        byte[] moov = box("moov", box("udta", userData("©too", "x")));
+
+        assertEquals("Not an MP4 / QuickTime file",
+                assertThrows(Mp4FormatException.class, () -> read(new byte[0])).getMessage());
+        assertEquals("Not an MP4 / QuickTime file",
+                assertThrows(Mp4FormatException.class, () -> read(concat(ints(4), ascii("ftyp")))).getMessage());
+        //a child box larger than what is left of moov
+        byte[] oversized = moov.clone();
+        ByteBuffer.wrap(oversized).putInt(8, moov.length);
+        assertEquals("Box udta has an invalid size",
+                assertThrows(Mp4FormatException.class, () -> read(concat(ftyp(), oversized))).getMessage());
+        //moov cut off in the middle of a child box
+        byte[] truncated = Arrays.copyOf(moov, moov.length - 3);
+        assertThrows(IOException.class, () -> read(concat(ftyp(), truncated)));
+        //a skipped box that claims more bytes than the file holds
+        assertThrows(Mp4FormatException.class, () -> read(concat(ftyp(), ints(4096), ascii("free"))));
+    }
+
+    private static Map<String, String> read(byte[] content) throws IOException {
+        return Mp4Metadata.read(new ByteArrayInputStream(content));
+    }
+
+    private static byte[] ftyp() {
+        return box("ftyp", ascii("isom"), ints(512), ascii("isom"));
+    }
+
+    //©xxx: size(2) language(2) text
+    private static byte[] userData(String type, String value) {
+        byte[] text = value.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(4).putShort((short) text.length).putShort((short) 0x55C4);
+        return box(type, header.array(), text);
+    }
+
+    private static byte[] key(String name) {
+        return box("mdta", ascii(name));
+    }
+
+    private static byte[] item(int keyIndex, String value) {
+        byte[] data = data(value);
+        return concat(ints(8 + data.length, keyIndex), data);
+    }
+
+    //data: type 1 (UTF-8), locale 0, value
+    private static byte[] data(String value) {
+        return box("data", ints(1, 0), value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] box(String type, byte[]... payload) {
+        byte[] body = concat(payload);
+        return concat(ints(8 + body.length), type.getBytes(StandardCharsets.ISO_8859_1), body);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] ints(int... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4);
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+
+    private static byte[] longs(long... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 8);
+        for (long value : values) {
+            buffer.putLong(value);
+        }
+        return buffer.array();
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,81 @@
+package com.realshield.platform.service.verify;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkIndexTest {
+
+    @Test
+    void growKeepsEveryEntry() {
+        ChunkIndex index = new ChunkIndex(1);
+        long initialBytes = index.bytes();
+        Random random = new Random(7);
+        long[] keys = new long[10_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong();
+            index.add(keys[i], i);
+        }
+
+        assertEquals(keys.length, index.size());
+        assertTrue(index.bytes() > initialBytes);
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(List.of((long) i), ids(index, keys[i]));
+        }
+    }
+
+    @Test
+    void keySharedByOriginalsKeepsEveryId() {
+        ChunkIndex index = new ChunkIndex(4);
+        index.add(42, 1);
+        index.add(42, 2);
+        index.add(43, 3);
+        index.add(42, 3);
+
+        assertEquals(List.of(1L, 2L, 3L), ids(index, 42).stream().sorted().toList());
+        assertEquals(List.of(3L), ids(index, 43));
+        assertEquals(List.of(), ids(index, 44));
+    }
+
+    @Test
+    void sameChunkTwiceInOneOriginalIsKeptOnce() {
+        ChunkIndex index = new ChunkIndex(4);
+        index.add(42, 1);
+        index.add(42, 1);
+
+        assertEquals(1, index.size());
+        assertEquals(List.of(1L), ids(index, 42));
+    }
+
+    @Test
+    void keyZeroIsStored() {
+        ChunkIndex index = new ChunkIndex(4);
+        index.add(0, 9);
+
+        assertEquals(List.of(9L), ids(index, 0));
+    }
+
+    @Test
+    void collidingSlotsAreProbedPastEachOther() {
+        //keys that differ only above the mask land on the same slot
+        ChunkIndex index = new ChunkIndex(16);
+        for (long i = 1; i <= 10; i++) {
+            index.add(i << 40 | i << 8, i);
+        }
+
+        for (long i = 1; i <= 10; i++) {
+            assertEquals(List.of(i), ids(index, i << 40 | i << 8));
+        }
+    }
+
+    private static List<Long> ids(ChunkIndex index, long key) {
+        List<Long> ids = new ArrayList<>();
+        index.forEach(key, ids::add);
+        return ids;
+    }
+}
@@ -0,0 +1,144 @@
+package com.realshield.platform.service.verify;
+
+import com.realshield.platform.utils.FileHashUtil;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkManifestTest {
+
+    private static final byte[] MEDIA = random(4 * 1024 * 1024, 1);
+
+    @Test
+    void chunksCoverTheFileWithinSizeBounds() throws IOException {
+        ChunkManifest manifest = ChunkManifest.build(new ByteArrayInputStream(MEDIA));
+
+        assertEquals(MEDIA.length, manifest.totalBytes());
+        assertTrue(manifest.chunkCount() > 16, "chunks: " + manifest.chunkCount());
+        for (int i = 0; i < manifest.chunkCount() - 1; i++) {
+            assertTrue(manifest.length(i) >= 16 * 1024 && manifest.length(i) <= 256 * 1024, "chunk " + i);
+        }
+    }
+
+    @Test
+    void boundariesDoNotDependOnReadSizes() throws IOException {
+        ChunkManifest whole = ChunkManifest.build(new ByteArrayInputStream(MEDIA));
+        ChunkManifest trickled = ChunkManifest.build(new OddReads(new ByteArrayInputStream(MEDIA)));
+
+        assertArrayEquals(whole.encode(), trickled.encode());
+    }
+
+    @Test
+    void fileDigestComesOutOfTheSamePass() throws IOException {
+        MessageDigest fileDigest = FileHashUtil.newSha256();
+        ChunkManifest.build(new ByteArrayInputStream(MEDIA), fileDigest);
+
+        assertArrayEquals(FileHashUtil.newSha256().digest(MEDIA), fileDigest.digest());
+    }
+
+    @Test
+    void encodeDecodeRoundTrip() throws IOException {
+        ChunkManifest manifest = ChunkManifest.build(new ByteArrayInputStream(MEDIA));
+        byte[] encoded = manifest.encode();
+
+        ChunkManifest decoded = ChunkManifest.decode(encoded);
+
+        assertEquals(4 + manifest.chunkCount() * 20, encoded.length);
+        assertEquals(manifest.chunkCount(), decoded.chunkCount());
+        assertEquals(manifest.totalBytes(), decoded.totalBytes());
+        assertEquals(manifest.merkleRoot(), decoded.merkleRoot());
+        for (int i = 0; i < manifest.chunkCount(); i++) {
+            assertEquals(manifest.key(i), decoded.key(i));
+            assertEquals(manifest.length(i), decoded.length(i));
+        }
+    }
+
+    @Test
+    void decodeRejectsCorruptManifests() throws IOException {
+        byte[] encoded = ChunkManifest.build(new ByteArrayInputStream(MEDIA)).encode();
+
+        assertThrows(IllegalArgumentException.class, () -> ChunkManifest.decode(Arrays.copyOf(encoded, encoded.length - 1)));
+        assertThrows(IllegalArgumentException.class, () -> ChunkManifest.decode(ByteBuffer.allocate(4).putInt(-1).array()));
+        assertThrows(IllegalArgumentException.class, () -> ChunkManifest.decode(ByteBuffer.allocate(4).putInt(Integer.MAX_VALUE).array()));
+    }
+
+    @Test
+    void emptyFileHasNoChunks() throws IOException {
+        ChunkManifest manifest = ChunkManifest.build(new ByteArrayInputStream(new byte[0]));
+
+        assertEquals(0, manifest.chunkCount());
+        assertEquals(FileHashUtil.toHex(FileHashUtil.newSha256().digest()), manifest.merkleRoot());
+        assertEquals(0, ChunkManifest.decode(manifest.encode()).chunkCount());
+    }
+
+    @Test
+    void merkleRootChangesWithAnyChunk() throws IOException {
+        byte[] edited = MEDIA.clone();
+        edited[edited.length - 1] ^= 1;
+
+        assertNotEquals(ChunkManifest.build(new ByteArrayInputStream(MEDIA)).merkleRoot(),
+                ChunkManifest.build(new ByteArrayInputStream(edited)).merkleRoot());
+    }
+
+    @Test
+    void clipRealignsWithTheOriginal() throws IOException {
+        ChunkManifest original = ChunkManifest.build(new ByteArrayInputStream(MEDIA));
+        Set<Long> originalKeys = new HashSet<>();
+        for (int i = 0; i < original.chunkCount(); i++) {
+            originalKeys.add(original.key(i));
+        }
+        //a clip cut at arbitrary bytes, not at a chunk boundary of the original
+        int from = 1_000_003;
+        int to = MEDIA.length - 200_001;
+        byte[] clip = Arrays.copyOfRange(MEDIA, from, to);
+
+        ChunkManifest clipped = ChunkManifest.build(new ByteArrayInputStream(clip));
+
+        //the first chunk of the clip starts mid chunk and the last one ends mid chunk, the ones between line up
+        int matched = 0;
+        for (int i = 0; i < clipped.chunkCount(); i++) {
+            if (originalKeys.contains(clipped.key(i))) {
+                matched++;
+            }
+        }
+        assertTrue(matched >= clipped.chunkCount() - 3, matched + " of " + clipped.chunkCount() + " chunks matched");
+        assertFalse(originalKeys.contains(clipped.key(0)));
+    }
+
+    private static byte[] random(int size, long seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    //reads of 1 to 7000 bytes, so chunk boundaries fall at every position of the read buffer
+    private static final class OddReads extends FilterInputStream {
+
+        private final Random random = new Random(3);
+
+        private OddReads(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            return super.read(buffer, offset, Math.min(length, 1 + random.nextInt(7000)));
+        }
+    }
+}
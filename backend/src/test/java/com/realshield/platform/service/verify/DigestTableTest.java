@@ -0,0 +1,154 @@
+package com.realshield.platform.service.verify;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DigestTableTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    void buildSortsAndDropsDuplicates() {
+        List<Digest> digests = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            digests.add(randomDigest());
+        }
+        //repeated digests, including runs far longer than the insertion sort threshold
+        for (int i = 0; i < 2000; i++) {
+            digests.add(digests.get(i % 3));
+        }
+        digests.add(digests.get(4999));
+        TreeSet<Digest> expected = new TreeSet<>(digests);
+
+        DigestTable table = build(digests);
+
+        assertEquals(expected.size(), table.size());
+        assertEquals(new ArrayList<>(expected), contents(table));
+        for (Digest digest : expected) {
+            assertTrue(table.contains(digest));
+        }
+        assertFalse(table.contains(randomDigest()));
+    }
+
+    @Test
+    void orderIsUnsignedByteOrder() {
+        Digest low = Digest.parse("00".repeat(32));
+        Digest middle = Digest.parse("7f" + "ff".repeat(31));
+        Digest high = Digest.parse("80" + "00".repeat(31));
+        Digest top = Digest.parse("ff".repeat(32));
+
+        assertEquals(List.of(low, middle, high, top), contents(build(List.of(top, high, low, middle))));
+    }
+
+    @Test
+    void buildOfNothingIsEmpty() {
+        DigestTable table = build(List.of());
+
+        assertEquals(0, table.size());
+        assertFalse(table.contains(randomDigest()));
+    }
+
+    @Test
+    void mergeKeepsOrderAndDropsDigestsAlreadyPresent() {
+        List<Digest> existing = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            existing.add(randomDigest());
+        }
+        TreeSet<Digest> extra = new TreeSet<>();
+        for (int i = 0; i < 500; i++) {
+            extra.add(randomDigest());
+        }
+        extra.addAll(existing.subList(0, 100));
+        TreeSet<Digest> expected = new TreeSet<>(existing);
+        expected.addAll(extra);
+
+        DigestTable merged = build(existing).merge(new ArrayList<>(extra));
+
+        assertEquals(1500, merged.size());
+        assertEquals(new ArrayList<>(expected), contents(merged));
+    }
+
+    @Test
+    void mergeIntoEmptyTable() {
+        List<Digest> extra = new ArrayList<>(new TreeSet<>(List.of(randomDigest(), randomDigest())));
+
+        DigestTable merged = DigestTable.EMPTY.merge(extra);
+
+        assertEquals(extra, contents(merged));
+        assertEquals(0, DigestTable.EMPTY.merge(List.of()).size());
+    }
+
+    @Test
+    void parseAcceptsOnlySha256Hex() {
+        String hex = "0123456789abcdef".repeat(4);
+
+        assertEquals(hex, Digest.parse(hex).toString());
+        assertEquals(Digest.parse(hex), Digest.parse(hex.toUpperCase()));
+        assertNull(Digest.parse(null));
+        assertNull(Digest.parse(hex.substring(1)));
+        assertNull(Digest.parse("g" + hex.substring(1)));
+    }
+
+    @Test
+    void bloomFilterHasNoFalseNegatives() {
+        BloomFilter bloom = BloomFilter.forCapacity(10_000, 0.01);
+        List<Digest> added = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Digest digest = randomDigest();
+            bloom.add(digest);
+            added.add(digest);
+        }
+
+        for (Digest digest : added) {
+            assertTrue(bloom.mightContain(digest));
+        }
+        //1% configured, allow for the spread of a 10k sample
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (bloom.mightContain(randomDigest())) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 200, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void bloomFilterForZeroCapacityStillWorks() {
+        BloomFilter bloom = BloomFilter.forCapacity(0, 0.01);
+        Digest digest = randomDigest();
+        bloom.add(digest);
+
+        assertTrue(bloom.mightContain(digest));
+        assertTrue(bloom.bytes() >= 8);
+    }
+
+    private Digest randomDigest() {
+        return new Digest(random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong());
+    }
+
+    private static DigestTable build(List<Digest> digests) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(digests.size() * Digest.SIZE);
+        for (int i = 0; i < digests.size(); i++) {
+            DigestTable.put(buffer, i, digests.get(i));
+        }
+        return DigestTable.build(buffer, digests.size());
+    }
+
+    private static List<Digest> contents(DigestTable table) {
+        List<Digest> contents = new ArrayList<>();
+        for (int i = 0; i < table.size(); i++) {
+            contents.add(table.get(i));
+        }
+        return contents;
+    }
+}
@@ -0,0 +1,65 @@
+package com.realshield.platform.service.verify;
+
+import com.realshield.platform.utils.MetadataUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MetadataCacheTest {
+
+    private static final MetadataUtil.Selection SELECTION = new MetadataUtil.Selection(3, Map.of("Software", "Lavf"));
+
+    private final AtomicInteger extracted = new AtomicInteger();
+    private final Supplier<MetadataUtil.Selection> extract = () -> {
+        extracted.incrementAndGet();
+        return SELECTION;
+    };
+
+    @Test
+    void unhashedFileIsParsedWithoutLookup() {
+        MetadataCache cache = new MetadataCache(10, 60);
+
+        cache.get(null, "rule", extract, () -> null);
+        cache.get(null, "rule", extract, () -> null);
+
+        assertEquals(2, extracted.get());
+    }
+
+    @Test
+    void hashKnownAfterParseIsCached() {
+        MetadataCache cache = new MetadataCache(10, 60);
+
+        cache.get(null, "rule", extract, () -> "abc");
+        assertSame(SELECTION, cache.get("abc", "rule", extract, () -> "abc"));
+
+        assertEquals(1, extracted.get());
+    }
+
+    @Test
+    void entriesAreKeyedByRuleAndEvicted() {
+        MetadataCache cache = new MetadataCache(2, 60);
+
+        cache.get("a", "rule", extract, () -> "a");
+        cache.get("a", "other", extract, () -> "a");
+        cache.get("b", "rule", extract, () -> "b");
+        //a:rule is the least recently used entry and was evicted by b:rule
+        cache.get("a", "rule", extract, () -> "a");
+
+        assertEquals(4, extracted.get());
+    }
+
+    @Test
+    void expiredEntryIsParsedAgain() {
+        MetadataCache cache = new MetadataCache(10, 0);
+
+        cache.get("a", "rule", extract, () -> "a");
+        cache.get("a", "rule", extract, () -> "a");
+
+        assertEquals(2, extracted.get());
+    }
+}